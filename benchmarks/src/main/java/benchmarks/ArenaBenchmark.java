@@ -0,0 +1,84 @@
+package benchmarks;
+
+import domain.Arena;
+import domain.Direction;
+import domain.GameBoard;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a multi-snake arena tick on pools of different sizes, to see how the parallel
+ * propose/resolve/commit phases scale with cores. Before each tick every snake that would hit
+ * something turns to a free neighbouring cell, so most snakes stay alive during an iteration.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ArenaBenchmark {
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	@Param({"1000", "4000"})
+	public int size;
+
+	@Param({"500", "50000"})
+	public int snakes;
+
+	@Param({"1", "2", "4", "8"})
+	public int threads;
+
+	private ForkJoinPool pool;
+	private Arena arena;
+
+	@Setup(Level.Trial)
+	public void createPool() {
+		pool = new ForkJoinPool(threads);
+	}
+
+	@TearDown(Level.Trial)
+	public void shutdownPool() {
+		pool.shutdown();
+	}
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		arena = new Arena(size, size, snakes, snakes, 42, pool);
+	}
+
+	@Benchmark
+	public int tick() {
+		for (int i = 0; i < snakes; i++) {
+			if (arena.isAlive(i) && blocked(i, arena.getDirection(i))) {
+				for (Direction direction : DIRECTIONS) {
+					if (!blocked(i, direction)) {
+						arena.changeDirection(i, direction);
+						break;
+					}
+				}
+			}
+		}
+		return arena.tick();
+	}
+
+	private boolean blocked(int snake, Direction direction) {
+		int x = arena.getHeadX(snake) + direction.getX();
+		int y = arena.getHeadY(snake) + direction.getY();
+		return x < 0 || y < 0 || x >= size || y >= size || arena.getCell(x, y) == GameBoard.SNAKE;
+	}
+}
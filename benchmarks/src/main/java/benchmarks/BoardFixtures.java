@@ -0,0 +1,68 @@
+package benchmarks;
+
+import domain.Board;
+import domain.Direction;
+import domain.Snake;
+
+/**
+ * Builds boards with snakes of a given length and moves them along a Hamiltonian cycle,
+ * so that benchmarks can tick for as long as they like without the snake dying.
+ *
+ * The cycle needs an even board height: row 0 runs right, the remaining rows zig-zag over
+ * columns 1 to width - 1, and column 0 leads back up to the start.
+ */
+final class BoardFixtures {
+
+	private BoardFixtures() {
+	}
+
+	/**
+	 * Retrieves the direction that follows the Hamiltonian cycle out of the given cell.
+	 */
+	static Direction cycleDirection(int x, int y, int width, int height) {
+		if (y == 0) {
+			return x < width - 1 ? Direction.RIGHT : Direction.DOWN;
+		}
+		if (x == 0) {
+			return Direction.UP;
+		}
+		if (y % 2 == 1) {
+			if (x > 1) {
+				return Direction.LEFT;
+			}
+			return y == height - 1 ? Direction.LEFT : Direction.DOWN;
+		}
+		return x < width - 1 ? Direction.RIGHT : Direction.DOWN;
+	}
+
+	/**
+	 * Creates a square board whose snake has at least the given length, clamped to half the board.
+	 */
+	static Board grownBoard(int size, int length, long seed) {
+		Board board = new Board(size, size, seed);
+		int target = Math.min(length, size * size / 2);
+		while (board.getSnake().getLength() < target) {
+			board.growSnake();
+			step(board);
+		}
+		return board;
+	}
+
+	/**
+	 * Performs one tick the way {@code Game.update} does, following the cycle.
+	 *
+	 * @return true if the move ended the game
+	 */
+	static boolean step(Board board) {
+		Snake snake = board.getSnake();
+		Direction direction = cycleDirection(snake.getHeadX(), snake.getHeadY(), board.getWidth(), board.getHeight());
+		if (board.move(direction)) {
+			return true;
+		}
+		if (board.snakeAteApple()) {
+			board.growSnake();
+			board.createApple();
+		}
+		return false;
+	}
+}
@@ -0,0 +1,56 @@
+package benchmarks;
+
+import domain.Snake;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@code Snake.collidesWith} against random cells for snakes of different lengths.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CollisionBenchmark {
+	private static final int PROBES = 4096;
+
+	@Param({"20", "200", "2000"})
+	public int size;
+
+	@Param({"1", "100", "10000", "1000000"})
+	public int length;
+
+	private Snake snake;
+	private int[] probes;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		snake = BoardFixtures.grownBoard(size, length, 42).getSnake();
+		Random random = new Random(7);
+		probes = new int[PROBES];
+		for (int i = 0; i < PROBES; i++) {
+			probes[i] = random.nextInt(size * size);
+		}
+	}
+
+	@Benchmark
+	public boolean collidesWith() {
+		int cell = probes[next++ & (PROBES - 1)];
+		return snake.collidesWith(cell % size, cell / size);
+	}
+}
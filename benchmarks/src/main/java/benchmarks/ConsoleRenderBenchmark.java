@@ -0,0 +1,71 @@
+package benchmarks;
+
+import domain.Board;
+import domain.Game;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import view.ConsoleRenderer;
+import view.Viewport;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the map-to-console rendering used by {@code Main.printGameState}, writing into a
+ * stream that discards its output so that only the cost of producing the frame is measured.
+ * {@code fullFrame} redraws the whole screen every time, while {@code tickAndDiffFrame} moves the
+ * snake one step and emits only the cells that changed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConsoleRenderBenchmark {
+
+	@Param({"20", "200", "2000"})
+	public int size;
+
+	@Param({"1", "10000"})
+	public int length;
+
+	private Board board;
+	private Game game;
+	private ConsoleRenderer renderer;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		board = BoardFixtures.grownBoard(size, length, 42);
+		game = new Game(board);
+		renderer = new ConsoleRenderer(new PrintStream(OutputStream.nullOutputStream(), false));
+		renderer.setViewport(new Viewport(size, size));
+	}
+
+	@Benchmark
+	public Game fullFrame() {
+		renderer.reset();
+		renderer.render(game);
+		return game;
+	}
+
+	@Benchmark
+	public Game tickAndDiffFrame() {
+		if (BoardFixtures.step(board)) {
+			setUp();
+		}
+		renderer.render(game);
+		return game;
+	}
+}
@@ -0,0 +1,52 @@
+package benchmarks;
+
+import domain.Board;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a full tick ({@code Board.move}, apple check, growth and respawn) across board sizes
+ * and snake lengths, both as throughput and as sampled per-tick latency.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TickBenchmark {
+
+	@Param({"20", "200", "2000"})
+	public int size;
+
+	@Param({"1", "100", "10000", "1000000"})
+	public int length;
+
+	private Board board;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		board = BoardFixtures.grownBoard(size, length, 42);
+	}
+
+	@Benchmark
+	public boolean tick() {
+		boolean over = BoardFixtures.step(board);
+		if (over) {
+			board = BoardFixtures.grownBoard(size, length, 42);
+		}
+		return over;
+	}
+}
@@ -1,104 +1,258 @@
+import application.ConsoleInput;
+import application.DirectionQueue;
+import application.FrameExchange;
+import application.GameLoop;
+import autopilot.Autopilot;
 import domain.Direction;
 import domain.Game;
-import java.util.Scanner;
+import domain.GameEventStream;
+import jdk.jfr.EventType;
+import levels.LevelPack;
+import metrics.GameMetrics;
+import metrics.RenderFrameEvent;
+import view.ConsoleRenderer;
+import view.Frame;
+
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
 
 public class Main {
-    private static volatile Direction nextDirection = null;
+    private static final int MAX_QUEUED_TURNS = 4;
+    private static final int VIEW_COLUMNS = 40;
+    private static final int VIEW_ROWS = 20;
+    private static final long FRAME_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final int EVENT_CAPACITY = 1024;
+    private static final EventType RENDER_EVENT = EventType.getEventType(RenderFrameEvent.class);
+    private static final GameMetrics metrics = new GameMetrics();
+    private static ConsoleRenderer consoleRenderer;
+    private static volatile boolean autopilotEnabled;
+    private static volatile boolean reportRequested;
+    private static volatile boolean resyncRequested;
 
     public static void main(String[] args) {
-        Game game = new Game();
-        Scanner scanner = new Scanner(System.in);
+        // Con --nio se escribe directamente al descriptor de salida, sin pasar por System.out
+        List<String> options = Arrays.asList(args);
+        boolean nio = options.contains("--nio");
+        boolean measure = options.contains("--metrics");
+        consoleRenderer = nio ? ConsoleRenderer.forStandardOutputChannel() : new ConsoleRenderer(System.out);
+        // Con --size ANCHOxALTO se juega en un tablero mayor, del que solo se ve la zona alrededor de la cabeza
+        int sizeOption = options.indexOf("--size");
+        // Con --level PAQUETE [--level-number N] se juega el nivel N (desde 1) de un paquete de niveles
+        int levelOption = options.indexOf("--level");
+        int levelNumberOption = options.indexOf("--level-number");
+        Game game;
+        if (levelOption >= 0 && levelOption + 1 < args.length) {
+            int number = levelNumberOption >= 0 && levelNumberOption + 1 < args.length
+                    ? Integer.parseInt(args[levelNumberOption + 1])
+                    : 1;
+            game = createLevelGame(args[levelOption + 1], number);
+        } else if (sizeOption >= 0 && sizeOption + 1 < args.length) {
+            game = createGame(args[sizeOption + 1]);
+        } else {
+            game = new Game();
+        }
+        if (measure) {
+            game.setMetrics(metrics);
+        }
+        DirectionQueue directions = new DirectionQueue(MAX_QUEUED_TURNS);
+        int width = game.getGameBoard().getWidth();
+        int height = game.getGameBoard().getHeight();
+        // En tableros enormes el piloto automático ocuparía demasiada memoria
+        Autopilot autopilot = (long) width * height <= Autopilot.MAX_CELLS ? new Autopilot(width, height) : null;
+        autopilotEnabled = autopilot != null && options.contains("--autopilot");
 
         System.out.println("=== Snake Game ===");
         System.out.println("Controles:");
-        System.out.println("W - Arriba");
-        System.out.println("A - Izquierda");
-        System.out.println("S - Abajo");
-        System.out.println("D - Derecha");
+        System.out.println("W / ↑ - Arriba");
+        System.out.println("A / ← - Izquierda");
+        System.out.println("S / ↓ - Abajo");
+        System.out.println("D / → - Derecha");
+        System.out.println("+ / - - Más rápido / Más lento");
+        System.out.println("P - Piloto automático");
+        System.out.println("M / I - Activar métricas / Mostrar métricas");
         System.out.println("Q - Salir");
         System.out.println("=================");
 
-        // Hilo para actualizar el juego (No sabia que se hacia con Hilos pero weno)
-        Thread gameThread = new Thread(() -> {
-            while (!game.isGameOver()) {
-                long startTime = System.currentTimeMillis();
+        // El hilo del juego publica una copia del tablero por tick y otro hilo la dibuja,
+        // así una terminal lenta nunca retrasa los ticks ni se dibuja un tick a medias
+        FrameExchange frames = new FrameExchange(VIEW_COLUMNS, VIEW_ROWS);
+        // Si el tablero cabe entero en pantalla, el hilo de dibujo sigue la partida por sus eventos
+        // y solo pide una copia del tablero al empezar o cuando se ha quedado atrás
+        boolean followEvents = width <= VIEW_COLUMNS && height <= VIEW_ROWS;
+        GameEventStream.Subscription subscription = null;
+        if (followEvents) {
+            GameEventStream events = new GameEventStream(EVENT_CAPACITY);
+            game.setEventStream(events);
+            subscription = events.subscribe();
+        }
+        frames.publish(game);
+        GameEventStream.Subscription eventSubscription = subscription;
+        Thread renderThread = new Thread(() -> {
+            if (followEvents) {
+                renderEvents(game, frames, eventSubscription);
+            } else {
+                renderFrames(game, frames);
+            }
+        }, "console-render");
+        renderThread.setDaemon(true);
 
-                game.update();
-                printGameState(game);
+        // Hilo para actualizar el juego, con ritmo fijo compartido con la interfaz gráfica.
+        // Cada tick aplica como mucho un giro de la cola, así no se pierden los giros dobles rápidos
+        GameLoop gameLoop = new GameLoop(() -> {
+            if (autopilotEnabled) {
+                // Con el piloto automático activo se descartan los giros tecleados
+                directions.clear();
+                Direction direction = autopilot.next(game);
+                if (direction != null) {
+                    game.changeDirection(direction);
+                }
+            } else {
+                directions.applyNextTurn(game);
+            }
+            game.update();
+        }, () -> {
+            if (!followEvents || resyncRequested) {
+                resyncRequested = false;
+                frames.publish(game);
+            } else {
+                LockSupport.unpark(renderThread);
+            }
+        }, game::isGameOver);
 
-                long processingTime = System.currentTimeMillis() - startTime;
-                long sleepTime = 600 - processingTime; // 400ms por frame
+        // Lectura de input en un hilo que se bloquea esperando teclas, sin consumir CPU
+        ConsoleInput input = new ConsoleInput(System.in, directions, key -> {
+            switch (key) {
+                case '+' -> gameLoop.faster();
+                case '-' -> gameLoop.slower();
+                case 'p' -> autopilotEnabled = autopilot != null && !autopilotEnabled;
+                case 'm' -> game.setMetrics(game.getMetrics() == null ? metrics : null);
+                case 'i' -> reportRequested = true;
+                case 'q' -> System.exit(0);
+                default -> {}
+            }
+        });
+        if (!input.enableRawMode()) {
+            System.out.println("(Pulsa Enter después de cada tecla)");
+        }
+        input.start();
+        renderThread.start();
 
-                if (sleepTime > 0) {
-                    try {
-                        Thread.sleep(sleepTime);
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
-                }
+        gameLoop.start(() -> {
+            // Esperar a que se dibuje el último frame antes de escribir el resumen; se publica
+            // otra vez por si el hilo de dibujo perdió los últimos eventos y espera una copia
+            frames.publish(game);
+            try {
+                renderThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
             System.out.println("¡Game Over! Puntuación final: " + game.getScore());
+            System.out.printf("Ticks: %d, retrasos: %d, jitter medio: %.2f ms, máximo: %.2f ms%n",
+                    gameLoop.getTickCount(), gameLoop.getOverrunCount(),
+                    gameLoop.getMeanJitterNanos() / 1e6, gameLoop.getMaxJitterNanos() / 1e6);
+            if (autopilot != null && autopilot.getPlanCount() > 0) {
+                System.out.printf("Piloto automático: %d ticks, planificación media: %.3f ms, máxima: %.3f ms, "
+                                + "rutas reutilizadas: %d, recursos de emergencia: %d%n",
+                        autopilot.getPlanCount(), autopilot.getMeanPlanNanos() / 1e6,
+                        autopilot.getMaxPlanNanos() / 1e6, autopilot.getReusedPlanCount(),
+                        autopilot.getFallbackCount());
+            }
+            if (metrics.getTicks() > 0) {
+                System.out.print(metrics.report());
+            }
             System.exit(0);
         });
-        gameThread.start();
-
-        // Lectura de input
-        while (!game.isGameOver()) {
-            try {
-                if (System.in.available() > 0) {
-                    String input = scanner.nextLine().toLowerCase();
+    }
 
-                    switch (input) {
-                        case "w":
-                            nextDirection = Direction.UP;
-                            break;
-                        case "a":
-                            nextDirection = Direction.LEFT;
-                            break;
-                        case "s":
-                            nextDirection = Direction.DOWN;
-                            break;
-                        case "d":
-                            nextDirection = Direction.RIGHT;
-                            break;
-                        case "q":
-                            System.exit(0);
-                            break;
-                    }
-                }
+    private static Game createGame(String size) {
+        String[] parts = size.toLowerCase().split("x");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Tamaño no válido, se esperaba ANCHOxALTO: " + size);
+        }
+        int width = Integer.parseInt(parts[0]);
+        int height = Integer.parseInt(parts[1]);
+        return new Game(width, height, ThreadLocalRandom.current().nextLong());
+    }
 
-                // Aplicar la dirección almacenada
-                if (nextDirection != null) {
-                    game.changeDirection(nextDirection);
-                    nextDirection = null;
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
+    private static Game createLevelGame(String path, int number) {
+        try (LevelPack pack = new LevelPack(Path.of(path))) {
+            if (number < 1 || number > pack.getLevelCount()) {
+                throw new IllegalArgumentException("El paquete tiene " + pack.getLevelCount() + " niveles: " + number);
             }
+            return new Game(pack.getLevel(number - 1), ThreadLocalRandom.current().nextLong());
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el paquete de niveles " + path, e);
         }
     }
 
-    private static void printGameState(Game game) {
-        // Limpiar consola
-        System.out.print("\033[H\033[2J");
-        System.out.flush();
-
-        System.out.println("Puntuación: " + game.getScore());
-        System.out.println();
+    private static void renderFrames(Game game, FrameExchange frames) {
+        Frame frame;
+        do {
+            frame = frames.await(FRAME_WAIT_NANOS);
+            if (frame != null) {
+                printGameState(game, frame);
+            }
+        } while (frame == null || !frame.isGameOver());
+    }
 
-        String[][] map = game.getGameBoard().getMap();
-        for (int y = 0; y < map[0].length; y++) {
-            for (int x = 0; x < map.length; x++) {
-                if (map[x][y] == null) {
-                    System.out.print("· ");
-                } else if (map[x][y].equals("snake")) {
-                    System.out.print("■ ");
-                } else if (map[x][y].equals("apple")) {
-                    System.out.print("○ ");
+    private static void renderEvents(Game game, FrameExchange frames, GameEventStream.Subscription subscription) {
+        Frame mirror = new Frame();
+        boolean stale = true;
+        do {
+            if (stale) {
+                // Se han perdido eventos: pedir una copia del tablero y seguir desde ella
+                Frame frame = frames.await(FRAME_WAIT_NANOS);
+                if (frame == null) {
+                    continue;
+                }
+                mirror.copyFrom(frame);
+                subscription.skipTo(mirror.getEventSequence());
+                printGameState(game, mirror);
+            } else {
+                LockSupport.parkNanos(FRAME_WAIT_NANOS);
+                mirror.resetChangedCells();
+                if (subscription.drain(mirror) > 0 && !mirror.isStale()) {
+                    printGameState(game, mirror);
                 }
             }
-            System.out.println();
+            stale = mirror.isStale();
+            if (stale) {
+                resyncRequested = true;
+            }
+        } while (stale || !mirror.isGameOver());
+    }
+
+    private static void printGameState(Game game, Frame frame) {
+        GameMetrics gameMetrics = game.getMetrics();
+        if (gameMetrics == null && !RENDER_EVENT.isEnabled()) {
+            consoleRenderer.render(frame);
+        } else {
+            // Medir el frame solo cuando se piden métricas o lo está grabando Flight Recorder
+            RenderFrameEvent event = new RenderFrameEvent();
+            event.begin();
+            long start = System.nanoTime();
+            consoleRenderer.render(frame);
+            long elapsed = System.nanoTime() - start;
+            int cells = frame.getChangedCells();
+            if (gameMetrics != null) {
+                gameMetrics.recordFrame(elapsed, cells);
+            }
+            if (event.shouldCommit()) {
+                event.renderer = "console";
+                event.cellsChanged = cells;
+                event.commit();
+            }
+        }
+        if (reportRequested) {
+            // El informe se escribe debajo del tablero, donde el renderizador deja el cursor
+            reportRequested = false;
+            System.out.print(metrics.report());
         }
     }
 }
\ No newline at end of file
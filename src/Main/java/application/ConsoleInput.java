@@ -0,0 +1,156 @@
+package application;
+
+import domain.Direction;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.IntConsumer;
+
+/**
+ * The ConsoleInput class reads the keyboard on a dedicated thread that blocks on the input
+ * stream, so no core is spent polling while the player is not typing.
+ *
+ * When the process runs in a terminal, {@link #enableRawMode()} switches it to non-canonical
+ * mode with {@code stty}, so every key is delivered as soon as it is pressed instead of after
+ * Enter. W/A/S/D and the arrow keys are turned into directions and offered to a
+ * {@link DirectionQueue}; every other key is passed to a callback.
+ */
+public class ConsoleInput {
+    private static final File TTY = new File("/dev/tty");
+
+    private final InputStream in;
+    private final DirectionQueue directions;
+    private final IntConsumer otherKeys;
+    private String savedTerminalSettings;
+
+    /**
+     * Constructs a reader.
+     *
+     * @param in         the stream to read keys from, usually {@code System.in}
+     * @param directions the queue that receives the directions typed by the player
+     * @param otherKeys  receives every key that is not a direction, lower-cased
+     */
+    public ConsoleInput(InputStream in, DirectionQueue directions, IntConsumer otherKeys) {
+        this.in = in;
+        this.directions = directions;
+        this.otherKeys = otherKeys;
+    }
+
+    /**
+     * Puts the terminal in non-canonical, no-echo mode and restores it when the JVM exits.
+     * Does nothing when there is no terminal or {@code stty} is not available; keys then
+     * arrive line by line, after Enter.
+     *
+     * @return true if raw mode was enabled
+     */
+    public synchronized boolean enableRawMode() {
+        if (savedTerminalSettings != null || !TTY.exists() || System.console() == null) {
+            return savedTerminalSettings != null;
+        }
+        try {
+            savedTerminalSettings = stty("-g").trim();
+            stty("-icanon", "-echo", "min", "1");
+        } catch (IOException e) {
+            savedTerminalSettings = null;
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            savedTerminalSettings = null;
+            return false;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(this::restoreTerminal, "terminal-restore"));
+        return true;
+    }
+
+    /**
+     * Starts the reader thread. It is a daemon thread, so it does not keep the JVM alive.
+     *
+     * @return the started thread
+     */
+    public Thread start() {
+        Thread thread = new Thread(this::readLoop, "console-input");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private void readLoop() {
+        try {
+            int key;
+            while ((key = in.read()) != -1) {
+                if (key == '\033') {
+                    key = readArrow();
+                    if (key < 0) {
+                        continue;
+                    }
+                }
+                Direction direction = toDirection(key);
+                if (direction != null) {
+                    directions.offer(direction);
+                } else if (key != '\n' && key != '\r') {
+                    otherKeys.accept(Character.toLowerCase(key));
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Reads the rest of an arrow-key escape sequence ({@code ESC [ A} to {@code ESC [ D}).
+     *
+     * @return the W/A/S/D key that matches the arrow, or -1 for any other sequence
+     */
+    private int readArrow() throws IOException {
+        if (in.read() != '[') {
+            return -1;
+        }
+        return switch (in.read()) {
+            case 'A' -> 'w';
+            case 'B' -> 's';
+            case 'C' -> 'd';
+            case 'D' -> 'a';
+            default -> -1;
+        };
+    }
+
+    private static Direction toDirection(int key) {
+        return switch (Character.toLowerCase(key)) {
+            case 'w' -> Direction.UP;
+            case 'a' -> Direction.LEFT;
+            case 's' -> Direction.DOWN;
+            case 'd' -> Direction.RIGHT;
+            default -> null;
+        };
+    }
+
+    private synchronized void restoreTerminal() {
+        if (savedTerminalSettings == null) {
+            return;
+        }
+        try {
+            stty(savedTerminalSettings);
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        savedTerminalSettings = null;
+    }
+
+    private static String stty(String... args) throws IOException, InterruptedException {
+        String[] command = new String[args.length + 1];
+        command[0] = "stty";
+        System.arraycopy(args, 0, command, 1, args.length);
+        Process process = new ProcessBuilder(command)
+                .redirectInput(TTY)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        String output = new String(process.getInputStream().readAllBytes());
+        if (process.waitFor() != 0) {
+            throw new IOException("stty exited with status " + process.exitValue());
+        }
+        return output;
+    }
+}
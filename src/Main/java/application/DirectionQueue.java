@@ -0,0 +1,104 @@
+package application;
+
+import domain.Direction;
+import domain.Game;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The DirectionQueue class carries turns from an input thread to the game loop.
+ *
+ * It is a bounded single-producer, single-consumer ring buffer: one thread offers directions
+ * as keys are pressed and the game loop takes them, one turn per tick, through
+ * {@link #applyNextTurn(Game)}. Neither side locks or allocates. Unlike a single
+ * "next direction" slot, quick successive turns are kept in order instead of overwriting each
+ * other, so a double turn entered within one tick is played over the next two ticks.
+ */
+public class DirectionQueue {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final byte[] slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Constructs a queue that holds at least the given number of pending turns.
+     *
+     * @param capacity the number of turns that can be queued; rounded up to a power of two
+     */
+    public DirectionQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new byte[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Appends a direction to the queue. Must only be called from the producer thread.
+     *
+     * @param direction the direction that was requested
+     * @return true if it was queued, false if the queue was full and the direction was dropped
+     */
+    public boolean offer(Direction direction) {
+        long t = tail.get();
+        if (t - head.get() == slots.length) {
+            return false;
+        }
+        slots[(int) t & mask] = (byte) direction.ordinal();
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Removes and returns the oldest queued direction. Must only be called from the consumer thread.
+     *
+     * @return the oldest direction, or null if the queue is empty
+     */
+    public Direction poll() {
+        long h = head.get();
+        if (h == tail.get()) {
+            return null;
+        }
+        Direction direction = DIRECTIONS[slots[(int) h & mask]];
+        head.lazySet(h + 1);
+        return direction;
+    }
+
+    /**
+     * Applies the oldest queued direction that actually turns the snake, discarding queued
+     * directions that match its current heading or point straight back. Later turns stay
+     * queued for the following ticks. Meant to be called by the game loop right before
+     * {@link Game#update()}.
+     *
+     * @param game the game whose direction is changed
+     */
+    public void applyNextTurn(Game game) {
+        Direction direction;
+        while ((direction = poll()) != null) {
+            Direction current = game.getCurrentDirection();
+            if (direction != current && !direction.isOpposite(current)) {
+                game.changeDirection(direction);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Discards every queued direction. Must only be called from the consumer thread.
+     */
+    public void clear() {
+        head.lazySet(tail.get());
+    }
+
+    /**
+     * Retrieves the number of directions waiting in the queue.
+     *
+     * @return the number of queued directions
+     */
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+}
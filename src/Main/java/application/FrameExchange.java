@@ -0,0 +1,121 @@
+package application;
+
+import domain.Game;
+import view.Frame;
+import view.Viewport;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The FrameExchange class hands {@link Frame}s from the thread that runs the game to the thread
+ * that draws it, without locks and without ever showing a tick half applied.
+ *
+ * It holds three frames. The simulation owns one, the back frame, and captures each tick into
+ * it; the renderer owns another, the front frame, and draws from it. The third sits in between.
+ * Publishing atomically swaps the back frame with the one in between and marks it fresh;
+ * {@link #poll()} swaps the front frame with it if it is fresh. Each side therefore always has
+ * a frame to itself, the simulation never waits for a slow renderer, and a renderer that falls
+ * behind simply skips to the newest frame.
+ *
+ * There must be a single publishing thread and a single reading thread.
+ */
+public class FrameExchange {
+    private static final int FRESH = 4;
+    private static final int INDEX_MASK = 3;
+
+    private final Frame[] frames = {new Frame(), new Frame(), new Frame()};
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private final Viewport viewport;
+    private int back = 0;
+    private int front = 2;
+    private volatile Thread waiter;
+    private volatile long published;
+
+    /**
+     * Constructs an exchange whose frames show at most the given number of cells of the board,
+     * following the head.
+     *
+     * @param columns the largest number of columns in a frame
+     * @param rows    the largest number of rows in a frame
+     */
+    public FrameExchange(int columns, int rows) {
+        this.viewport = new Viewport(columns, rows);
+    }
+
+    /**
+     * Captures the game into the back frame and publishes it. Must only be called from the
+     * publishing thread, typically as the render callback of the {@link GameLoop}.
+     *
+     * @param game the game to publish
+     */
+    public void publish(Game game) {
+        frames[back].capture(game, viewport);
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+        published++;
+        Thread thread = waiter;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Takes the newest published frame if there is one the reader has not seen. Must only be
+     * called from the reading thread. The frame stays valid until the next call that returns a
+     * frame.
+     *
+     * @return the newest frame, or null if nothing was published since the last call
+     */
+    public Frame poll() {
+        if ((middle.get() & FRESH) == 0) {
+            return null;
+        }
+        front = middle.getAndSet(front) & INDEX_MASK;
+        return frames[front];
+    }
+
+    /**
+     * Waits until a frame the reader has not seen is published and takes it. Must only be
+     * called from the reading thread.
+     *
+     * @param timeoutNanos the longest time to wait, in nanoseconds
+     * @return the newest frame, or null if none was published in time
+     */
+    public Frame await(long timeoutNanos) {
+        Frame frame = poll();
+        if (frame != null) {
+            return frame;
+        }
+        long deadline = System.nanoTime() + timeoutNanos;
+        waiter = Thread.currentThread();
+        try {
+            while ((frame = poll()) == null) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return null;
+                }
+                LockSupport.parkNanos(this, remaining);
+            }
+            return frame;
+        } finally {
+            waiter = null;
+        }
+    }
+
+    /**
+     * Forgets where the frames were looking, so that the next frame is centred on the head again.
+     * Must only be called from the publishing thread.
+     */
+    public void resetViewport() {
+        viewport.reset();
+    }
+
+    /**
+     * Retrieves how many frames have been published.
+     *
+     * @return the publication count
+     */
+    public long getPublishedCount() {
+        return published;
+    }
+}
@@ -16,6 +16,12 @@ public class GameApp extends Application {
         primaryStage.show();
     }
 
+    @Override
+    public void stop() {
+        // La partida avanza en su propio hilo: al cerrar la ventana se termina el proceso entero
+        System.exit(0);
+    }
+
     public static void main(String[] args) {
         launch(args); // Esta debe ser la única llamada a launch()
     }
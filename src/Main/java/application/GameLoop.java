@@ -0,0 +1,327 @@
+package application;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The GameLoop class paces a game at a fixed timestep, shared by the console and JavaFX front ends.
+ *
+ * Ticks are scheduled on absolute deadlines measured with {@link System#nanoTime()}, so the time
+ * spent inside a tick or a late wake-up does not make the game drift. When the loop falls behind
+ * by more than one tick, the {@link OverrunPolicy} decides whether the missed ticks are run back to
+ * back or dropped. Rendering is decoupled from simulation: however many ticks are due, the render
+ * callback runs at most once per call to {@link #advance(long)}.
+ *
+ * The loop can be driven in two ways: {@link #start(Runnable)} runs it on a dedicated thread that
+ * parks until each deadline, while a UI can call {@link #advance(long)} from its own frame pulse.
+ */
+public class GameLoop {
+    /**
+     * Below this remaining time the loop spins instead of parking, because parking is not
+     * precise enough to wake up in time.
+     */
+    private static final long SPIN_THRESHOLD_NANOS = 200_000;
+
+    /**
+     * Predefined tick rates, from slowest to fastest.
+     */
+    public enum Speed {
+        SLOW(600),
+        NORMAL(400),
+        FAST(250),
+        FASTER(150),
+        FASTEST(100);
+
+        private final long tickMillis;
+
+        Speed(long tickMillis) {
+            this.tickMillis = tickMillis;
+        }
+
+        /**
+         * Retrieves the time between two ticks at this speed.
+         *
+         * @return the tick interval in milliseconds
+         */
+        public long getTickMillis() {
+            return tickMillis;
+        }
+    }
+
+    /**
+     * What to do with ticks that were missed because the loop fell behind.
+     */
+    public enum OverrunPolicy {
+        /** Run the missed ticks back to back, up to the catch-up limit, then drop the rest. */
+        CATCH_UP,
+        /** Drop the missed ticks and carry on from the next deadline. */
+        SKIP
+    }
+
+    private final Runnable tick;
+    private final Runnable render;
+    private final BooleanSupplier finished;
+
+    private volatile Speed speed;
+    private volatile long tickNanos;
+    private OverrunPolicy overrunPolicy;
+    private int maxCatchUpTicks;
+
+    private long nextDeadline;
+    private boolean started;
+    private volatile boolean running;
+    private Thread thread;
+
+    private volatile long tickCount;
+    private volatile long frameCount;
+    private volatile long overrunCount;
+    private volatile long skippedTicks;
+    private volatile long jitterSamples;
+    private volatile long maxJitterNanos;
+    private volatile long totalJitterNanos;
+
+    /**
+     * Constructs a loop at {@link Speed#NORMAL} that catches up at most five missed ticks.
+     *
+     * @param tick     advances the simulation by one step
+     * @param render   draws the current state, or null if nothing has to be drawn
+     * @param finished tells the loop when to stop ticking, typically {@code game::isGameOver}
+     */
+    public GameLoop(Runnable tick, Runnable render, BooleanSupplier finished) {
+        this.tick = tick;
+        this.render = render;
+        this.finished = finished;
+        this.overrunPolicy = OverrunPolicy.CATCH_UP;
+        this.maxCatchUpTicks = 5;
+        this.speed = Speed.NORMAL;
+        this.tickNanos = Speed.NORMAL.getTickMillis() * 1_000_000L;
+    }
+
+    /**
+     * Runs every tick whose deadline is at or before {@code now}, following the overrun policy,
+     * and then renders once if any tick ran. The first call only schedules the first tick, one
+     * tick interval later, and runs nothing.
+     *
+     * @param now the current time in nanoseconds, on the {@link System#nanoTime()} time base
+     * @return the number of ticks that were run
+     */
+    public int advance(long now) {
+        if (!started) {
+            started = true;
+            nextDeadline = now + tickNanos;
+            return 0;
+        }
+        if (now < nextDeadline || finished.getAsBoolean()) {
+            return 0;
+        }
+
+        long interval = tickNanos;
+        long lateness = now - nextDeadline;
+        recordJitter(lateness);
+
+        long missed = lateness / interval;
+        if (missed > 0) {
+            overrunCount++;
+            long dropped = overrunPolicy == OverrunPolicy.SKIP ? missed : Math.max(0, missed - maxCatchUpTicks);
+            skippedTicks += dropped;
+            nextDeadline += dropped * interval;
+        }
+
+        int ticks = 0;
+        while (now >= nextDeadline && !finished.getAsBoolean()) {
+            tick.run();
+            ticks++;
+            nextDeadline += interval;
+        }
+        tickCount += ticks;
+
+        if (ticks > 0 && render != null) {
+            render.run();
+            frameCount++;
+        }
+        return ticks;
+    }
+
+    /**
+     * Starts a thread that parks until each deadline and advances the loop, until the game is
+     * finished or {@link #stop()} is called.
+     *
+     * @param onFinish runs on the loop thread once the game is finished, or null
+     */
+    public synchronized void start(Runnable onFinish) {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(() -> {
+            while (running && !finished.getAsBoolean()) {
+                long now = System.nanoTime();
+                long remaining = nanosUntilNextTick(now);
+                if (remaining > SPIN_THRESHOLD_NANOS) {
+                    LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+                } else if (remaining > 0) {
+                    Thread.onSpinWait();
+                } else {
+                    advance(now);
+                }
+            }
+            running = false;
+            if (onFinish != null && finished.getAsBoolean()) {
+                onFinish.run();
+            }
+        }, "game-loop");
+        thread.start();
+    }
+
+    /**
+     * Computes how long a caller driving the loop with {@link #advance(long)} can wait before the
+     * next tick is due, for instance as the timeout of a blocking call.
+     *
+     * @param now the current time in nanoseconds, on the {@link System#nanoTime()} time base
+     * @return the time until the next deadline in nanoseconds, or 0 if a tick is already due
+     */
+    public long nanosUntilNextTick(long now) {
+        return started ? Math.max(0, nextDeadline - now) : 0;
+    }
+
+    /**
+     * Stops the thread started by {@link #start(Runnable)} after its current iteration.
+     */
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Changes the tick rate to one of the predefined speeds. Takes effect from the next tick.
+     *
+     * @param speed the new speed
+     */
+    public void setSpeed(Speed speed) {
+        this.speed = speed;
+        this.tickNanos = speed.getTickMillis() * 1_000_000L;
+    }
+
+    /**
+     * Sets an arbitrary tick interval, for rates that do not match a predefined speed.
+     * The current {@link Speed} is left unchanged, so {@link #faster()} and {@link #slower()}
+     * still step from it.
+     *
+     * @param tickNanos the time between two ticks, in nanoseconds
+     */
+    public void setTickNanos(long tickNanos) {
+        if (tickNanos <= 0) {
+            throw new IllegalArgumentException("Tick interval must be positive: " + tickNanos);
+        }
+        this.tickNanos = tickNanos;
+    }
+
+    /**
+     * Retrieves the current predefined speed.
+     *
+     * @return the current speed
+     */
+    public Speed getSpeed() {
+        return speed;
+    }
+
+    /**
+     * Switches to the next faster speed, if there is one.
+     */
+    public void faster() {
+        Speed[] speeds = Speed.values();
+        setSpeed(speeds[Math.min(speed.ordinal() + 1, speeds.length - 1)]);
+    }
+
+    /**
+     * Switches to the next slower speed, if there is one.
+     */
+    public void slower() {
+        setSpeed(Speed.values()[Math.max(speed.ordinal() - 1, 0)]);
+    }
+
+    /**
+     * Retrieves the time between two ticks at the current speed.
+     *
+     * @return the tick interval in nanoseconds
+     */
+    public long getTickNanos() {
+        return tickNanos;
+    }
+
+    /**
+     * Sets how the loop handles ticks missed while it was behind.
+     *
+     * @param policy          the overrun policy
+     * @param maxCatchUpTicks with {@link OverrunPolicy#CATCH_UP}, the most missed ticks that are run back to back
+     */
+    public void setOverrunPolicy(OverrunPolicy policy, int maxCatchUpTicks) {
+        this.overrunPolicy = policy;
+        this.maxCatchUpTicks = maxCatchUpTicks;
+    }
+
+    /**
+     * Retrieves the number of ticks run so far.
+     *
+     * @return the tick count
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * Retrieves the number of frames rendered so far.
+     *
+     * @return the frame count
+     */
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Retrieves how many times the loop found itself more than one tick behind.
+     *
+     * @return the overrun count
+     */
+    public long getOverrunCount() {
+        return overrunCount;
+    }
+
+    /**
+     * Retrieves how many ticks were dropped because of overruns.
+     *
+     * @return the number of skipped ticks
+     */
+    public long getSkippedTicks() {
+        return skippedTicks;
+    }
+
+    /**
+     * Retrieves the largest delay between a tick's deadline and the moment the loop started it.
+     *
+     * @return the maximum jitter in nanoseconds
+     */
+    public long getMaxJitterNanos() {
+        return maxJitterNanos;
+    }
+
+    /**
+     * Retrieves the average delay between a tick's deadline and the moment the loop started it.
+     *
+     * @return the mean jitter in nanoseconds
+     */
+    public long getMeanJitterNanos() {
+        long samples = jitterSamples;
+        return samples == 0 ? 0 : totalJitterNanos / samples;
+    }
+
+    private void recordJitter(long lateness) {
+        jitterSamples++;
+        totalJitterNanos += lateness;
+        if (lateness > maxJitterNanos) {
+            maxJitterNanos = lateness;
+        }
+    }
+}
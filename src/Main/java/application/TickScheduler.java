@@ -0,0 +1,471 @@
+package application;
+
+import domain.Board;
+import domain.Direction;
+import domain.Game;
+import domain.Snake;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The TickScheduler class drives many games, each at its own tick rate, from a small pool of
+ * worker threads instead of a thread per game.
+ *
+ * Scheduled tasks are kept in a hashed timing wheel: a ring of slots, each covering
+ * {@code slotNanos} of time, where a task sits in the slot of its next deadline together with
+ * the number of whole turns of the wheel still to go. A single timer thread wakes up once per
+ * slot, takes the tasks of that slot whose turn has come and runs them as one batch on a
+ * {@link ForkJoinPool}, split in halves until the pieces are small so that idle workers steal
+ * from busy ones. When the batch is done the timer puts every task back in the slot of its
+ * next deadline. Scheduling and cancelling cost O(1) however many tasks there are, and only the
+ * tasks of the current slot are ever looked at.
+ *
+ * Deadlines follow a fixed rate, so a late batch does not make a game drift. A task that is
+ * more than a whole period late skips the ticks it missed. How late tasks start compared with
+ * their deadline is measured, as are the batches' sizes and durations.
+ */
+public class TickScheduler implements AutoCloseable {
+    private static final int BATCH_SHARD_SIZE = 256;
+
+    /**
+     * A task registered with the scheduler.
+     */
+    public static final class Handle {
+        private final BooleanSupplier tick;
+        private final long periodNanos;
+        private long deadline;
+        private long rounds;
+        private Handle next;
+        private volatile boolean cancelled;
+        private boolean finished;
+        private boolean ticked;
+        private long lateness;
+
+        private Handle(BooleanSupplier tick, long periodNanos, long deadline) {
+            this.tick = tick;
+            this.periodNanos = periodNanos;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Stops the task. A tick that is already running is allowed to finish.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        /**
+         * Determines whether the task will not tick any more, because it was cancelled or
+         * asked to stop.
+         *
+         * @return true if the task is over
+         */
+        public boolean isDone() {
+            return cancelled || finished;
+        }
+
+        /**
+         * Retrieves the time between two ticks of the task.
+         *
+         * @return the period in nanoseconds
+         */
+        public long getPeriodNanos() {
+            return periodNanos;
+        }
+    }
+
+    private final long slotNanos;
+    private final Handle[] wheel;
+    private final int mask;
+    private final ForkJoinPool workers;
+    private final ConcurrentLinkedQueue<Handle> incoming = new ConcurrentLinkedQueue<>();
+    private final Thread timer;
+    private final long origin;
+    private Handle[] due = new Handle[1024];
+    private long currentSlot;
+    private volatile boolean running = true;
+
+    private volatile int taskCount;
+    private volatile long tickCount;
+    private volatile long batchCount;
+    private volatile long maxBatchSize;
+    private volatile long maxBatchNanos;
+    private volatile long maxLatenessNanos;
+    private volatile long totalLatenessNanos;
+    private volatile long skippedTicks;
+
+    /**
+     * Constructs a scheduler and starts its timer thread.
+     *
+     * @param workers   the number of threads that run the ticks
+     * @param slotNanos the time covered by each slot of the wheel, which is the granularity of
+     *                  the deadlines; 1 ms suits tick rates of tens of milliseconds and above
+     * @param slots     the number of slots in the wheel, rounded up to a power of two; a wheel
+     *                  that covers the longest period avoids counting rounds
+     */
+    public TickScheduler(int workers, long slotNanos, int slots) {
+        if (workers <= 0 || slotNanos <= 0 || slots <= 0) {
+            throw new IllegalArgumentException("Workers, slot size and slot count must be positive");
+        }
+        int size = slots == 1 ? 1 : Integer.highestOneBit(slots - 1) << 1;
+        this.slotNanos = slotNanos;
+        this.wheel = new Handle[size];
+        this.mask = size - 1;
+        this.workers = new ForkJoinPool(workers);
+        this.origin = System.nanoTime();
+        this.timer = new Thread(this::run, "tick-scheduler");
+        this.timer.setDaemon(true);
+        this.timer.start();
+    }
+
+    /**
+     * Constructs a scheduler with one worker per core, 1 ms slots and a wheel covering about a
+     * second.
+     */
+    public TickScheduler() {
+        this(Runtime.getRuntime().availableProcessors(), 1_000_000, 1024);
+    }
+
+    /**
+     * Ticks a task periodically, starting one period from now, until it returns false or is
+     * cancelled. Ticks of the same task never overlap, but different tasks tick concurrently.
+     *
+     * @param tick        runs one tick and tells whether the task should keep ticking
+     * @param periodNanos the time between two ticks, in nanoseconds
+     * @return a handle to cancel the task
+     */
+    public Handle schedule(BooleanSupplier tick, long periodNanos) {
+        if (periodNanos <= 0) {
+            throw new IllegalArgumentException("Period must be positive: " + periodNanos);
+        }
+        Handle handle = new Handle(tick, periodNanos, System.nanoTime() + periodNanos);
+        incoming.add(handle);
+        return handle;
+    }
+
+    /**
+     * Updates a game periodically until it is over.
+     *
+     * @param game        the game to update
+     * @param periodNanos the time between two ticks, in nanoseconds
+     * @return a handle to cancel the game's ticks
+     */
+    public Handle schedule(Game game, long periodNanos) {
+        return schedule(() -> {
+            game.update();
+            return !game.isGameOver();
+        }, periodNanos);
+    }
+
+    /**
+     * Stops the timer thread and the workers. Scheduled tasks do not tick any more.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(timer);
+        try {
+            timer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.shutdown();
+    }
+
+    /**
+     * Retrieves the number of tasks that are still ticking.
+     *
+     * @return the number of scheduled tasks
+     */
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    /**
+     * Retrieves the number of ticks run so far, across every task. Tasks cancelled after
+     * being collected for a batch do not count.
+     *
+     * @return the tick count
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * Retrieves the number of batches run so far.
+     *
+     * @return the batch count
+     */
+    public long getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * Retrieves the largest number of tasks that ticked in one batch.
+     *
+     * @return the largest batch size
+     */
+    public long getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Retrieves the longest time a batch took, from its start until every tick in it was done.
+     *
+     * @return the longest batch duration in nanoseconds
+     */
+    public long getMaxBatchNanos() {
+        return maxBatchNanos;
+    }
+
+    /**
+     * Retrieves the largest delay between a task's deadline and the moment its tick started,
+     * which includes the time spent on the ticks run before it in the same batch.
+     *
+     * @return the maximum overshoot in nanoseconds
+     */
+    public long getMaxLatenessNanos() {
+        return maxLatenessNanos;
+    }
+
+    /**
+     * Retrieves the average delay between a task's deadline and the moment its tick started.
+     *
+     * @return the mean overshoot in nanoseconds
+     */
+    public long getMeanLatenessNanos() {
+        long ticks = tickCount;
+        return ticks == 0 ? 0 : totalLatenessNanos / ticks;
+    }
+
+    /**
+     * Retrieves how many ticks were skipped because a task was more than a period late.
+     *
+     * @return the number of skipped ticks
+     */
+    public long getSkippedTicks() {
+        return skippedTicks;
+    }
+
+    /**
+     * Runs many 20x20 games at mixed tick rates and prints how late their ticks were, as a quick
+     * check of the scheduler under load. Each game turns at random, avoiding moves that lose at
+     * once, and a new game replaces it when it is over.
+     *
+     * @param args optionally the number of games, the duration in seconds and the number of workers
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 10;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long[] periods = {50, 100, 150, 250, 400};
+
+        try (TickScheduler scheduler = new TickScheduler(threads, 1_000_000, 512)) {
+            Game[] current = new Game[games];
+            for (int i = 0; i < games; i++) {
+                current[i] = new Game(new Board(20, 20, i));
+            }
+            for (int i = 0; i < games; i++) {
+                int index = i;
+                scheduler.schedule(() -> {
+                    if (current[index].isGameOver()) {
+                        current[index] = new Game(new Board(20, 20, ThreadLocalRandom.current().nextLong()));
+                    }
+                    turnSafely(current[index]);
+                    current[index].update();
+                    return true;
+                }, TimeUnit.MILLISECONDS.toNanos(periods[i % periods.length]));
+            }
+            Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+            System.out.printf("Partidas: %d, ticks: %d (%.0f/s), lotes: %d, lote máximo: %d ticks en %.2f ms%n",
+                    scheduler.getTaskCount(), scheduler.getTickCount(), scheduler.getTickCount() / (double) seconds,
+                    scheduler.getBatchCount(), scheduler.getMaxBatchSize(), scheduler.getMaxBatchNanos() / 1e6);
+            System.out.printf("Retraso sobre el plazo: medio %.3f ms, máximo %.3f ms, ticks saltados: %d%n",
+                    scheduler.getMeanLatenessNanos() / 1e6, scheduler.getMaxLatenessNanos() / 1e6,
+                    scheduler.getSkippedTicks());
+        }
+    }
+
+    private static void turnSafely(Game game) {
+        Direction[] directions = Direction.values();
+        Snake snake = game.getGameBoard().getSnake();
+        int start = ThreadLocalRandom.current().nextInt(directions.length);
+        for (int i = 0; i < directions.length; i++) {
+            Direction direction = directions[(start + i) & 3];
+            int x = snake.getHeadX() + direction.getX();
+            int y = snake.getHeadY() + direction.getY();
+            if (!direction.isOpposite(game.getCurrentDirection()) && x >= 0 && y >= 0
+                    && x < game.getGameBoard().getWidth() && y < game.getGameBoard().getHeight()
+                    && !snake.collidesWith(x, y)) {
+                game.changeDirection(direction);
+                return;
+            }
+        }
+    }
+
+    private void run() {
+        while (running) {
+            long slotStart = origin + (currentSlot + 1) * slotNanos;
+            long remaining = slotStart - System.nanoTime();
+            if (remaining > 0) {
+                LockSupport.parkNanos(remaining);
+                continue;
+            }
+            acceptIncoming();
+            int count = collectDue(currentSlot);
+            if (count > 0) {
+                runBatch(count);
+            }
+            currentSlot++;
+        }
+    }
+
+    /**
+     * Moves the tasks scheduled since the last slot into the wheel.
+     */
+    private void acceptIncoming() {
+        Handle handle;
+        while ((handle = incoming.poll()) != null) {
+            insert(handle);
+            taskCount++;
+        }
+    }
+
+    /**
+     * Unlinks from the slot the tasks whose deadline falls in it and copies them to
+     * {@link #due}, leaving the tasks due in a later turn of the wheel one round closer.
+     */
+    private int collectDue(long slot) {
+        int index = (int) slot & mask;
+        int count = 0;
+        Handle previous = null;
+        Handle handle = wheel[index];
+        while (handle != null) {
+            Handle next = handle.next;
+            if (handle.rounds > 0 && !handle.cancelled) {
+                handle.rounds--;
+                previous = handle;
+            } else {
+                if (previous == null) {
+                    wheel[index] = next;
+                } else {
+                    previous.next = next;
+                }
+                handle.next = null;
+                if (handle.cancelled) {
+                    taskCount--;
+                } else {
+                    if (count == due.length) {
+                        due = Arrays.copyOf(due, count << 1);
+                    }
+                    due[count++] = handle;
+                }
+            }
+            handle = next;
+        }
+        return count;
+    }
+
+    private void runBatch(int count) {
+        long start = System.nanoTime();
+        workers.invoke(new Batch(due, 0, count));
+        long elapsed = System.nanoTime() - start;
+
+        long lateness = 0;
+        long maxLateness = maxLatenessNanos;
+        long ticked = 0;
+        long skipped = 0;
+        int finished = 0;
+        long now = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            Handle handle = due[i];
+            due[i] = null;
+            if (handle.ticked) {
+                handle.ticked = false;
+                ticked++;
+                lateness += handle.lateness;
+                maxLateness = Math.max(maxLateness, handle.lateness);
+            }
+            if (handle.finished || handle.cancelled) {
+                finished++;
+                continue;
+            }
+            handle.deadline += handle.periodNanos;
+            if (handle.deadline <= now) {
+                long missed = (now - handle.deadline) / handle.periodNanos + 1;
+                handle.deadline += missed * handle.periodNanos;
+                skipped += missed;
+            }
+            insert(handle);
+        }
+
+        taskCount -= finished;
+        tickCount += ticked;
+        batchCount++;
+        skippedTicks += skipped;
+        totalLatenessNanos += lateness;
+        maxLatenessNanos = maxLateness;
+        maxBatchSize = Math.max(maxBatchSize, count);
+        maxBatchNanos = Math.max(maxBatchNanos, elapsed);
+    }
+
+    /**
+     * Links a task into the slot of its deadline. Deadlines that fall in a slot that has
+     * already been processed go into the next slot to be processed.
+     */
+    private void insert(Handle handle) {
+        long slot = Math.max(currentSlot + 1, Math.floorDiv(handle.deadline - origin - 1, slotNanos));
+        handle.rounds = (slot - currentSlot - 1) / wheel.length;
+        int index = (int) slot & mask;
+        handle.next = wheel[index];
+        wheel[index] = handle;
+    }
+
+    /**
+     * A range of the due tasks, split in halves until it is at most {@link #BATCH_SHARD_SIZE} long.
+     */
+    @SuppressWarnings("serial")
+    private static final class Batch extends RecursiveAction {
+        private final Handle[] tasks;
+        private final int from;
+        private final int to;
+
+        Batch(Handle[] tasks, int from, int to) {
+            this.tasks = tasks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_SHARD_SIZE) {
+                for (int i = from; i < to; i++) {
+                    Handle handle = tasks[i];
+                    if (handle.cancelled) {
+                        continue;
+                    }
+                    // El retraso se mide al empezar cada tick, no al empezar el lote
+                    handle.lateness = Math.max(0, System.nanoTime() - handle.deadline);
+                    handle.ticked = true;
+                    if (!handle.tick.getAsBoolean()) {
+                        handle.finished = true;
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            Batch left = new Batch(tasks, from, middle);
+            left.fork();
+            new Batch(tasks, middle, to).compute();
+            left.join();
+        }
+    }
+}
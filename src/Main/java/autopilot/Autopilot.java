@@ -0,0 +1,369 @@
+package autopilot;
+
+import domain.DenseBoard;
+import domain.Direction;
+import domain.Game;
+import domain.GameBoard;
+import domain.Snake;
+import simulation.DirectionSupplier;
+
+/**
+ * The Autopilot class plays the game on its own, choosing a direction before every tick.
+ *
+ * It looks for a shortest path from the head to the apple and only takes it if, once the snake
+ * has followed it and eaten, the head can still reach the tail; the check plays the path on the
+ * game itself with {@link Game#makeMove(Direction)} and takes it back with
+ * {@link Game#unmakeMove()}. While the apple stays put the path is followed step by step without
+ * searching again. When there is no safe path the snake chases its own tail, and when even the
+ * tail is out of reach it moves towards the largest open region.
+ *
+ * Planning allocates nothing once the path finder and the game's undo stack are warmed up, and
+ * the time spent choosing each direction is recorded. An autopilot must only be used from the
+ * thread that updates the game.
+ *
+ * The safety check, the tail check and the open-space count only depend on the position, so with
+ * a {@link TranspositionTable} they are looked up by {@link Game#getPositionHash()} before being
+ * computed. A snake circling its tail meets the same positions again and again, and autopilots on
+ * different threads can share one table.
+ */
+public class Autopilot implements DirectionSupplier {
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	// Cada evaluación guarda su resultado bajo una clave distinta de la misma posición
+	private static final long SAFE_PLAN = 0x2545F4914F6CDD1DL;
+	private static final long REACHES_TAIL = 0x9FB21C651E98DF25L;
+	private static final long OPEN_SPACE = 0xD6E8FEB86659FD93L;
+
+	/**
+	 * Largest board, in cells, an autopilot can be built for. The path finder keeps several ints
+	 * per cell, so huge sparse boards are left to human players.
+	 */
+	public static final int MAX_CELLS = 1 << 20;
+
+	private final int width;
+	private final int height;
+	private final PathFinder finder;
+	private final TranspositionTable table;
+	private final int[] plan;
+	private int planLength;
+	private int planIndex;
+	private int planApple;
+
+	private long planCount;
+	private long reusedPlans;
+	private long fallbackMoves;
+	private long lastPlanNanos;
+	private long maxPlanNanos;
+	private long totalPlanNanos;
+
+	/**
+	 * Constructs an autopilot for boards of the given size.
+	 *
+	 * @param width  the width of the boards it plays on
+	 * @param height the height of the boards it plays on
+	 * @throws IllegalArgumentException if the boards have more than {@link #MAX_CELLS} cells
+	 */
+	public Autopilot(int width, int height) {
+		this(width, height, null);
+	}
+
+	/**
+	 * Constructs an autopilot for boards of the given size that caches what it evaluates in the
+	 * given table.
+	 *
+	 * @param width  the width of the boards it plays on
+	 * @param height the height of the boards it plays on
+	 * @param table  the table to look positions up in and store them into, possibly shared with
+	 *               other autopilots playing boards with the same walls, or null to evaluate
+	 *               every position
+	 * @throws IllegalArgumentException if the boards have more than {@link #MAX_CELLS} cells
+	 */
+	public Autopilot(int width, int height, TranspositionTable table) {
+		if ((long) width * height > MAX_CELLS) {
+			throw new IllegalArgumentException("Autopilot plays boards of up to " + MAX_CELLS + " cells, not " + width + "x" + height);
+		}
+		this.width = width;
+		this.height = height;
+		this.finder = new PathFinder(width, height);
+		this.table = table;
+		this.plan = new int[width * height];
+	}
+
+	/**
+	 * Chooses the direction for the next tick and records how long it took.
+	 *
+	 * @param game the game about to be updated; its board must be a {@link DenseBoard} of the
+	 *             autopilot's size
+	 * @return the direction to pass to {@link Game#changeDirection(Direction)}, or null if every
+	 *         move loses and the snake may as well keep going
+	 */
+	@Override
+	public Direction next(Game game) {
+		if (!(game.getGameBoard() instanceof DenseBoard board)) {
+			throw new IllegalArgumentException("Autopilot plays boards with a dense grid only");
+		}
+		if (board.getWidth() != width || board.getHeight() != height) {
+			throw new IllegalArgumentException("Autopilot plays " + width + "x" + height + " boards only");
+		}
+		long start = System.nanoTime();
+		Direction direction = game.isGameOver() ? null : choose(game, board);
+		long elapsed = System.nanoTime() - start;
+
+		planCount++;
+		lastPlanNanos = elapsed;
+		totalPlanNanos += elapsed;
+		if (elapsed > maxPlanNanos) {
+			maxPlanNanos = elapsed;
+		}
+		return direction;
+	}
+
+	private Direction choose(Game game, DenseBoard board) {
+		Snake snake = board.getSnake();
+		byte[] cells = board.getCells();
+		int head = snake.getCell(0);
+		int apple = board.getApple().getY() * width + board.getApple().getX();
+
+		if (canFollowPlan(cells, snake, head, apple)) {
+			reusedPlans++;
+			return directionTo(head, plan[planIndex++]);
+		}
+
+		planLength = 0;
+		int tail = snake.isGrowing() ? -1 : snake.getCell(snake.getLength() - 1);
+		int length = finder.findPath(cells, head, apple, behind(game, head), tail);
+		if (length > 0) {
+			for (int i = 0; i < length; i++) {
+				plan[i] = finder.getStep(i);
+			}
+			if (isSafe(game, board, head, length)) {
+				planLength = length;
+				planIndex = 1;
+				planApple = apple;
+				return directionTo(head, plan[0]);
+			}
+		}
+
+		fallbackMoves++;
+		Direction direction = chaseTail(game, board);
+		return direction != null ? direction : findMostSpace(game, board);
+	}
+
+	/**
+	 * Determines whether the previous plan still holds: the apple has not moved, the head is
+	 * where the plan expected it and the next cell is still free or is the tail moving away.
+	 */
+	private boolean canFollowPlan(byte[] cells, Snake snake, int head, int apple) {
+		if (planIndex == 0 || planIndex >= planLength || apple != planApple || head != plan[planIndex - 1]) {
+			return false;
+		}
+		int step = plan[planIndex];
+		return cells[step] != GameBoard.SNAKE
+				|| (!snake.isGrowing() && step == snake.getCell(snake.getLength() - 1));
+	}
+
+	/**
+	 * Plays the first {@code length} steps of the plan and checks that the tail can still be
+	 * reached from where the snake ends up, then takes the moves back.
+	 */
+	private boolean isSafe(Game game, DenseBoard board, int head, int length) {
+		long key = 0;
+		if (table != null) {
+			// El camino más corto depende solo de la posición, así que la respuesta también
+			key = game.getPositionHash() ^ SAFE_PLAN;
+			int cached = table.get(key, length);
+			if (cached != TranspositionTable.MISS) {
+				return cached != 0;
+			}
+		}
+		int made = 0;
+		boolean alive = true;
+		int from = head;
+		while (made < length) {
+			int result = game.makeMove(directionTo(from, plan[made]));
+			made++;
+			if (result == GameBoard.MOVE_DEAD) {
+				alive = false;
+				break;
+			}
+			from = plan[made - 1];
+		}
+		boolean safe = alive && canReachTail(game, board);
+		while (made-- > 0) {
+			game.unmakeMove();
+		}
+		if (table != null) {
+			table.put(key, length, safe ? 1 : 0);
+		}
+		return safe;
+	}
+
+	private boolean canReachTail(Game game, DenseBoard board) {
+		Snake snake = board.getSnake();
+		if (snake.getLength() == 1) {
+			return true;
+		}
+		int head = snake.getCell(0);
+		int tail = snake.getCell(snake.getLength() - 1);
+		// Tras comer, la cola no se mueve en el siguiente tick: no vale entrar en ella de inmediato
+		int forbidden = snake.isGrowing() ? tail : behind(game, head);
+		if (table == null) {
+			return finder.findPath(board.getCells(), head, tail, forbidden, -1) >= 0;
+		}
+		long key = game.getPositionHash() ^ REACHES_TAIL;
+		int cached = table.get(key, 0);
+		if (cached != TranspositionTable.MISS) {
+			return cached != 0;
+		}
+		boolean reaches = finder.findPath(board.getCells(), head, tail, forbidden, -1) >= 0;
+		table.put(key, 0, reaches ? 1 : 0);
+		return reaches;
+	}
+
+	/**
+	 * Among the moves after which the tail is still reachable, takes the one that ends farthest
+	 * from the tail, so that the snake follows it on a long loop instead of cutting the loop short.
+	 */
+	private Direction chaseTail(Game game, DenseBoard board) {
+		Snake snake = board.getSnake();
+		int tail = snake.getCell(snake.getLength() - 1);
+		Direction best = null;
+		int bestDistance = -1;
+		for (Direction direction : DIRECTIONS) {
+			if (direction.isOpposite(game.getCurrentDirection())) {
+				continue;
+			}
+			if (game.makeMove(direction) != GameBoard.MOVE_DEAD && canReachTail(game, board)) {
+				int head = snake.getCell(0);
+				int distance = Math.abs(head % width - tail % width) + Math.abs(head / width - tail / width);
+				if (distance > bestDistance) {
+					bestDistance = distance;
+					best = direction;
+				}
+			}
+			game.unmakeMove();
+		}
+		return best;
+	}
+
+	/**
+	 * Takes the move that leaves the most empty cells reachable from the head.
+	 */
+	private Direction findMostSpace(Game game, DenseBoard board) {
+		Direction best = null;
+		int bestSpace = -1;
+		for (Direction direction : DIRECTIONS) {
+			if (direction.isOpposite(game.getCurrentDirection())) {
+				continue;
+			}
+			if (game.makeMove(direction) != GameBoard.MOVE_DEAD) {
+				int space = countSpace(game, board);
+				if (space > bestSpace) {
+					bestSpace = space;
+					best = direction;
+				}
+			}
+			game.unmakeMove();
+		}
+		return best;
+	}
+
+	private int countSpace(Game game, DenseBoard board) {
+		if (table == null) {
+			return finder.countReachable(board.getCells(), board.getSnake().getCell(0), width * height);
+		}
+		long key = game.getPositionHash() ^ OPEN_SPACE;
+		int space = table.get(key, 0);
+		if (space == TranspositionTable.MISS) {
+			space = finder.countReachable(board.getCells(), board.getSnake().getCell(0), width * height);
+			table.put(key, 0, space);
+		}
+		return space;
+	}
+
+	/**
+	 * Retrieves the cell right behind the head, where the snake cannot turn back to, or -1 if it
+	 * is off the board.
+	 */
+	private int behind(Game game, int head) {
+		Direction current = game.getCurrentDirection();
+		int x = head % width - current.getX();
+		int y = head / width - current.getY();
+		return x < 0 || y < 0 || x >= width || y >= height ? -1 : y * width + x;
+	}
+
+	private Direction directionTo(int from, int to) {
+		int dx = to % width - from % width;
+		int dy = to / width - from / width;
+		for (Direction direction : DIRECTIONS) {
+			if (direction.getX() == dx && direction.getY() == dy) {
+				return direction;
+			}
+		}
+		throw new IllegalArgumentException("Cells " + from + " and " + to + " are not adjacent");
+	}
+
+	/**
+	 * Retrieves the number of directions chosen so far.
+	 *
+	 * @return the number of calls to {@link #next(Game)}
+	 */
+	public long getPlanCount() {
+		return planCount;
+	}
+
+	/**
+	 * Retrieves how many directions were taken from a previous path without searching again.
+	 *
+	 * @return the number of reused steps
+	 */
+	public long getReusedPlanCount() {
+		return reusedPlans;
+	}
+
+	/**
+	 * Retrieves how many times no safe path to the apple was found and the snake had to chase
+	 * its tail or look for space instead.
+	 *
+	 * @return the number of fallback moves
+	 */
+	public long getFallbackCount() {
+		return fallbackMoves;
+	}
+
+	/**
+	 * Retrieves the time spent choosing the last direction.
+	 *
+	 * @return the planning time of the last tick in nanoseconds
+	 */
+	public long getLastPlanNanos() {
+		return lastPlanNanos;
+	}
+
+	/**
+	 * Retrieves the longest time spent choosing a direction.
+	 *
+	 * @return the maximum planning time in nanoseconds
+	 */
+	public long getMaxPlanNanos() {
+		return maxPlanNanos;
+	}
+
+	/**
+	 * Retrieves the average time spent choosing a direction.
+	 *
+	 * @return the mean planning time in nanoseconds
+	 */
+	public long getMeanPlanNanos() {
+		return planCount == 0 ? 0 : totalPlanNanos / planCount;
+	}
+
+	/**
+	 * Retrieves the path finder, for instance to read how many cells it has expanded.
+	 *
+	 * @return the path finder used by this autopilot
+	 */
+	public PathFinder getPathFinder() {
+		return finder;
+	}
+}
@@ -0,0 +1,220 @@
+package autopilot;
+
+import domain.GameBoard;
+
+import java.util.Arrays;
+
+/**
+ * The PathFinder class searches a board's grid for shortest paths and reachable regions.
+ *
+ * All of its buffers are sized for one board when it is constructed and reused by every search.
+ * Instead of clearing the per-cell arrays between searches, each search takes a new generation
+ * number and a cell only counts as visited if its stamp matches the current generation, so
+ * starting a search costs nothing however large the board is.
+ *
+ * Paths are found with A* and the Manhattan distance as heuristic. On a grid of unit steps the
+ * estimated total cost of a cell is either the same as its parent's or two more, so the open set
+ * is kept as two stacks, one for the current cost and one for the next, instead of a heap.
+ */
+public class PathFinder {
+	private final int width;
+	private final int height;
+	private final int[] closed;
+	private final int[] seen;
+	private final int[] distance;
+	private final int[] parent;
+	private final int[] path;
+	private int[] open;
+	private int[] next;
+	private int generation;
+	private int pathLength;
+	private long expandedCells;
+
+	/**
+	 * Constructs a path finder for boards of the given size.
+	 *
+	 * @param width  the width of the boards to search
+	 * @param height the height of the boards to search
+	 */
+	public PathFinder(int width, int height) {
+		int area = width * height;
+		this.width = width;
+		this.height = height;
+		this.closed = new int[area];
+		this.seen = new int[area];
+		this.distance = new int[area];
+		this.parent = new int[area];
+		this.path = new int[area];
+		this.open = new int[area];
+		this.next = new int[area];
+	}
+
+	/**
+	 * Finds a shortest path between two cells that does not cross the snake or a wall. The path is kept
+	 * until the next search and can be read with {@link #getStep(int)}.
+	 *
+	 * @param cells         the board's grid, one {@link GameBoard} cell type per packed index
+	 * @param start         the packed index where the path starts, normally the snake's head
+	 * @param target        the packed index to reach; it may be a snake cell
+	 * @param forbiddenStep a neighbour of {@code start} that must not be the first step, or -1
+	 * @param passable      a snake cell that may be crossed anyway, such as a tail about to move, or -1
+	 * @return the number of steps of the path, or -1 if the target cannot be reached
+	 */
+	public int findPath(byte[] cells, int start, int target, int forbiddenStep, int passable) {
+		nextGeneration();
+		pathLength = -1;
+		if (start == target) {
+			pathLength = 0;
+			return 0;
+		}
+		int targetX = target % width;
+		int targetY = target / width;
+		int cost = Math.abs(start % width - targetX) + Math.abs(start / width - targetY);
+		int openSize = 0;
+		int nextSize = 0;
+		seen[start] = generation;
+		distance[start] = 0;
+		open[openSize++] = start;
+
+		while (openSize > 0 || nextSize > 0) {
+			if (openSize == 0) {
+				int[] swap = open;
+				open = next;
+				next = swap;
+				openSize = nextSize;
+				nextSize = 0;
+				cost += 2;
+			}
+			int cell = open[--openSize];
+			if (closed[cell] == generation) {
+				continue;
+			}
+			closed[cell] = generation;
+			expandedCells++;
+			if (cell == target) {
+				return buildPath(target);
+			}
+
+			int x = cell % width;
+			int y = cell / width;
+			for (int d = 0; d < 4; d++) {
+				int nx = x + (d == 1 ? 1 : d == 3 ? -1 : 0);
+				int ny = y + (d == 2 ? 1 : d == 0 ? -1 : 0);
+				if (nx < 0 || ny < 0 || nx >= width || ny >= height) {
+					continue;
+				}
+				int neighbour = ny * width + nx;
+				if (closed[neighbour] == generation || (cell == start && neighbour == forbiddenStep)) {
+					continue;
+				}
+				if (cells[neighbour] == GameBoard.WALL
+						|| cells[neighbour] == GameBoard.SNAKE && neighbour != target && neighbour != passable) {
+					continue;
+				}
+				int steps = distance[cell] + 1;
+				if (seen[neighbour] == generation && distance[neighbour] <= steps) {
+					continue;
+				}
+				seen[neighbour] = generation;
+				distance[neighbour] = steps;
+				parent[neighbour] = cell;
+				if (steps + Math.abs(nx - targetX) + Math.abs(ny - targetY) == cost) {
+					if (openSize == open.length) {
+						open = Arrays.copyOf(open, openSize << 1);
+					}
+					open[openSize++] = neighbour;
+				} else {
+					if (nextSize == next.length) {
+						next = Arrays.copyOf(next, nextSize << 1);
+					}
+					next[nextSize++] = neighbour;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Counts the empty cells reachable from a cell, stopping early once enough have been found.
+	 *
+	 * @param cells the board's grid
+	 * @param start the packed index to flood from; it is not counted and may be a snake cell
+	 * @param limit the count at which the search stops
+	 * @return the number of reachable cells, at most {@code limit}
+	 */
+	public int countReachable(byte[] cells, int start, int limit) {
+		nextGeneration();
+		int[] queue = open;
+		int queueHead = 0;
+		int queueTail = 0;
+		int count = 0;
+		closed[start] = generation;
+		queue[queueTail++] = start;
+		while (queueHead < queueTail && count < limit) {
+			int cell = queue[queueHead++];
+			expandedCells++;
+			int x = cell % width;
+			int y = cell / width;
+			for (int d = 0; d < 4; d++) {
+				int nx = x + (d == 1 ? 1 : d == 3 ? -1 : 0);
+				int ny = y + (d == 2 ? 1 : d == 0 ? -1 : 0);
+				if (nx < 0 || ny < 0 || nx >= width || ny >= height) {
+					continue;
+				}
+				int neighbour = ny * width + nx;
+				if (closed[neighbour] != generation && cells[neighbour] != GameBoard.SNAKE && cells[neighbour] != GameBoard.WALL) {
+					closed[neighbour] = generation;
+					queue[queueTail++] = neighbour;
+					count++;
+				}
+			}
+		}
+		return Math.min(count, limit);
+	}
+
+	/**
+	 * Retrieves a step of the last path found, where step 0 is the cell right after the start and
+	 * the last step is the target.
+	 *
+	 * @param i the position of the step along the path
+	 * @return the packed index of that step
+	 */
+	public int getStep(int i) {
+		if (i < 0 || i >= pathLength) {
+			throw new IndexOutOfBoundsException("Step " + i + " out of bounds for length " + pathLength);
+		}
+		return path[i];
+	}
+
+	/**
+	 * Retrieves the number of cells expanded by all the searches run so far, a measure of the
+	 * work done independent of the machine.
+	 *
+	 * @return the number of expanded cells
+	 */
+	public long getExpandedCells() {
+		return expandedCells;
+	}
+
+	private int buildPath(int target) {
+		pathLength = distance[target];
+		int cell = target;
+		for (int i = pathLength - 1; i >= 0; i--) {
+			path[i] = cell;
+			cell = parent[cell];
+		}
+		return pathLength;
+	}
+
+	/**
+	 * Starts a new search. The stamps only need to be cleared when the generation counter wraps.
+	 */
+	private void nextGeneration() {
+		generation++;
+		if (generation == 0) {
+			Arrays.fill(closed, 0);
+			Arrays.fill(seen, 0);
+			generation = 1;
+		}
+	}
+}
@@ -0,0 +1,220 @@
+package autopilot;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The TranspositionTable remembers values computed for positions, keyed by their Zobrist hash
+ * ({@link domain.Game#getPositionHash()}), so that searches which reach a position they already
+ * evaluated, by another move order, on a later tick or on another thread, reuse the result.
+ *
+ * The table has a fixed number of entries grouped in buckets of {@value #BUCKET_SIZE}; a hash
+ * can only live in its bucket. When a bucket is full the new entry replaces the one least worth
+ * keeping: entries stored before the last {@link #newSearch()} go first, and among them, or
+ * among the current ones, the entry with the smallest depth. Each entry keeps the full hash, so
+ * a lookup never returns the value of another position sharing the bucket.
+ *
+ * The table is safe to share between threads. Buckets are guarded by a fixed set of locks, each
+ * covering an interleaved stripe of buckets, so threads working on different buckets rarely wait
+ * for each other and no lock is ever held for more than one bucket.
+ */
+public class TranspositionTable {
+	/** Value returned by {@link #get(long, int)} when the table holds nothing usable. */
+	public static final int MISS = Integer.MIN_VALUE;
+
+	/** Number of entries that share a bucket. */
+	public static final int BUCKET_SIZE = 4;
+
+	private static final int EMPTY = -1;
+
+	private final long[] keys;
+	private final int[] values;
+	private final int[] depths;
+	private final int[] generations;
+	private final int bucketMask;
+	private final Object[] locks;
+	private final int lockMask;
+	private final AtomicInteger generation = new AtomicInteger();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder replacements = new LongAdder();
+
+	/**
+	 * Constructs a table with one lock per 64 buckets.
+	 *
+	 * @param capacity the number of entries, rounded up to a power of two of at least {@value #BUCKET_SIZE}
+	 */
+	public TranspositionTable(int capacity) {
+		this(capacity, Math.max(1, capacity / BUCKET_SIZE / 64));
+	}
+
+	/**
+	 * Constructs a table with the given number of lock stripes.
+	 *
+	 * @param capacity the number of entries, rounded up to a power of two of at least {@value #BUCKET_SIZE}
+	 * @param stripes  the number of locks, rounded up to a power of two; more stripes let more
+	 *                 threads update the table at once
+	 */
+	public TranspositionTable(int capacity, int stripes) {
+		if (capacity <= 0 || capacity > 1 << 30) {
+			throw new IllegalArgumentException("Capacity must be between 1 and 2^30: " + capacity);
+		}
+		if (stripes <= 0 || stripes > 1 << 16) {
+			throw new IllegalArgumentException("Stripes must be between 1 and 2^16: " + stripes);
+		}
+		int entries = Math.max(BUCKET_SIZE, ceilPowerOfTwo(capacity));
+		this.keys = new long[entries];
+		this.values = new int[entries];
+		this.depths = new int[entries];
+		this.generations = new int[entries];
+		Arrays.fill(depths, EMPTY);
+		this.bucketMask = entries / BUCKET_SIZE - 1;
+		this.locks = new Object[Math.min(ceilPowerOfTwo(stripes), entries / BUCKET_SIZE)];
+		for (int i = 0; i < locks.length; i++) {
+			locks[i] = new Object();
+		}
+		this.lockMask = locks.length - 1;
+	}
+
+	/**
+	 * Looks up the value stored for a position.
+	 *
+	 * @param hash     the hash of the position
+	 * @param minDepth the smallest depth a stored value must have been computed with to be used
+	 * @return the stored value, or {@link #MISS} if there is none or it is too shallow
+	 */
+	public int get(long hash, int minDepth) {
+		int bucket = bucket(hash);
+		int base = bucket * BUCKET_SIZE;
+		synchronized (locks[bucket & lockMask]) {
+			for (int i = base; i < base + BUCKET_SIZE; i++) {
+				if (depths[i] != EMPTY && keys[i] == hash) {
+					if (depths[i] >= minDepth) {
+						hits.increment();
+						return values[i];
+					}
+					break;
+				}
+			}
+		}
+		misses.increment();
+		return MISS;
+	}
+
+	/**
+	 * Stores the value computed for a position. A value already stored for the same position is
+	 * only replaced by one computed at least as deep, or if it is from an earlier search.
+	 *
+	 * @param hash  the hash of the position
+	 * @param depth how far ahead the value looked, or any measure of the work behind it; deeper
+	 *              entries survive longer
+	 * @param value the value to store; must not be {@link #MISS}
+	 */
+	public void put(long hash, int depth, int value) {
+		if (depth < 0) {
+			throw new IllegalArgumentException("Depth must not be negative: " + depth);
+		}
+		int bucket = bucket(hash);
+		int base = bucket * BUCKET_SIZE;
+		int current = generation.get();
+		synchronized (locks[bucket & lockMask]) {
+			int victim = -1;
+			int victimScore = Integer.MAX_VALUE;
+			for (int i = base; i < base + BUCKET_SIZE; i++) {
+				if (depths[i] == EMPTY) {
+					victim = i;
+					break;
+				}
+				if (keys[i] == hash) {
+					if (depth < depths[i] && generations[i] == current) {
+						return;
+					}
+					victim = i;
+					break;
+				}
+				// Las entradas de búsquedas anteriores se sustituyen antes que las de la actual
+				int score = (generations[i] == current ? 1 << 30 : 0) + Math.min(depths[i], (1 << 30) - 1);
+				if (score < victimScore) {
+					victimScore = score;
+					victim = i;
+				}
+			}
+			if (depths[victim] != EMPTY && keys[victim] != hash) {
+				replacements.increment();
+			}
+			keys[victim] = hash;
+			values[victim] = value;
+			depths[victim] = depth;
+			generations[victim] = current;
+		}
+	}
+
+	/**
+	 * Starts a new search, so that entries stored until now are the first to be replaced when
+	 * their buckets fill up. They can still be found until then. A table shared between threads
+	 * should start a new search once for all of them, for instance once per batch of games, since
+	 * a search started by one thread ages the entries every other thread is still using.
+	 */
+	public void newSearch() {
+		generation.incrementAndGet();
+	}
+
+	/**
+	 * Empties the table.
+	 */
+	public void clear() {
+		for (int stripe = 0; stripe < locks.length; stripe++) {
+			synchronized (locks[stripe]) {
+				for (int bucket = stripe; bucket <= bucketMask; bucket += locks.length) {
+					Arrays.fill(depths, bucket * BUCKET_SIZE, (bucket + 1) * BUCKET_SIZE, EMPTY);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the number of entries the table holds at most.
+	 *
+	 * @return the capacity of the table
+	 */
+	public int getCapacity() {
+		return keys.length;
+	}
+
+	/**
+	 * Retrieves how many lookups found a usable value.
+	 *
+	 * @return the number of hits
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Retrieves how many lookups found nothing usable.
+	 *
+	 * @return the number of misses
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Retrieves how many stores evicted the entry of another position.
+	 *
+	 * @return the number of replacements
+	 */
+	public long getReplacements() {
+		return replacements.sum();
+	}
+
+	private int bucket(long hash) {
+		return (int) (hash ^ (hash >>> 32)) & bucketMask;
+	}
+
+	private static int ceilPowerOfTwo(int value) {
+		return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+	}
+}
@@ -1,24 +1,74 @@
 package controllers;
 
+import application.DirectionQueue;
+import application.FrameExchange;
+import application.GameLoop;
+import autopilot.Autopilot;
 import domain.Direction;
 import domain.Game;
-import javafx.animation.KeyFrame;
-import javafx.animation.KeyValue;
-import javafx.animation.Timeline;
+import javafx.animation.AnimationTimer;
 import javafx.fxml.FXML;
+import javafx.scene.canvas.Canvas;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.GridPane;
-import javafx.util.Duration;
 import javafx.scene.text.Text;
 import javafx.event.ActionEvent;
+import jdk.jfr.EventType;
+import levels.LevelPack;
+import metrics.GameMetrics;
+import metrics.RenderFrameEvent;
+import view.BoardRenderer;
+import view.CanvasRenderer;
+import view.Frame;
+import view.GridPaneRenderer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class appController {
 
+    // Propiedad del panel principal en app.fxml que elige la vista del tablero ("grid" o "canvas")
+    private static final String RENDERER_PROPERTY = "renderer";
+    private static final String RENDERER_CANVAS = "canvas";
+
+    // Propiedades opcionales del panel principal con el tamaño del tablero; por defecto 20x20
+    private static final String BOARD_WIDTH_PROPERTY = "boardWidth";
+    private static final String BOARD_HEIGHT_PROPERTY = "boardHeight";
+
+    // Propiedad opcional con la ruta de un paquete de niveles; se juega su primer nivel
+    private static final String LEVEL_PACK_PROPERTY = "levelPack";
+
+    private static final int MAX_QUEUED_TURNS = 4;
+
+    // Zona del tablero que se dibuja, en celdas; en tableros mayores sigue a la cabeza
+    private static final int VIEW_CELLS = 32;
+
+    private static final EventType RENDER_EVENT = EventType.getEventType(RenderFrameEvent.class);
+
     private Game game;
 
-    private Timeline gameLoop;
+    // Cola de giros: las teclas rápidas se aplican una por tick en vez de pisarse entre sí
+    private final DirectionQueue directions = new DirectionQueue(MAX_QUEUED_TURNS);
+
+    private BoardRenderer renderer;
+
+    private GameLoop gameLoop;
+
+    // El hilo del juego publica aquí una copia del tablero por tick y el hilo de JavaFX la recoge
+    private final FrameExchange frames = new FrameExchange(VIEW_CELLS, VIEW_CELLS);
+
+    private AnimationTimer frameTimer;
+
+    private Autopilot autopilot;
+
+    private volatile boolean autopilotEnabled;
+
+    // Métricas opcionales: se enganchan a la partida con M y se consultan con I
+    private final GameMetrics metrics = new GameMetrics();
 
     @FXML
     private Button downBtn;
@@ -29,6 +79,9 @@ public class appController {
     @FXML
     private GridPane map;
 
+    @FXML
+    private Canvas canvas;
+
     @FXML
     private AnchorPane mainPanel;
 
@@ -43,11 +96,34 @@ public class appController {
 
     @FXML
     void initialize() {
-        this.game = new Game(); // Usamos un constructor modificado que no ejecuta el hilo en consola
+        this.game = createGame(); // Usamos un constructor modificado que no ejecuta el hilo en consola
+        int width = game.getGameBoard().getWidth();
+        int height = game.getGameBoard().getHeight();
+        // En tableros enormes no hay piloto automático: ocuparía demasiada memoria
+        this.autopilot = (long) width * height <= Autopilot.MAX_CELLS ? new Autopilot(width, height) : null;
+        setupRenderer();
         setupGameLoop();
         setupKeyControls();
 
     }
+    private Game createGame() {
+        Object levelPack = mainPanel.getProperties().get(LEVEL_PACK_PROPERTY);
+        if (levelPack != null) {
+            try (LevelPack pack = new LevelPack(Path.of(levelPack.toString()))) {
+                return new Game(pack.getLevel(0), ThreadLocalRandom.current().nextLong());
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo leer el paquete de niveles " + levelPack, e);
+            }
+        }
+        Object width = mainPanel.getProperties().get(BOARD_WIDTH_PROPERTY);
+        Object height = mainPanel.getProperties().get(BOARD_HEIGHT_PROPERTY);
+        if (width == null || height == null) {
+            return new Game();
+        }
+        return new Game(Integer.parseInt(width.toString()), Integer.parseInt(height.toString()),
+                ThreadLocalRandom.current().nextLong());
+    }
+
     private void setupKeyControls() {
         mainPanel.setFocusTraversable(true);
         mainPanel.requestFocus(); // Para asegurarse de que reciba los eventos
@@ -56,10 +132,15 @@ public class appController {
             System.out.println("Tecla presionada: " + event.getCode());
 
             switch (event.getCode()) {
-                case W, UP -> game.changeDirection(Direction.UP);
-                case S, DOWN -> game.changeDirection(Direction.DOWN);
-                case A, LEFT -> game.changeDirection(Direction.LEFT);
-                case D, RIGHT -> game.changeDirection(Direction.RIGHT);
+                case W, UP -> directions.offer(Direction.UP);
+                case S, DOWN -> directions.offer(Direction.DOWN);
+                case A, LEFT -> directions.offer(Direction.LEFT);
+                case D, RIGHT -> directions.offer(Direction.RIGHT);
+                case ADD, PLUS, EQUALS -> gameLoop.faster();
+                case SUBTRACT, MINUS -> gameLoop.slower();
+                case P -> autopilotEnabled = autopilot != null && !autopilotEnabled;
+                case M -> game.setMetrics(game.getMetrics() == null ? metrics : null);
+                case I -> System.out.print(metrics.report());
                 default ->  {}
             }
         });
@@ -67,56 +148,103 @@ public class appController {
     }
 
     private void setupGameLoop() {
-        gameLoop = new Timeline(new KeyFrame(Duration.millis(400), e -> {
-            game.update();
-            updateMap();
-            scoreLabel.setText("Puntuación: " + game.getScore());
-
-            if (game.isGameOver()) {
-                gameLoop.stop();
-                scoreLabel.setText("¡Game Over! Puntuación final: " + game.getScore());
+        // La simulación avanza a ritmo fijo en su propio hilo; el AnimationTimer solo dibuja
+        // el último frame publicado, sin bloquear nunca a la simulación
+        gameLoop = new GameLoop(this::tick, () -> frames.publish(game), game::isGameOver);
+        frames.publish(game);
+        frameTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                Frame frame = frames.poll();
+                if (frame != null) {
+                    render(frame);
+                }
+            }
+        };
+        frameTimer.start();
+        gameLoop.start(null);
+    }
+
+    private void tick() {
+        if (autopilotEnabled) {
+            // Con el piloto automático activo se descartan los giros de teclado y botones
+            directions.clear();
+            Direction direction = autopilot.next(game);
+            if (direction != null) {
+                game.changeDirection(direction);
             }
-        }));
-        gameLoop.setCycleCount(Timeline.INDEFINITE);
-        gameLoop.play();
+        } else {
+            directions.applyNextTurn(game);
+        }
+        game.update();
+    }
+
+    private void render(Frame frame) {
+        updateMap(frame);
+        if (autopilotEnabled) {
+            scoreLabel.setText(String.format("Puntuación: %d (piloto automático, %.2f ms)",
+                    frame.getScore(), autopilot.getLastPlanNanos() / 1e6));
+        } else {
+            scoreLabel.setText("Puntuación: " + frame.getScore());
+        }
+
+        if (frame.isGameOver()) {
+            frameTimer.stop();
+            scoreLabel.setText("¡Game Over! Puntuación final: " + frame.getScore());
+        }
     }
 
     @FXML
     void down() {
-        game.changeDirection(Direction.DOWN);
+        directions.offer(Direction.DOWN);
     }
 
     @FXML
     void left() {
-        game.changeDirection(Direction.LEFT);
+        directions.offer(Direction.LEFT);
     }
 
     @FXML
     void right() {
-        game.changeDirection(Direction.RIGHT);
+        directions.offer(Direction.RIGHT);
     }
 
     @FXML
     void up() {
-        game.changeDirection(Direction.UP);
+        directions.offer(Direction.UP);
     }
 
-    private void updateMap() {
-        map.getChildren().clear();
-        String[][] mapArray = game.getGameBoard().getMap();
-
-        for (int y = 0; y < mapArray[0].length; y++) {
-            for (int x = 0; x < mapArray.length; x++) {
-                Label label = new Label();
-                if (mapArray[x][y] == null) {
-                    label.setText("-");
-                } else if (mapArray[x][y].equals("snake")) {
-                    label.setText("■");
-                } else if (mapArray[x][y].equals("apple")) {
-                    label.setText("○");
-                }
-                map.add(label, x, y);
-            }
+    private void setupRenderer() {
+        if (RENDERER_CANVAS.equals(mainPanel.getProperties().get(RENDERER_PROPERTY))) {
+            map.setVisible(false);
+            canvas.setVisible(true);
+            renderer = new CanvasRenderer(canvas);
+        } else {
+            canvas.setVisible(false);
+            map.setVisible(true);
+            renderer = new GridPaneRenderer(map);
+        }
+    }
+
+    private void updateMap(Frame frame) {
+        GameMetrics gameMetrics = game.getMetrics();
+        if (gameMetrics == null && !RENDER_EVENT.isEnabled()) {
+            renderer.render(frame);
+            return;
+        }
+        RenderFrameEvent event = new RenderFrameEvent();
+        event.begin();
+        long start = System.nanoTime();
+        renderer.render(frame);
+        long elapsed = System.nanoTime() - start;
+        int cells = frame.getChangedCells();
+        if (gameMetrics != null) {
+            gameMetrics.recordFrame(elapsed, cells);
+        }
+        if (event.shouldCommit()) {
+            event.renderer = renderer.getClass().getSimpleName();
+            event.cellsChanged = cells;
+            event.commit();
         }
     }
 }
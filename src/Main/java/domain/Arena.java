@@ -0,0 +1,492 @@
+package domain;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The Arena class is a board shared by many snakes and many apples, for example hundreds of
+ * snakes on a 1000x1000 grid.
+ *
+ * Every cell of the arena is kept in one shared occupancy grid that holds the id of the snake
+ * covering it, the apple, or nothing. A tick moves every live snake at once in three phases,
+ * each spread over a {@link ForkJoinPool} in shards of consecutive snakes:
+ * <ol>
+ *     <li>propose: each snake computes the cell in front of its head and claims it;</li>
+ *     <li>resolve: a snake dies if that cell is outside the arena, covered by any snake
+ *     (tails included, since tails move in the same tick), or claimed by another snake too;</li>
+ *     <li>commit: survivors move and eat, and dead snakes are removed from the grid.</li>
+ * </ol>
+ * Eaten apples are then replaced one by one from the arena's seeded generator.
+ *
+ * Within a phase every snake only reads state written by earlier phases and only writes its own
+ * cells, so the outcome does not depend on how snakes are split between threads: the same seed
+ * and the same directions give the same arena with any pool, including a single thread. Like
+ * {@link Snake}, a snake that eats grows on its following move.
+ *
+ * An arena must only be ticked and steered from one thread at a time.
+ */
+public class Arena {
+	/** Snakes per task; smaller arenas are ticked on the calling thread. */
+	private static final int SHARD_SIZE = 256;
+
+	private static final int APPLE_CELL = -1;
+	private static final int NO_CELL = -1;
+
+	private static final byte OUTCOME_MOVED = 0;
+	private static final byte OUTCOME_ATE = 1;
+	private static final byte OUTCOME_DIED = 2;
+
+	private static final int PHASE_PROPOSE = 0;
+	private static final int PHASE_RESOLVE = 1;
+	private static final int PHASE_COMMIT = 2;
+
+	/** Draws after which apple placement stops guessing and scans for a free cell. */
+	private static final int MAX_APPLE_DRAWS = 64;
+
+	private static final Direction[] DIRECTIONS = Direction.values();
+	private static final VarHandle CLAIMS = MethodHandles.arrayElementVarHandle(int[].class);
+
+	private final int width;
+	private final int height;
+	private final int snakeCount;
+	private final int appleTarget;
+	private final ForkJoinPool pool;
+	private final SeededRandom random;
+
+	private final int[] grid;
+	private final int[] claims;
+	private final int[][] bodies;
+	private final int[] heads;
+	private final int[] lengths;
+	private final Direction[] directions;
+	private final boolean[] alive;
+	private final boolean[] growing;
+	private final int[] scores;
+	private final int[] targets;
+	private final byte[] outcomes;
+
+	private int aliveCount;
+	private int appleCount;
+	private long tickCount;
+
+	/**
+	 * Constructs an arena that ticks on the common fork/join pool.
+	 *
+	 * @param width  the number of columns of the arena
+	 * @param height the number of rows of the arena
+	 * @param snakes the number of snakes, each starting as a single segment on a random cell
+	 * @param apples the number of apples kept on the arena
+	 * @param seed   the seed for the placement of snakes and apples
+	 */
+	public Arena(int width, int height, int snakes, int apples, long seed) {
+		this(width, height, snakes, apples, seed, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Constructs an arena that ticks on the given pool.
+	 *
+	 * @param width  the number of columns of the arena
+	 * @param height the number of rows of the arena
+	 * @param snakes the number of snakes, each starting as a single segment on a random cell
+	 * @param apples the number of apples kept on the arena
+	 * @param seed   the seed for the placement of snakes and apples
+	 * @param pool   the pool that runs the phases of each tick
+	 */
+	public Arena(int width, int height, int snakes, int apples, long seed, ForkJoinPool pool) {
+		if (width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Invalid arena dimensions: " + width + "x" + height);
+		}
+		if (snakes < 0 || apples < 0 || (long) snakes + apples > (long) width * height) {
+			throw new IllegalArgumentException(snakes + " snakes and " + apples + " apples do not fit in " + width + "x" + height);
+		}
+		this.width = width;
+		this.height = height;
+		this.snakeCount = snakes;
+		this.appleTarget = apples;
+		this.pool = pool;
+		this.random = new SeededRandom(seed);
+		this.grid = new int[width * height];
+		this.claims = new int[width * height];
+		this.bodies = new int[snakes][];
+		this.heads = new int[snakes];
+		this.lengths = new int[snakes];
+		this.directions = new Direction[snakes];
+		this.alive = new boolean[snakes];
+		this.growing = new boolean[snakes];
+		this.scores = new int[snakes];
+		this.targets = new int[snakes];
+		this.outcomes = new byte[snakes];
+
+		for (int i = 0; i < snakes; i++) {
+			int cell = randomFreeCell();
+			bodies[i] = new int[4];
+			bodies[i][0] = cell;
+			lengths[i] = 1;
+			directions[i] = DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+			alive[i] = true;
+			grid[cell] = i + 1;
+		}
+		this.aliveCount = snakes;
+		spawnApples(apples);
+	}
+
+	/**
+	 * Changes the direction of one snake for the next tick. As in {@link Game}, turning to the
+	 * opposite direction is ignored.
+	 *
+	 * @param snake     the id of the snake, from 0 to {@code getSnakeCount() - 1}
+	 * @param direction the new direction
+	 */
+	public void changeDirection(int snake, Direction direction) {
+		if (!directions[snake].isOpposite(direction)) {
+			directions[snake] = direction;
+		}
+	}
+
+	/**
+	 * Moves every live snake one cell, resolving collisions, eating and apple placement.
+	 *
+	 * @return the number of snakes still alive after the tick
+	 */
+	public int tick() {
+		runPhase(PHASE_PROPOSE);
+		runPhase(PHASE_RESOLVE);
+		runPhase(PHASE_COMMIT);
+
+		int eaten = 0;
+		for (int i = 0; i < snakeCount; i++) {
+			if (!alive[i]) {
+				continue;
+			}
+			if (outcomes[i] == OUTCOME_DIED) {
+				alive[i] = false;
+				aliveCount--;
+			} else if (outcomes[i] == OUTCOME_ATE) {
+				eaten++;
+			}
+		}
+		appleCount -= eaten;
+		spawnApples(appleTarget - appleCount);
+		tickCount++;
+		return aliveCount;
+	}
+
+	private void runPhase(int phase) {
+		if (snakeCount <= SHARD_SIZE) {
+			runShard(phase, 0, snakeCount);
+		} else {
+			pool.invoke(new Phase(this, phase, 0, snakeCount));
+		}
+	}
+
+	private void runShard(int phase, int from, int to) {
+		switch (phase) {
+			case PHASE_PROPOSE -> propose(from, to);
+			case PHASE_RESOLVE -> resolve(from, to);
+			default -> commit(from, to);
+		}
+	}
+
+	private void propose(int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (!alive[i]) {
+				continue;
+			}
+			int head = bodies[i][heads[i]];
+			int x = head % width + directions[i].getX();
+			int y = head / width + directions[i].getY();
+			if (x < 0 || x >= width || y < 0 || y >= height) {
+				targets[i] = NO_CELL;
+			} else {
+				int target = y * width + x;
+				targets[i] = target;
+				CLAIMS.getAndAdd(claims, target, 1);
+			}
+		}
+	}
+
+	private void resolve(int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (!alive[i]) {
+				continue;
+			}
+			int target = targets[i];
+			if (target == NO_CELL || grid[target] > 0 || claims[target] > 1) {
+				outcomes[i] = OUTCOME_DIED;
+			} else {
+				outcomes[i] = grid[target] == APPLE_CELL ? OUTCOME_ATE : OUTCOME_MOVED;
+			}
+		}
+	}
+
+	private void commit(int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (!alive[i]) {
+				continue;
+			}
+			int target = targets[i];
+			if (target != NO_CELL) {
+				claims[target] = 0;
+			}
+			int[] body = bodies[i];
+			int mask = body.length - 1;
+			if (outcomes[i] == OUTCOME_DIED) {
+				for (int s = 0; s < lengths[i]; s++) {
+					grid[body[(heads[i] + s) & mask]] = 0;
+				}
+				continue;
+			}
+			if (growing[i]) {
+				if (lengths[i] == body.length) {
+					body = expand(i);
+					mask = body.length - 1;
+				}
+			} else {
+				grid[body[(heads[i] + lengths[i] - 1) & mask]] = 0;
+				lengths[i]--;
+			}
+			heads[i] = (heads[i] - 1) & mask;
+			body[heads[i]] = target;
+			lengths[i]++;
+			grid[target] = i + 1;
+			growing[i] = outcomes[i] == OUTCOME_ATE;
+			if (growing[i]) {
+				scores[i]++;
+			}
+		}
+	}
+
+	private int[] expand(int snake) {
+		int[] body = bodies[snake];
+		int[] grown = new int[body.length << 1];
+		for (int s = 0; s < lengths[snake]; s++) {
+			grown[s] = body[(heads[snake] + s) & (body.length - 1)];
+		}
+		bodies[snake] = grown;
+		heads[snake] = 0;
+		return grown;
+	}
+
+	private void spawnApples(int count) {
+		for (int i = 0; i < count; i++) {
+			int cell = randomFreeCell();
+			if (cell == NO_CELL) {
+				return;
+			}
+			grid[cell] = APPLE_CELL;
+			appleCount++;
+		}
+	}
+
+	/**
+	 * Picks a random empty cell, drawing cells until one is free and scanning from a random
+	 * start once the draws keep failing.
+	 *
+	 * @return the packed index of an empty cell, or -1 if the arena is full
+	 */
+	private int randomFreeCell() {
+		for (int i = 0; i < MAX_APPLE_DRAWS; i++) {
+			int cell = random.nextInt(grid.length);
+			if (grid[cell] == 0) {
+				return cell;
+			}
+		}
+		int start = random.nextInt(grid.length);
+		for (int i = 0; i < grid.length; i++) {
+			int cell = (start + i) % grid.length;
+			if (grid[cell] == 0) {
+				return cell;
+			}
+		}
+		return NO_CELL;
+	}
+
+	/**
+	 * Retrieves the type of a cell of the arena.
+	 *
+	 * @param x the x-coordinate of the cell
+	 * @param y the y-coordinate of the cell
+	 * @return one of {@link GameBoard#EMPTY}, {@link GameBoard#SNAKE} or {@link GameBoard#APPLE}
+	 */
+	public byte getCell(int x, int y) {
+		int value = grid[y * width + x];
+		return value > 0 ? GameBoard.SNAKE : value == APPLE_CELL ? GameBoard.APPLE : GameBoard.EMPTY;
+	}
+
+	/**
+	 * Retrieves the id of the snake covering a cell.
+	 *
+	 * @param x the x-coordinate of the cell
+	 * @param y the y-coordinate of the cell
+	 * @return the id of the snake, or -1 if no snake covers the cell
+	 */
+	public int getOwner(int x, int y) {
+		int value = grid[y * width + x];
+		return value > 0 ? value - 1 : -1;
+	}
+
+	/**
+	 * Determines whether a snake is still alive.
+	 *
+	 * @param snake the id of the snake
+	 * @return true if the snake is alive, false once it has died
+	 */
+	public boolean isAlive(int snake) {
+		return alive[snake];
+	}
+
+	/**
+	 * Retrieves the number of apples a snake has eaten.
+	 *
+	 * @param snake the id of the snake
+	 * @return the score of the snake
+	 */
+	public int getScore(int snake) {
+		return scores[snake];
+	}
+
+	/**
+	 * Retrieves the number of segments of a snake, which is kept after it dies.
+	 *
+	 * @param snake the id of the snake
+	 * @return the length of the snake
+	 */
+	public int getLength(int snake) {
+		return lengths[snake];
+	}
+
+	/**
+	 * Retrieves the x-coordinate of a snake's head.
+	 *
+	 * @param snake the id of the snake
+	 * @return the x-coordinate of the head
+	 */
+	public int getHeadX(int snake) {
+		return bodies[snake][heads[snake]] % width;
+	}
+
+	/**
+	 * Retrieves the y-coordinate of a snake's head.
+	 *
+	 * @param snake the id of the snake
+	 * @return the y-coordinate of the head
+	 */
+	public int getHeadY(int snake) {
+		return bodies[snake][heads[snake]] / width;
+	}
+
+	/**
+	 * Retrieves the direction a snake will move in on the next tick.
+	 *
+	 * @param snake the id of the snake
+	 * @return the direction of the snake
+	 */
+	public Direction getDirection(int snake) {
+		return directions[snake];
+	}
+
+	/**
+	 * Retrieves the number of snakes the arena was created with, alive or not.
+	 *
+	 * @return the number of snakes
+	 */
+	public int getSnakeCount() {
+		return snakeCount;
+	}
+
+	/**
+	 * Retrieves the number of snakes still alive.
+	 *
+	 * @return the number of live snakes
+	 */
+	public int getAliveCount() {
+		return aliveCount;
+	}
+
+	/**
+	 * Retrieves the number of apples on the arena, which only falls below the requested number
+	 * when there is no free cell left.
+	 *
+	 * @return the number of apples
+	 */
+	public int getAppleCount() {
+		return appleCount;
+	}
+
+	/**
+	 * Retrieves the number of ticks played so far.
+	 *
+	 * @return the tick count
+	 */
+	public long getTickCount() {
+		return tickCount;
+	}
+
+	/**
+	 * Retrieves the width of the arena.
+	 *
+	 * @return the number of columns
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Retrieves the height of the arena.
+	 *
+	 * @return the number of rows
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Computes a hash of the whole arena: every cell and the direction and score of every snake.
+	 * Two arenas that were given the same seed and the same directions have the same hash,
+	 * whatever pools they ran on.
+	 *
+	 * @return the hash of the arena
+	 */
+	public int stateHash() {
+		int hash = Arrays.hashCode(grid);
+		for (int i = 0; i < snakeCount; i++) {
+			hash = 31 * hash + directions[i].ordinal();
+			hash = 31 * hash + scores[i];
+		}
+		return hash;
+	}
+
+	/**
+	 * Runs one phase over a range of snakes, splitting it in halves down to {@link #SHARD_SIZE}.
+	 */
+	@SuppressWarnings("serial")
+	private static final class Phase extends RecursiveAction {
+		private final Arena arena;
+		private final int phase;
+		private final int from;
+		private final int to;
+
+		Phase(Arena arena, int phase, int from, int to) {
+			this.arena = arena;
+			this.phase = phase;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= SHARD_SIZE) {
+				arena.runShard(phase, from, to);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			Phase left = new Phase(arena, phase, from, middle);
+			left.fork();
+			new Phase(arena, phase, middle, to).compute();
+			left.join();
+		}
+	}
+}
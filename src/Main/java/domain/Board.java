@@ -1,17 +1,50 @@
 package domain;
 
-import java.util.Random;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * The Board class represents a game board for a Snake game.
  * It manages the game elements, such as the snake, the apple, and their positions
  * on*/
-public class Board implements GameBoard {
+public final class Board implements DenseBoard {
+	private static final byte UNDO_DEAD = 1;
+	private static final byte UNDO_ATE = 1 << 1;
+	private static final byte UNDO_WAS_GROWING = 1 << 2;
+	private static final byte UNDO_HEAD_WAS_APPLE = 1 << 3;
+
+	/**
+	 * Largest number of cells a dense board accepts. Every cell costs nine bytes of grid and
+	 * free-cell index, so larger boards are better served by a {@link SparseBoard}.
+	 */
+	public static final long MAX_CELLS = 1L << 26;
+
 	private final int width;
 	private final int height;
+	private final Level level;
+	private final long[] walls;
+	private final int spawnX;
+	private final int spawnY;
 	private Snake snake;
 	private Apple apple;
+	private final byte[] cells;
 	private String[][] map;
+	private int[] dirtyCells;
+	private int dirtyCount;
+	private final int[] freeCells;
+	private final int[] freeSlots;
+	private int freeCount;
+	private final long seed;
+	private final SeededRandom random;
+	private int undoDepth;
+	private int[] undoHeads;
+	private int[] undoTails;
+	private int[] undoSlots;
+	private int[] undoPreviousVacated;
+	private int[] undoPreviousApples;
+	private int[] undoNewApples;
+	private long[] undoRandomStates;
+	private byte[] undoFlags;
 
 	/**
 	 * Constructs a new Board instance with the specified width and height.
@@ -19,63 +52,193 @@ public class Board implements GameBoard {
 	 *
 	 * @param width  the width of the*/
 	public Board(int width, int height) {
+		this(width, height, ThreadLocalRandom.current().nextLong());
+	}
+
+	/**
+	 * Constructs a new Board instance whose apple placement is driven by a seeded random
+	 * number generator, so that the same seed and moves always produce the same apples.
+	 *
+	 * @param width  the width of the game board
+	 * @param height the height of the game board
+	 * @param seed   the seed for the board's random number generator
+	 */
+	public Board(int width, int height, long seed) {
+		if ((long) width * height > MAX_CELLS) {
+			throw new IllegalArgumentException("A dense board holds at most " + MAX_CELLS + " cells; use a SparseBoard");
+		}
 		this.width = width;
 		this.height = height;
-		this.map = new String[width][height];
+		this.level = null;
+		this.walls = null;
+		this.spawnX = width / 2;
+		this.spawnY = height / 2;
+		this.seed = seed;
+		this.random = new SeededRandom(seed);
+		this.cells = new byte[width * height];
+		this.dirtyCells = new int[4];
+		this.freeCells = new int[width * height];
+		this.freeSlots = new int[width * height];
+		this.createSnake();
+		this.createApple();
+	}
+
+	/**
+	 * Constructs a Board laid out by the given level: its size and walls, with the snake on the
+	 * level's spawn point. Walls are never part of the free-cell index, so apples are still placed
+	 * with a single draw, and a move into a wall ends the game like a move off the board.
+	 *
+	 * @param level the level to play
+	 * @param seed  the seed for the board's random number generator
+	 */
+	public Board(Level level, long seed) {
+		this.width = level.getWidth();
+		this.height = level.getHeight();
+		this.level = level;
+		this.walls = level.walls();
+		this.spawnX = level.getSpawnX();
+		this.spawnY = level.getSpawnY();
+		this.seed = seed;
+		this.random = new SeededRandom(seed);
+		this.cells = new byte[width * height];
+		this.dirtyCells = new int[4];
+		this.freeCells = new int[width * height];
+		this.freeSlots = new int[width * height];
+		fillWalls();
 		this.createSnake();
 		this.createApple();
 	}
 
 	/**
 	 * Creates a new apple at a random position on the game board.
-	 * The position is randomly generated within the board's dimensions
-	 * and ensures that it does not collide with the snake's current body segments.
-	 * Once the position is determined, the apple is placed, and its location is updated
-	 * on the game board map.
+	 * The position is drawn uniformly from the free-cell index, which holds exactly the cells
+	 * not covered by the snake, so a single draw from the board's random number generator
+	 * is enough no matter how crowded the board is. If the snake fills the whole board there
+	 * is nowhere to put an apple and the current one is left as it is.
 	 */
 	@Override
 	public void createApple() {
-		Random random = new Random();
-		int x, y;
-
-		do {
-			x = random.nextInt(width);
-			y = random.nextInt(height);
-		} while (isPositionOccupied(x, y));
+		if (freeCount == 0) {
+			return;
+		}
+		int index = freeCells[random.nextInt(freeCount)];
+		int x = index % width;
+		int y = index / width;
 
-		this.apple = new Apple(x, y);
+		if (apple == null) {
+			this.apple = new Apple(x, y);
+		} else {
+			if (getCell(apple.getX(), apple.getY()) == APPLE) {
+				clearCell(apple.getX(), apple.getY());
+			}
+			apple.setPosition(x, y);
+		}
 		updateApple(x, y);
 	}
 
 	/**
-	 * Determines if a given position on the board is currently occupied by the snake.
-	 *
-	 * @param x the x-coordinate of the position to check
-	 * @param y the y-coordinate of the position to check
-	 * @return true if the position is occupied by any segment of the snake, false otherwise
+	 * Resets the free-cell index so that every cell on the board but the walls is free.
 	 */
-	private boolean isPositionOccupied(int x, int y) {
-		for (int[] segment : snake.getBody()) {
-			if (segment[0] == x && segment[1] == y) {
-				return true;
+	private void resetFreeCells() {
+		if (walls == null) {
+			for (int i = 0; i < freeCells.length; i++) {
+				freeCells[i] = i;
+				freeSlots[i] = i;
 			}
+			freeCount = freeCells.length;
+			return;
 		}
-		return false;
+		freeCount = 0;
+		for (int i = 0; i < freeCells.length; i++) {
+			if ((walls[i >>> 6] & 1L << i) != 0) {
+				freeSlots[i] = -1;
+			} else {
+				freeCells[freeCount] = i;
+				freeSlots[i] = freeCount++;
+			}
+		}
+	}
+
+	/**
+	 * Marks the walls of the level in the grid, visiting only the set bits of the bitmap.
+	 */
+	private void fillWalls() {
+		if (walls == null) {
+			return;
+		}
+		for (int w = 0; w < walls.length; w++) {
+			long word = walls[w];
+			while (word != 0) {
+				cells[(w << 6) + Long.numberOfTrailingZeros(word)] = WALL;
+				word &= word - 1;
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the level the board is laid out by.
+	 *
+	 * @return the level of the board, or null if the board has no walls
+	 */
+	public Level getLevel() {
+		return level;
+	}
+
+	/**
+	 * Determines whether a cell is a wall of the board's level.
+	 *
+	 * @param x the x-coordinate of the cell
+	 * @param y the y-coordinate of the cell
+	 * @return true if the cell is a wall, false if it is not or the board has no level
+	 */
+	public boolean isWall(int x, int y) {
+		int index = y * width + x;
+		return walls != null && (walls[index >>> 6] & 1L << index) != 0;
+	}
+
+	/**
+	 * Removes a cell from the free-cell index by moving the last free cell into its slot.
+	 *
+	 * @param index the packed index of the cell the snake now covers
+	 */
+	private void claimFreeCell(int index) {
+		int slot = freeSlots[index];
+		if (slot < 0) {
+			return;
+		}
+		int last = freeCells[--freeCount];
+		freeCells[slot] = last;
+		freeSlots[last] = slot;
+		freeSlots[index] = -1;
+	}
+
+	/**
+	 * Appends a cell to the free-cell index.
+	 *
+	 * @param index the packed index of the cell the snake no longer covers
+	 */
+	private void releaseFreeCell(int index) {
+		if (freeSlots[index] >= 0) {
+			return;
+		}
+		freeCells[freeCount] = index;
+		freeSlots[index] = freeCount++;
 	}
 
 	/**
 	 * Initializes the snake at its starting position and updates the game board to reflect the snake's presence.
 	 *
-	 * The snake is created at the center of the board using calculated coordinates based on the board's width and height.
+	 * The snake is created at the center of the board using calculated coordinates based on the board's width and height,
+	 * or on the spawn point of the board's level.
 	 * These starting coordinates are passed to the Snake constructor, and the resulting snake object is stored.
 	 * The `updateSnake` method is then invoked to place the snake's initial position on the board's map.
 	 */
 	@Override
 	public void createSnake() {
-		int startX = width / 2;
-		int startY = height / 2;
-		this.snake = new Snake(startX, startY);
-		updateSnake(startX, startY);
+		this.snake = new Snake(spawnX, spawnY, width, height);
+		resetFreeCells();
+		claimFreeCell(spawnY * width + spawnX);
+		updateSnake(spawnX, spawnY);
 	}
 
 	/**
@@ -83,55 +246,235 @@ public class Board implements GameBoard {
 	 * Checks for collisions with the game board boundaries, the snake's own body, and the apple.
 	 * Updates the snake's position and modifies the game state accordingly.
 	 *
+	 * Only the cells that change are rewritten: the vacated tail is cleared and the new head
+	 * is marked. The dirty-cell list is reset at the start of every move and then records
+	 * each cell touched until the next one.
+	 *
 	 * @param direction the direction in which the snake should move
 	 * @return true if the move results in the game ending (e.g., collision), false otherwise
 	 */
 	public boolean move(Direction direction) {
-		int[] head = snake.getHead();
-		int newX = head[0] + direction.getX();
-		int newY = head[1] + direction.getY();
+		dirtyCount = 0;
+		int newX = snake.getHeadX() + direction.getX();
+		int newY = snake.getHeadY() + direction.getY();
 
 		if (newX < 0 || newX >= width || newY < 0 || newY >= height) {
 			return true;
 		}
 
+		int index = newY * width + newX;
+		if (walls != null && (walls[index >>> 6] & 1L << index) != 0) {
+			return true;
+		}
+
 		if (snake.collidesWith(newX, newY)) {
 			return true;
 		}
 
 		snake.move(newX, newY, apple.getX() == newX && apple.getY() == newY);
 
-		clearMap();
-		updateSnakePositions();
-		updateApple(apple.getX(), apple.getY());
+		int vacated = snake.getVacatedCell();
+		if (vacated >= 0) {
+			releaseFreeCell(vacated);
+			clearCell(vacated % width, vacated / width);
+		}
+		claimFreeCell(newY * width + newX);
+		updateSnake(newX, newY);
 
 		return false;
 	}
 
 	/**
-	 * Clears the game board's map by setting all cells to null.
+	 * Plays one full tick in the given direction the way {@link Game#update()} does: moves the
+	 * snake and, if it reached the apple, makes it grow and places a new apple. Everything the
+	 * tick changes is pushed on an undo stack so that {@link #unmakeMove()} can revert it exactly,
+	 * including the order of the free-cell index and the random number generator. The stack is
+	 * made of primitive arrays that only grow when the search goes deeper than ever before.
+	 *
+	 * @param direction the direction to move in
+	 * @return {@link #MOVE_DEAD} if the move ended the game, {@link #MOVE_ATE} if the snake ate
+	 *         the apple, or {@link #MOVE_OK} otherwise
+	 */
+	@Override
+	public int makeMove(Direction direction) {
+		if (undoFlags == null) {
+			ensureUndoCapacity(64);
+		} else if (undoDepth == undoFlags.length) {
+			ensureUndoCapacity(undoDepth << 1);
+		}
+		int depth = undoDepth++;
+		int newX = snake.getHeadX() + direction.getX();
+		int newY = snake.getHeadY() + direction.getY();
+		int headIndex = newY * width + newX;
+		boolean wasGrowing = snake.isGrowing();
+		int previousVacated = snake.getVacatedCell();
+		int previousApple = apple.getY() * width + apple.getX();
+		boolean headWasApple = newX >= 0 && newX < width && newY >= 0 && newY < height && cells[headIndex] == APPLE;
+		int slot = newX >= 0 && newX < width && newY >= 0 && newY < height ? freeSlots[headIndex] : -1;
+
+		if (move(direction)) {
+			undoFlags[depth] = UNDO_DEAD;
+			return MOVE_DEAD;
+		}
+
+		byte flags = 0;
+		if (wasGrowing) {
+			flags |= UNDO_WAS_GROWING;
+		}
+		if (headWasApple) {
+			flags |= UNDO_HEAD_WAS_APPLE;
+		}
+		undoHeads[depth] = headIndex;
+		undoTails[depth] = snake.getVacatedCell();
+		undoSlots[depth] = slot;
+		undoPreviousVacated[depth] = previousVacated;
+		undoPreviousApples[depth] = previousApple;
+		undoNewApples[depth] = -1;
+		undoRandomStates[depth] = random.getState();
+
+		if (snakeAteApple()) {
+			flags |= UNDO_ATE;
+			growSnake();
+			int freeBefore = freeCount;
+			createApple();
+			if (freeBefore > 0) {
+				undoNewApples[depth] = apple.getY() * width + apple.getX();
+			}
+		}
+		undoFlags[depth] = flags;
+		return (flags & UNDO_ATE) != 0 ? MOVE_ATE : MOVE_OK;
+	}
+
+	/**
+	 * Reverts the most recent {@link #makeMove(Direction)} that has not been reverted yet.
 	 *
-	 * This method iterates through the entire map grid,*/
-	private void clearMap() {
-		for (int i = 0; i < width; i++) {
-			for (int j = 0; j < height; j++) {
-				map[i][j] = null;
+	 * @throws IllegalStateException if there is no move to revert
+	 */
+	@Override
+	public void unmakeMove() {
+		if (undoDepth == 0) {
+			throw new IllegalStateException("No move to unmake");
+		}
+		int depth = --undoDepth;
+		byte flags = undoFlags[depth];
+		if ((flags & UNDO_DEAD) != 0) {
+			return;
+		}
+
+		int newApple = undoNewApples[depth];
+		if ((flags & UNDO_ATE) != 0) {
+			if (newApple >= 0) {
+				clearCell(newApple % width, newApple / width);
+			}
+			random.setState(undoRandomStates[depth]);
+			int previousApple = undoPreviousApples[depth];
+			apple.setPosition(previousApple % width, previousApple / width);
+		}
+
+		int headIndex = undoHeads[depth];
+		int tail = undoTails[depth];
+		int slot = undoSlots[depth];
+		if (slot >= 0) {
+			if (slot < freeCount) {
+				int moved = freeCells[slot];
+				freeCells[freeCount] = moved;
+				freeSlots[moved] = freeCount;
 			}
+			freeCells[slot] = headIndex;
+			freeSlots[headIndex] = slot;
+			freeCount++;
+		}
+		if (tail >= 0) {
+			freeSlots[tail] = -1;
+			freeCount--;
+		}
+
+		snake.undoMove(tail, (flags & UNDO_WAS_GROWING) != 0, undoPreviousVacated[depth]);
+		setCell(headIndex % width, headIndex / width, (flags & UNDO_HEAD_WAS_APPLE) != 0 ? APPLE : EMPTY);
+		if (tail >= 0) {
+			setCell(tail % width, tail / width, SNAKE);
+		}
+	}
+
+	/**
+	 * Retrieves how many moves can currently be reverted with {@link #unmakeMove()}.
+	 *
+	 * @return the depth of the undo stack
+	 */
+	public int getUndoDepth() {
+		return undoDepth;
+	}
+
+	private void ensureUndoCapacity(int capacity) {
+		undoHeads = undoHeads == null ? new int[capacity] : Arrays.copyOf(undoHeads, capacity);
+		undoTails = undoTails == null ? new int[capacity] : Arrays.copyOf(undoTails, capacity);
+		undoSlots = undoSlots == null ? new int[capacity] : Arrays.copyOf(undoSlots, capacity);
+		undoPreviousVacated = undoPreviousVacated == null ? new int[capacity] : Arrays.copyOf(undoPreviousVacated, capacity);
+		undoPreviousApples = undoPreviousApples == null ? new int[capacity] : Arrays.copyOf(undoPreviousApples, capacity);
+		undoNewApples = undoNewApples == null ? new int[capacity] : Arrays.copyOf(undoNewApples, capacity);
+		undoRandomStates = undoRandomStates == null ? new long[capacity] : Arrays.copyOf(undoRandomStates, capacity);
+		undoFlags = undoFlags == null ? new byte[capacity] : Arrays.copyOf(undoFlags, capacity);
+	}
+
+	/**
+	 * Empties a single cell of the map and records it as dirty.
+	 *
+	 * @param x the x-coordinate of the cell
+	 * @param y the y-coordinate of the cell
+	 */
+	private void clearCell(int x, int y) {
+		setCell(x, y, EMPTY);
+	}
+
+	/**
+	 * Writes a cell type into the grid, mirrors it into the {@code String[][]} view if that
+	 * has been built, and records the cell as dirty.
+	 *
+	 * @param x    the x-coordinate of the cell
+	 * @param y    the y-coordinate of the cell
+	 * @param type one of {@link #EMPTY}, {@link #SNAKE} or {@link #APPLE}
+	 */
+	private void setCell(int x, int y, byte type) {
+		cells[y * width + x] = type;
+		if (map != null) {
+			map[x][y] = toName(type);
 		}
+		markDirty(x, y);
 	}
 
 	/**
-	 * Updates the positions of all segments of the snake on the game board.
+	 * Translates a cell type into the identifier used by the legacy {@code String[][]} map.
 	 *
-	 * This method iterates through the snake's body segments and calls the
-	 * `updateSnake` method for each segment. Each segment's position is
+	 * @param type one of {@link #EMPTY}, {@link #SNAKE}, {@link #APPLE} or {@link #WALL}
+	 * @return "snake", "apple", "wall" or null for an empty cell
 	 */
-	private void updateSnakePositions() {
-		for (int[] segment : snake.getBody()) {
-			updateSnake(segment[0], segment[1]);
+	private static String toName(byte type) {
+		switch (type) {
+			case SNAKE:
+				return "snake";
+			case APPLE:
+				return "apple";
+			case WALL:
+				return "wall";
+			default:
+				return null;
 		}
 	}
 
+	/**
+	 * Appends a cell to the dirty-cell list, growing the backing array if a caller
+	 * touches more cells in one tick than it can hold.
+	 *
+	 * @param x the x-coordinate of the cell
+	 * @param y the y-coordinate of the cell
+	 */
+	private void markDirty(int x, int y) {
+		if (dirtyCount == dirtyCells.length) {
+			dirtyCells = Arrays.copyOf(dirtyCells, dirtyCount << 1);
+		}
+		dirtyCells[dirtyCount++] = y * width + x;
+	}
+
 	/**
 	 * Updates the game board to place an apple at the specified position.
 	 * This method modifies the internal map to mark the cell at the given
@@ -140,7 +483,7 @@ public class Board implements GameBoard {
 	 **/
 	@Override
 	public void updateApple(int x, int y) {
-		map[x][y] = "apple";
+		setCell(x, y, APPLE);
 	}
 
 	/**
@@ -149,7 +492,7 @@ public class Board implements GameBoard {
 	 **/
 	@Override
 	public void updateSnake(int x, int y) {
-		map[x][y] = "snake";
+		setCell(x, y, SNAKE);
 	}
 
 	/**
@@ -161,8 +504,7 @@ public class Board implements GameBoard {
 	 * @return true if the snake's head is at the same position as the apple, false otherwise
 	 */
 	public boolean snakeAteApple() {
-		int[] head = snake.getHead();
-		return head[0] == apple.getX() && head[1] == apple.getY();
+		return snake.getHeadX() == apple.getX() && snake.getHeadY() == apple.getY();
 	}
 
 	/**
@@ -177,11 +519,220 @@ public class Board implements GameBoard {
 	 * Each cell in the array represents a specific position on the game board,
 	 * with values indicating the contents of the cell (e.g., null, snake segment, apple).
 	 *
+	 * The array is an adapter over {@link #getCells()}: it is built on the first call
+	 * and then kept in sync cell by cell, so boards that are only read through the
+	 * primitive grid never pay for it.
+	 *
 	 * @return a 2D string array representing the game board, where each element corresponds
 	 *         to a cell on the board and indicates its current state.
 	 */
 	@Override
 	public String[][] getMap() {
+		if (map == null) {
+			map = new String[width][height];
+			for (int i = 0; i < cells.length; i++) {
+				map[i % width][i / width] = toName(cells[i]);
+			}
+		}
 		return map;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Retrieves the row-major cell-type grid backing the board.
+	 *
+	 * @return the live cell-type array, indexed by {@code y * width + x}
+	 */
+	@Override
+	public byte[] getCells() {
+		return cells;
+	}
+
+	/**
+	 * Retrieves the type of the cell at the given coordinates.
+	 *
+	 * @param x the x-coordinate of the cell
+	 * @param y the y-coordinate of the cell
+	 * @return one of {@link #EMPTY}, {@link #SNAKE}, {@link #APPLE} or {@link #WALL}
+	 */
+	@Override
+	public byte getCell(int x, int y) {
+		return cells[y * width + x];
+	}
+
+	/**
+	 * Retrieves the width of the game board.
+	 *
+	 * @return the number of columns on the board
+	 */
+	@Override
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Retrieves the height of the game board.
+	 *
+	 * @return the number of rows on the board
+	 */
+	@Override
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Retrieves how many cells were rewritten since the start of the last move.
+	 *
+	 * @return the number of entries in the dirty-cell list
+	 */
+	@Override
+	public int getDirtyCellCount() {
+		return dirtyCount;
+	}
+
+	/**
+	 * Retrieves an entry of the dirty-cell list as a packed index ({@code y * width + x}).
+	 *
+	 * @param i the position in the dirty-cell list, between 0 and {@link #getDirtyCellCount()}
+	 * @return the packed index of the dirty cell
+	 */
+	@Override
+	public int getDirtyCell(int i) {
+		if (i < 0 || i >= dirtyCount) {
+			throw new IndexOutOfBoundsException("Dirty cell " + i + " out of bounds for count " + dirtyCount);
+		}
+		return dirtyCells[i];
+	}
+
+	/**
+	 * Retrieves the x-coordinate of one of the dirty cells of the current tick.
+	 *
+	 * @param i the position in the dirty-cell list
+	 * @return the x-coordinate of the dirty cell
+	 */
+	@Override
+	public int getDirtyCellX(int i) {
+		return getDirtyCell(i) % width;
+	}
+
+	/**
+	 * Retrieves the y-coordinate of one of the dirty cells of the current tick.
+	 *
+	 * @param i the position in the dirty-cell list
+	 * @return the y-coordinate of the dirty cell
+	 */
+	@Override
+	public int getDirtyCellY(int i) {
+		return getDirtyCell(i) / width;
+	}
+
+	/**
+	 * Retrieves the snake currently on the board.
+	 *
+	 * @return the snake
+	 */
+	@Override
+	public Snake getSnake() {
+		return snake;
+	}
+
+	/**
+	 * Retrieves the apple currently on the board.
+	 *
+	 * @return the apple
+	 */
+	@Override
+	public Apple getApple() {
+		return apple;
+	}
+
+	/**
+	 * Retrieves the Zobrist hash of the board, combining the hash the snake keeps up to date as it
+	 * moves with the keys of the apple and of the growth flag.
+	 *
+	 * @return the hash of the position on the board
+	 */
+	@Override
+	public long getHash() {
+		long hash = snake.getHash() ^ Zobrist.apple((long) apple.getY() * width + apple.getX());
+		return snake.isGrowing() ? hash ^ Zobrist.GROWING : hash;
+	}
+
+	/**
+	 * Retrieves the seed the board's random number generator started from.
+	 *
+	 * @return the seed of the board
+	 */
+	@Override
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Retrieves the current state of the board's random number generator.
+	 *
+	 * @return the generator state
+	 */
+	@Override
+	public long getRandomState() {
+		return random.getState();
+	}
+
+	/**
+	 * Copies the free-cell index, in its current order, into the given array. Apples are drawn
+	 * by position in this order, so it is part of the state needed to reproduce future apples.
+	 *
+	 * @param target the array that receives the packed indices of the free cells; must hold
+	 *               at least {@code width * height - getSnake().getLength()} entries
+	 * @return the number of free cells copied
+	 */
+	public int copyFreeCells(int[] target) {
+		System.arraycopy(freeCells, 0, target, 0, freeCount);
+		return freeCount;
+	}
+
+	/**
+	 * Replaces the whole state of the board: the snake's body, the apple, the random number
+	 * generator and the order of the free-cell index. The grid and the free-cell index are
+	 * rebuilt from the new snake, which costs O(width * height), and the dirty-cell list is
+	 * cleared, so renderers must redraw everything.
+	 *
+	 * @param snakeCells   the packed cell indices of the snake, head first
+	 * @param snakeLength  the number of segments in {@code snakeCells}
+	 * @param snakeGrowing whether the snake grows on its next move
+	 * @param appleX       the x-coordinate of the apple
+	 * @param appleY       the y-coordinate of the apple
+	 * @param randomState  the state of the random number generator
+	 * @param freeOrder    the free cells in the order returned by {@link #copyFreeCells(int[])},
+	 *                     or null to rebuild them in index order, in which case later apples may
+	 *                     differ from the ones the original game would have produced
+	 */
+	public void restore(int[] snakeCells, int snakeLength, boolean snakeGrowing, int appleX, int appleY, long randomState,
+			int[] freeOrder) {
+		snake.restore(snakeCells, snakeLength, snakeGrowing);
+		random.setState(randomState);
+		Arrays.fill(cells, EMPTY);
+		fillWalls();
+		resetFreeCells();
+		for (int i = 0; i < snakeLength; i++) {
+			cells[snakeCells[i]] = SNAKE;
+			claimFreeCell(snakeCells[i]);
+		}
+		if (freeOrder != null) {
+			for (int i = 0; i < freeCount; i++) {
+				freeCells[i] = freeOrder[i];
+				freeSlots[freeOrder[i]] = i;
+			}
+		}
+		apple.setPosition(appleX, appleY);
+		if (cells[appleY * width + appleX] == EMPTY) {
+			cells[appleY * width + appleX] = APPLE;
+		}
+		if (map != null) {
+			for (int i = 0; i < cells.length; i++) {
+				map[i % width][i / width] = toName(cells[i]);
+			}
+		}
+		dirtyCount = 0;
+		undoDepth = 0;
+	}
+}
@@ -0,0 +1,39 @@
+package domain;
+
+/**
+ * The DenseBoard interface is implemented by game boards that store every cell, and adds the
+ * accessors that expose that storage as a whole. Its {@link #getMap()} is the one kept by the
+ * board rather than the copy {@link GameBoard} builds for other boards. Code that only needs
+ * single cells or the cells that changed should use {@link GameBoard#getCell(int, int)},
+ * {@link GameBoard#getDirtyCellX(int)} and {@link GameBoard#getDirtyCellY(int)} instead, which
+ * work on boards of any size.
+ */
+public interface DenseBoard extends GameBoard {
+	/**
+	 * Retrieves the current state of the game board as a 2D array of strings, kept up to date
+	 * by the board once it has been asked for, instead of being built on every call.
+	 *
+	 * @return a 2D array of strings representing the current game board state
+	 */
+	@Override
+	public abstract String[][] getMap();
+
+	/**
+	 * Retrieves the current state of the game board as a flat, row-major array of cell types,
+	 * where the cell at (x, y) is stored at index {@code y * getWidth() + x} and holds one of
+	 * {@link #EMPTY}, {@link #SNAKE}, {@link #APPLE} or {@link #WALL}. The array is the board's
+	 * live storage and must not be modified by callers.
+	 *
+	 * @return the row-major cell-type grid of the board
+	 */
+	public abstract byte[] getCells();
+
+	/**
+	 * Retrieves one of the dirty cells of the current tick as a packed row-major index
+	 * ({@code y * getWidth() + x}). A cell may appear more than once.
+	 *
+	 * @param i the position in the dirty-cell list, from 0 to {@code getDirtyCellCount() - 1}
+	 * @return the packed index of the dirty cell
+	 */
+	public abstract int getDirtyCell(int i);
+}
@@ -1,5 +1,11 @@
 package domain;
 
+import jdk.jfr.EventType;
+import metrics.GameMetrics;
+import metrics.GameUpdateEvent;
+
+import java.util.Arrays;
+
 /**
  * The Game class represents the logic and state of a grid-based game,
  * specifically managing the snake, the apple, and game progression.
@@ -7,10 +13,19 @@ package domain;
  * handle player inputs such as changing directions.
  */
 public class Game{
+	private static final int UNDO_GAME_OVER = 1 << 2;
+	private static final int UNDO_BOARD_MOVED = 1 << 3;
+	private static final int UNDO_ATE = 1 << 4;
+	private static final EventType UPDATE_EVENT = EventType.getEventType(GameUpdateEvent.class);
+
 	private boolean gameOver;
 	private int score;
 	private GameBoard gameBoard;
 	private Direction currentDirection;
+	private byte[] undoStates;
+	private int undoDepth;
+	private volatile GameMetrics metrics;
+	private volatile GameEventStream events;
 
 	/**
 	 * Constructs a Game instance that initializes the game's state and its components.
@@ -26,6 +41,58 @@ public class Game{
 		this.currentDirection = Direction.RIGHT;
 	}
 
+	/**
+	 * Constructs a Game instance on the default 20x20 board whose apples are placed from the
+	 * given seed, so that the same seed and the same moves always replay the same game.
+	 *
+	 * @param seed the seed of the board's random number generator
+	 */
+	public Game(long seed) {
+		this(new Board(20, 20, seed));
+	}
+
+	/**
+	 * Constructs a Game instance on a board of the given size. Boards of up to
+	 * {@link Board#MAX_CELLS} cells are kept as a dense {@link Board}; larger ones use a
+	 * {@link SparseBoard}, whose memory follows the length of the snake instead of the area.
+	 *
+	 * @param width  the number of columns of the board
+	 * @param height the number of rows of the board
+	 * @param seed   the seed of the board's random number generator
+	 */
+	public Game(int width, int height, long seed) {
+		this((long) width * height <= Board.MAX_CELLS
+				? new Board(width, height, seed)
+				: new SparseBoard(width, height, seed));
+	}
+
+	/**
+	 * Constructs a Game instance on a board laid out by the given level, with the snake on the
+	 * level's spawn point and moving in the level's initial direction.
+	 *
+	 * @param level the level to play
+	 * @param seed  the seed of the board's random number generator
+	 */
+	public Game(Level level, long seed) {
+		this(new Board(level, seed));
+		this.currentDirection = level.getDirection();
+	}
+
+	/**
+	 * Constructs a Game instance that plays on the given board instead of the default 20x20 one.
+	 *
+	 * The game starts with a score of zero, not over, and moving right, exactly like
+	 * {@link #Game()}.
+	 *
+	 * @param gameBoard the board the game is played on
+	 */
+	public Game(GameBoard gameBoard) {
+		this.gameOver = false;
+		this.score = 0;
+		this.gameBoard = gameBoard;
+		this.currentDirection = Direction.RIGHT;
+	}
+
 	/**
 	 * Updates the game's state by progressing the game forward, including moving the snake,
 	 * checking for apple consumption, and handling game-over conditions.
@@ -33,20 +100,208 @@ public class Game{
 	 * This method performs the following operations:
 	 * - If the game is not over, it moves the snake in the current direction by calling the
 	 *   {@code move} method on {@code gameBoard}.
-	 * - If the snake eats an apple after moving, the score is incremented, the snake grows
-	 *   by one segment, and a new apple is created on the game board.
+	 * - If the snake eats an apple after moving, and the move did not end the game, the score is
+	 *   incremented, the snake grows by one segment, and a new apple is created on the game board.
 	 * - If the snake collides with an obstacle or itself (as determined by {@code gameBoard.move}),
 	 *   the game ends by marking {@code gameOver} as {@code true}.
+	 *
+	 * While metrics are attached with {@link #setMetrics(GameMetrics)}, or a flight recording
+	 * has the {@link GameUpdateEvent} enabled, the same steps are timed one by one. While an
+	 * event stream is attached with {@link #setEventStream(GameEventStream)}, what the tick
+	 * changed is published on it.
 	 */
 	public void update() {
+		GameMetrics metrics = this.metrics;
+		if (metrics != null || UPDATE_EVENT.isEnabled()) {
+			updateMeasured(metrics);
+			return;
+		}
+		if (!gameOver) {
+			gameOver = gameBoard.move(currentDirection);
+			boolean ate = !gameOver && gameBoard.snakeAteApple();
+			if (ate) {
+				score++;
+				gameBoard.growSnake();
+				gameBoard.createApple();
+			}
+			GameEventStream events = this.events;
+			if (events != null) {
+				publishTick(events, ate);
+			}
+		}
+	}
+
+	private void updateMeasured(GameMetrics metrics) {
+		GameUpdateEvent event = new GameUpdateEvent();
+		event.begin();
+		long allocated = metrics != null ? GameMetrics.currentThreadAllocatedBytes() : 0;
+		long start = System.nanoTime();
+		boolean ate = false;
 		if (!gameOver) {
 			gameOver = gameBoard.move(currentDirection);
-			if (gameBoard.snakeAteApple()) {
+			long moved = System.nanoTime();
+			ate = !gameOver && gameBoard.snakeAteApple();
+			long checked = System.nanoTime();
+			if (metrics != null) {
+				metrics.recordPhase(GameMetrics.Phase.MOVE, moved - start);
+				metrics.recordPhase(GameMetrics.Phase.APPLE_CHECK, checked - moved);
+			}
+			if (ate) {
 				score++;
 				gameBoard.growSnake();
+				long grown = System.nanoTime();
 				gameBoard.createApple();
+				long spawned = System.nanoTime();
+				if (metrics != null) {
+					metrics.recordPhase(GameMetrics.Phase.GROW, grown - checked);
+					metrics.recordPhase(GameMetrics.Phase.SPAWN, spawned - grown);
+					metrics.recordSpawn();
+				}
+			}
+			GameEventStream events = this.events;
+			if (events != null) {
+				publishTick(events, ate);
+			}
+		}
+		long end = System.nanoTime();
+		if (metrics != null) {
+			metrics.recordPhase(GameMetrics.Phase.UPDATE, end - start);
+			long after = GameMetrics.currentThreadAllocatedBytes();
+			metrics.recordTick(gameBoard.getDirtyCellCount(), after < 0 ? -1 : after - allocated);
+		}
+		if (event.shouldCommit()) {
+			event.score = score;
+			event.snakeLength = gameBoard.getSnake().getLength();
+			event.ateApple = ate;
+			event.gameOver = gameOver;
+			event.cellsWritten = gameBoard.getDirtyCellCount();
+			event.commit();
+		}
+	}
+
+	/**
+	 * Publishes the events of the tick that was just played: the game over, or the head's move,
+	 * the freed tail cell and, if the snake ate, the apple, the score and the new apple.
+	 * The cells are read back from the snake and the apple, so every kind of board publishes
+	 * the same events.
+	 */
+	private void publishTick(GameEventStream events, boolean ate) {
+		Snake snake = gameBoard.getSnake();
+		int headX = snake.getHeadX();
+		int headY = snake.getHeadY();
+		if (gameOver) {
+			events.publish(GameEventType.GAME_OVER, headX, headY, score);
+			return;
+		}
+		long vacated = snake.vacatedIndex();
+		if (vacated >= 0) {
+			int width = gameBoard.getWidth();
+			events.publish(GameEventType.TAIL_REMOVED, (int) (vacated % width), (int) (vacated / width), 0);
+		}
+		events.publish(GameEventType.HEAD_MOVED, headX, headY, currentDirection.ordinal());
+		if (ate) {
+			events.publish(GameEventType.APPLE_EATEN, headX, headY, snake.getLength() + 1);
+			events.publish(GameEventType.SCORE_CHANGED, headX, headY, score);
+			Apple apple = gameBoard.getApple();
+			if (gameBoard.getCell(apple.getX(), apple.getY()) == GameBoard.APPLE) {
+				events.publish(GameEventType.APPLE_SPAWNED, apple.getX(), apple.getY(), 0);
+			}
+		}
+	}
+
+	/**
+	 * Attaches a stream that every following {@link #update()} publishes its changes on, or
+	 * detaches it. Moves played with {@link #makeMove(Direction)} and state replaced with
+	 * {@link #restore} are not published. Can be called from any thread, but the stream must only
+	 * be published on from the thread that updates the game.
+	 *
+	 * @param events the stream to publish on, or null to stop publishing
+	 */
+	public void setEventStream(GameEventStream events) {
+		this.events = events;
+	}
+
+	/**
+	 * Retrieves the stream the game publishes its changes on.
+	 *
+	 * @return the attached stream, or null if nothing is published
+	 */
+	public GameEventStream getEventStream() {
+		return events;
+	}
+
+	/**
+	 * Attaches metrics that every following {@link #update()} records into, or detaches them.
+	 * Can be called from any thread.
+	 *
+	 * @param metrics the metrics to record into, or null to stop measuring
+	 */
+	public void setMetrics(GameMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Retrieves the metrics the game records into.
+	 *
+	 * @return the attached metrics, or null if the game is not being measured
+	 */
+	public GameMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Plays one tick in the given direction and records how to revert it with
+	 * {@link #unmakeMove()}. The direction is applied with the same rules as
+	 * {@link #changeDirection(Direction)}, and the tick has the same effect as {@link #update()},
+	 * including the score. No objects are allocated once the undo stack is deep enough.
+	 *
+	 * @param direction the direction to try before moving
+	 * @return {@link GameBoard#MOVE_OK}, {@link GameBoard#MOVE_ATE} or {@link GameBoard#MOVE_DEAD};
+	 *         MOVE_DEAD is also returned, without moving, if the game was already over
+	 */
+	public int makeMove(Direction direction) {
+		if (undoStates == null) {
+			undoStates = new byte[64];
+		} else if (undoDepth == undoStates.length) {
+			undoStates = Arrays.copyOf(undoStates, undoDepth << 1);
+		}
+		int state = currentDirection.ordinal() | (gameOver ? UNDO_GAME_OVER : 0);
+		if (gameOver) {
+			undoStates[undoDepth++] = (byte) state;
+			return GameBoard.MOVE_DEAD;
+		}
+		undoStates[undoDepth++] = (byte) (state | UNDO_BOARD_MOVED);
+
+		changeDirection(direction);
+		int result = gameBoard.makeMove(currentDirection);
+		if (result == GameBoard.MOVE_DEAD) {
+			gameOver = true;
+		} else if (result == GameBoard.MOVE_ATE) {
+			score++;
+			undoStates[undoDepth - 1] |= UNDO_ATE;
+		}
+		return result;
+	}
+
+	/**
+	 * Reverts the most recent {@link #makeMove(Direction)}, restoring the score, the game-over
+	 * flag, the direction and the board.
+	 *
+	 * @throws IllegalStateException if there is no move to revert
+	 */
+	public void unmakeMove() {
+		if (undoDepth == 0) {
+			throw new IllegalStateException("No move to unmake");
+		}
+		int state = undoStates[--undoDepth];
+		if ((state & UNDO_BOARD_MOVED) != 0) {
+			gameBoard.unmakeMove();
+			if ((state & UNDO_ATE) != 0) {
+				score--;
 			}
 		}
+		gameOver = (state & UNDO_GAME_OVER) != 0;
+		currentDirection = Direction.values()[state & 3];
 	}
 
 	/**
@@ -60,6 +315,53 @@ public class Game{
 		}
 	}
 
+	/**
+	 * Retrieves the direction the snake will move in on the next update.
+	 *
+	 * @return the current direction of the snake
+	 */
+	public Direction getCurrentDirection() {
+		return currentDirection;
+	}
+
+	/**
+	 * Sets the direction of the snake without the reversal check of {@link #changeDirection}.
+	 * Several accepted turns within one tick can add up to a reversal, so tools that replay a
+	 * recorded direction must be able to apply it as it was.
+	 *
+	 * @param direction the direction the snake moves in on the next update
+	 */
+	public void setCurrentDirection(Direction direction) {
+		this.currentDirection = direction;
+	}
+
+	/**
+	 * Replaces the game's own state, typically together with {@link Board#restore}, to resume
+	 * a game from a saved point.
+	 *
+	 * @param score     the score to resume from
+	 * @param gameOver  whether the game had already ended
+	 * @param direction the direction the snake was moving in
+	 */
+	public void restore(int score, boolean gameOver, Direction direction) {
+		this.score = score;
+		this.gameOver = gameOver;
+		this.currentDirection = direction;
+		this.undoDepth = 0;
+	}
+
+	/**
+	 * Retrieves the Zobrist hash of the position: the board's {@link GameBoard#getHash() hash}
+	 * combined with the key of the current direction. Searches that reach the same body, apple,
+	 * growth and direction along different move orders get the same hash, so it can key a
+	 * transposition table. Playing and undoing moves keeps it up to date at no extra cost.
+	 *
+	 * @return the hash of the position
+	 */
+	public long getPositionHash() {
+		return gameBoard.getHash() ^ Zobrist.direction(currentDirection);
+	}
+
 	/**
 	 * Checks if the game is over.
 	 *
@@ -5,6 +5,41 @@ package domain;
  * and its entities, such as the apple and the snake, in a grid-based game like Snake.
  */
 public interface GameBoard {
+	/**
+	 * Cell type of an empty cell as returned by {@link #getCell(int, int)}.
+	 */
+	byte EMPTY = 0;
+
+	/**
+	 * Cell type of a cell covered by the snake as returned by {@link #getCell(int, int)}.
+	 */
+	byte SNAKE = 1;
+
+	/**
+	 * Cell type of the cell holding the apple as returned by {@link #getCell(int, int)}.
+	 */
+	byte APPLE = 2;
+
+	/**
+	 * Cell type of a wall of the board's {@link Level} as returned by {@link #getCell(int, int)}.
+	 */
+	byte WALL = 3;
+
+	/**
+	 * Result of {@link #makeMove(Direction)}: the snake moved without eating.
+	 */
+	int MOVE_OK = 0;
+
+	/**
+	 * Result of {@link #makeMove(Direction)}: the snake moved onto the apple and a new one was placed.
+	 */
+	int MOVE_ATE = 1;
+
+	/**
+	 * Result of {@link #makeMove(Direction)}: the move hit a wall or the snake, and nothing changed.
+	 */
+	int MOVE_DEAD = 2;
+
 	/**
 	 * Creates a new apple and places it on the game board at a random unoccupied position.
 	 * This method ensures that the new apple does not overlap with the positions occupied
@@ -24,6 +59,22 @@ public interface GameBoard {
 	 * Moves*/
 	public abstract boolean move(Direction currentDirection);
 
+	/**
+	 * Plays one tick in the given direction, including eating, growing and placing a new apple,
+	 * and records how to revert it with {@link #unmakeMove()}. Meant for bots that search ahead
+	 * on the live board instead of copying it.
+	 *
+	 * @param direction the direction to move in
+	 * @return {@link #MOVE_OK}, {@link #MOVE_ATE} or {@link #MOVE_DEAD}
+	 */
+	public abstract int makeMove(Direction direction);
+
+	/**
+	 * Reverts the most recent {@link #makeMove(Direction)}, restoring the snake, the apple, the
+	 * random number generator and every cell exactly as they were.
+	 */
+	public abstract void unmakeMove();
+
 	/**
 	 * Updates the position of the apple on the game board. This method
 	 * marks the specified coordinates on the game board to represent the
@@ -63,8 +114,119 @@ public interface GameBoard {
 	 * contain identifiers such as "snake" or "apple", or may be null if the cell
 	 * is empty.
 	 *
+	 * This default builds a new array from {@link #getCell(int, int)} on every call, so it only
+	 * suits boards whose cells fit in an array; a {@link DenseBoard} returns a map it keeps up to
+	 * date instead.
+	 *
 	 * @return a 2D array of strings representing the current game board state
+	 * @throws UnsupportedOperationException if the board has more than {@link Board#MAX_CELLS} cells
+	 */
+	public default String[][] getMap() {
+		int width = getWidth();
+		int height = getHeight();
+		if ((long) width * height > Board.MAX_CELLS) {
+			throw new UnsupportedOperationException("A " + width + "x" + height + " board is too large for a map of strings");
+		}
+		String[][] map = new String[width][height];
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				map[x][y] = switch (getCell(x, y)) {
+					case SNAKE -> "snake";
+					case APPLE -> "apple";
+					case WALL -> "wall";
+					default -> null;
+				};
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * Retrieves the type of a single cell on the game board.
+	 *
+	 * @param x the x-coordinate of the cell
+	 * @param y the y-coordinate of the cell
+	 * @return one of {@link #EMPTY}, {@link #SNAKE}, {@link #APPLE} or {@link #WALL}
+	 */
+	public abstract byte getCell(int x, int y);
+
+	/**
+	 * Retrieves the snake currently on the game board.
+	 *
+	 * @return the snake
+	 */
+	public abstract Snake getSnake();
+
+	/**
+	 * Retrieves the apple currently on the game board.
+	 *
+	 * @return the apple
+	 */
+	public abstract Apple getApple();
+
+	/**
+	 * Retrieves the seed of the random number generator that places the apples. Two boards
+	 * of the same size and seed produce the same apples when given the same moves.
+	 *
+	 * @return the seed of the board
+	 */
+	public abstract long getSeed();
+
+	/**
+	 * Retrieves the current state of the random number generator that places the apples.
+	 *
+	 * @return the generator state
+	 */
+	public abstract long getRandomState();
+
+	/**
+	 * Retrieves the width of the game board, i.e. the number of columns.
+	 *
+	 * @return the width of the game board
+	 */
+	public abstract int getWidth();
+
+	/**
+	 * Retrieves the height of the game board, i.e. the number of rows.
+	 *
+	 * @return the height of the game board
+	 */
+	public abstract int getHeight();
+
+	/**
+	 * Retrieves the number of cells whose contents changed since the start of the last move,
+	 * including any apple placed afterwards in the same tick. Renderers can repaint just these
+	 * cells instead of the whole map.
+	 *
+	 * @return the number of dirty cells for the current tick
+	 */
+	public abstract int getDirtyCellCount();
+
+	/**
+	 * Retrieves the x-coordinate of one of the dirty cells of the current tick, on boards of
+	 * any size.
+	 *
+	 * @param i the position in the dirty-cell list, from 0 to {@code getDirtyCellCount() - 1}
+	 * @return the x-coordinate of the dirty cell
 	 */
-	public abstract String[][] getMap();
+	public abstract int getDirtyCellX(int i);
 
+	/**
+	 * Retrieves the y-coordinate of one of the dirty cells of the current tick, on boards of
+	 * any size.
+	 *
+	 * @param i the position in the dirty-cell list, from 0 to {@code getDirtyCellCount() - 1}
+	 * @return the y-coordinate of the dirty cell
+	 */
+	public abstract int getDirtyCellY(int i);
+
+	/**
+	 * Retrieves the Zobrist hash of the board: the hash of the snake's body kept by
+	 * {@link Snake#getHash()}, the key of the apple's cell and, if the snake grows on its next
+	 * move, {@link Zobrist#GROWING}. Equal boards of the same level have equal hashes, and a move
+	 * or its undo changes the hash in constant time.
+	 *
+	 * @return the hash of the position on the board
+	 */
+	public abstract long getHash();
 }
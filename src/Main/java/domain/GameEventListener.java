@@ -0,0 +1,28 @@
+package domain;
+
+/**
+ * A GameEventListener receives the events drained from a {@link GameEventStream.Subscription}.
+ * Events arrive as primitives, so delivering them allocates nothing.
+ */
+@FunctionalInterface
+public interface GameEventListener {
+	/**
+	 * Handles one event.
+	 *
+	 * @param type  the kind of event
+	 * @param x     the column of the cell the event refers to
+	 * @param y     the row of the cell the event refers to
+	 * @param value the value of the event, whose meaning depends on the type
+	 */
+	public abstract void onEvent(GameEventType type, int x, int y, int value);
+
+	/**
+	 * Called before the next delivered event when the subscription fell so far behind that the
+	 * stream overwrote events it had not read. Listeners that keep a copy of the board should
+	 * rebuild it from the game. Does nothing by default.
+	 *
+	 * @param count the number of events that were lost
+	 */
+	public default void onEventsLost(long count) {
+	}
+}
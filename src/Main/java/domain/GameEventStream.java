@@ -0,0 +1,195 @@
+package domain;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The GameEventStream is a preallocated ring buffer of {@link GameEventType typed} events
+ * that a {@link Game} publishes as it plays, so that renderers, recorders and metrics can
+ * follow the game from what changed instead of rescanning the board every tick.
+ *
+ * Each event takes four ints of a single array and is numbered by a sequence. One thread
+ * publishes; any number of {@link Subscription}s, each on its own thread, read at their own
+ * pace by draining batches of events into a {@link GameEventListener}. Publishing never waits
+ * for subscribers: a subscription that falls more than a buffer behind skips to the oldest event
+ * still held and is told how many it lost. Neither side allocates or takes a lock.
+ *
+ * Before writing a slot the publisher announces the sequence it is about to overwrite, and a
+ * subscriber checks that announcement after reading the slot, so it never delivers an event
+ * that was overwritten while it was being read.
+ */
+public class GameEventStream {
+	private static final int SLOT_INTS = 4;
+	private static final GameEventType[] TYPES = GameEventType.values();
+
+	private final int[] slots;
+	private final int capacity;
+	private final int mask;
+	private final AtomicLong claimed = new AtomicLong();
+	private final AtomicLong published = new AtomicLong();
+	private long next;
+
+	/**
+	 * Constructs a stream that holds the given number of unread events.
+	 *
+	 * @param capacity the number of events held, rounded up to a power of two
+	 */
+	public GameEventStream(int capacity) {
+		if (capacity <= 0 || capacity > 1 << 28) {
+			throw new IllegalArgumentException("Capacity must be between 1 and 2^28: " + capacity);
+		}
+		this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+		this.mask = this.capacity - 1;
+		this.slots = new int[this.capacity * SLOT_INTS];
+	}
+
+	/**
+	 * Appends an event. Must only be called from the publishing thread.
+	 *
+	 * @param type  the kind of event
+	 * @param x     the column of the cell the event refers to
+	 * @param y     the row of the cell the event refers to
+	 * @param value the value of the event
+	 */
+	public void publish(GameEventType type, int x, int y, int value) {
+		long sequence = next;
+		claimed.setOpaque(sequence + 1);
+		VarHandle.storeStoreFence();
+		int slot = (int) (sequence & mask) * SLOT_INTS;
+		slots[slot] = type.ordinal();
+		slots[slot + 1] = x;
+		slots[slot + 2] = y;
+		slots[slot + 3] = value;
+		next = sequence + 1;
+		published.setRelease(next);
+	}
+
+	/**
+	 * Creates a subscription that receives every event published from now on.
+	 *
+	 * @return a new subscription
+	 */
+	public Subscription subscribe() {
+		return new Subscription(published.getAcquire());
+	}
+
+	/**
+	 * Retrieves the number of events held before the oldest is overwritten.
+	 *
+	 * @return the capacity of the buffer
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Retrieves how many events have been published.
+	 *
+	 * @return the sequence of the next event
+	 */
+	public long getPublishedCount() {
+		return published.getAcquire();
+	}
+
+	/**
+	 * A Subscription is one reader's position in the stream. It must only be drained by one
+	 * thread at a time.
+	 */
+	public class Subscription {
+		private long cursor;
+		private long lost;
+
+		private Subscription(long cursor) {
+			this.cursor = cursor;
+		}
+
+		/**
+		 * Delivers every event published since the previous drain.
+		 *
+		 * @param listener the listener that receives the events
+		 * @return the number of events delivered
+		 */
+		public int drain(GameEventListener listener) {
+			return drain(listener, Integer.MAX_VALUE);
+		}
+
+		/**
+		 * Delivers the events published since the previous drain, oldest first, up to a limit.
+		 * The published sequence is read once per batch, so a drain costs one acquiring read
+		 * plus one check per event.
+		 *
+		 * @param listener the listener that receives the events
+		 * @param max      the largest number of events to deliver
+		 * @return the number of events delivered
+		 */
+		public int drain(GameEventListener listener, int max) {
+			int drained = 0;
+			while (drained < max) {
+				long available = published.getAcquire();
+				if (cursor >= available) {
+					break;
+				}
+				skipOverwritten(listener, claimed.getOpaque() - capacity);
+				long end = Math.min(available, cursor + (max - drained));
+				while (cursor < end) {
+					int slot = (int) (cursor & mask) * SLOT_INTS;
+					int type = slots[slot];
+					int x = slots[slot + 1];
+					int y = slots[slot + 2];
+					int value = slots[slot + 3];
+					VarHandle.loadLoadFence();
+					long overwrite = claimed.getOpaque() - capacity;
+					if (cursor < overwrite) {
+						skipOverwritten(listener, overwrite);
+						break;
+					}
+					cursor++;
+					drained++;
+					listener.onEvent(TYPES[type], x, y, value);
+				}
+			}
+			return drained;
+		}
+
+		/**
+		 * Moves the subscription forward to the given sequence without delivering the events
+		 * before it, for a reader that caught up by other means, such as a copy of the board taken
+		 * at that sequence. Skipped events do not count as lost; a sequence before the current
+		 * position is ignored.
+		 *
+		 * @param sequence the sequence of the next event to deliver
+		 */
+		public void skipTo(long sequence) {
+			if (sequence > cursor) {
+				cursor = Math.min(sequence, published.getAcquire());
+			}
+		}
+
+		/**
+		 * Retrieves how many published events this subscription has not drained yet.
+		 *
+		 * @return the number of pending events, which may exceed the capacity if some were lost
+		 */
+		public long getPending() {
+			return published.getAcquire() - cursor;
+		}
+
+		/**
+		 * Retrieves how many events this subscription lost by falling behind.
+		 *
+		 * @return the number of lost events
+		 */
+		public long getLostCount() {
+			return lost;
+		}
+
+		private void skipOverwritten(GameEventListener listener, long oldest) {
+			if (cursor < oldest) {
+				long count = oldest - cursor;
+				cursor = oldest;
+				lost += count;
+				listener.onEventsLost(count);
+			}
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package domain;
+
+/**
+ * The kinds of event a {@link Game} publishes on a {@link GameEventStream}. Each event carries a
+ * cell and a value; their meaning depends on the type.
+ */
+public enum GameEventType {
+	/** The head entered the cell; the value is the ordinal of the {@link Direction} it moved in. */
+	HEAD_MOVED,
+	/** The tail left the cell, which is now empty; the value is 0. */
+	TAIL_REMOVED,
+	/**
+	 * The head ate the apple on the cell; the value is the new length of the snake, which it
+	 * reaches on its next move, when the tail stays put.
+	 */
+	APPLE_EATEN,
+	/** A new apple was placed on the cell; the value is 0. */
+	APPLE_SPAWNED,
+	/** The score changed; the cell is the head and the value is the new score. */
+	SCORE_CHANGED,
+	/** The snake hit a wall or itself; the cell is the head and the value is the final score. */
+	GAME_OVER
+}
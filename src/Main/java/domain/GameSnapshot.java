@@ -0,0 +1,86 @@
+package domain;
+
+/**
+ * The GameSnapshot class holds a complete copy of a game's state in preallocated buffers, so
+ * that a game can be saved and restored any number of times without allocating.
+ *
+ * A snapshot is sized for one board size and can be reused for any game on a {@link Board} of
+ * that size. Restoring brings back the snake, the apple, the score, the direction, the
+ * game-over flag, the random number generator and the order of the free-cell index, so the
+ * restored game continues exactly as the captured one would have.
+ */
+public class GameSnapshot {
+	private final int width;
+	private final int height;
+	private final int[] snakeCells;
+	private final int[] freeCells;
+	private int snakeLength;
+	private boolean snakeGrowing;
+	private int appleX;
+	private int appleY;
+	private long randomState;
+	private int score;
+	private boolean gameOver;
+	private Direction direction;
+	private boolean captured;
+
+	/**
+	 * Constructs an empty snapshot for boards of the given size.
+	 *
+	 * @param width  the width of the boards this snapshot can hold
+	 * @param height the height of the boards this snapshot can hold
+	 */
+	public GameSnapshot(int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.snakeCells = new int[width * height];
+		this.freeCells = new int[width * height];
+	}
+
+	/**
+	 * Copies the state of the game into this snapshot, replacing what it held before.
+	 *
+	 * @param game the game to capture
+	 */
+	public void capture(Game game) {
+		Board board = boardOf(game);
+		Snake snake = board.getSnake();
+		snakeLength = snake.getLength();
+		for (int i = 0; i < snakeLength; i++) {
+			snakeCells[i] = snake.getCell(i);
+		}
+		snakeGrowing = snake.isGrowing();
+		board.copyFreeCells(freeCells);
+		appleX = board.getApple().getX();
+		appleY = board.getApple().getY();
+		randomState = board.getRandomState();
+		score = game.getScore();
+		gameOver = game.isGameOver();
+		direction = game.getCurrentDirection();
+		captured = true;
+	}
+
+	/**
+	 * Puts the game back in the captured state. The board's grid is rebuilt, which costs
+	 * O(width * height), and any pending {@code makeMove} history is discarded.
+	 *
+	 * @param game the game to restore, which may be a different game than the captured one
+	 * @throws IllegalStateException if nothing has been captured yet
+	 */
+	public void restore(Game game) {
+		if (!captured) {
+			throw new IllegalStateException("Nothing has been captured in this snapshot");
+		}
+		Board board = boardOf(game);
+		board.restore(snakeCells, snakeLength, snakeGrowing, appleX, appleY, randomState, freeCells);
+		game.restore(score, gameOver, direction);
+	}
+
+	private Board boardOf(Game game) {
+		if (!(game.getGameBoard() instanceof Board board)
+				|| board.getWidth() != width || board.getHeight() != height) {
+			throw new IllegalArgumentException("Snapshot holds " + width + "x" + height + " boards only");
+		}
+		return board;
+	}
+}
@@ -0,0 +1,204 @@
+package domain;
+
+/**
+ * A Level describes the board a game starts on: its size, its walls, the cell the snake starts
+ * on and the direction it starts moving in.
+ *
+ * The walls are kept as a packed collision bitmap with one bit per cell: cell (x, y) has the
+ * index {@code i = y * width + x} and is a wall if bit {@code i % 64} of word {@code i / 64} is set. A
+ * {@link Board} shares the bitmap of its level instead of copying it, and tests a move against it
+ * with a single bit lookup. Levels are immutable and can be shared by any number of boards.
+ */
+public final class Level {
+	private final int width;
+	private final int height;
+	private final int spawnX;
+	private final int spawnY;
+	private final Direction direction;
+	private final long[] walls;
+	private final int wallCount;
+
+	/**
+	 * Constructs a level from its collision bitmap.
+	 *
+	 * @param width     the number of columns of the board
+	 * @param height    the number of rows of the board
+	 * @param spawnX    the column the snake starts on
+	 * @param spawnY    the row the snake starts on
+	 * @param direction the direction the snake starts moving in
+	 * @param walls     the collision bitmap, {@link #wordCount(int, int)} words long; it is copied
+	 * @throws IllegalArgumentException if the size, spawn point or bitmap are not valid
+	 */
+	public Level(int width, int height, int spawnX, int spawnY, Direction direction, long[] walls) {
+		if (width <= 0 || height <= 0 || (long) width * height > Board.MAX_CELLS) {
+			throw new IllegalArgumentException("Invalid level size: " + width + "x" + height);
+		}
+		if (walls.length != wordCount(width, height)) {
+			throw new IllegalArgumentException("A " + width + "x" + height + " level needs " + wordCount(width, height)
+					+ " bitmap words, got " + walls.length);
+		}
+		int cells = width * height;
+		if ((cells & 63) != 0 && walls[walls.length - 1] >>> (cells & 63) != 0) {
+			throw new IllegalArgumentException("Bitmap has walls beyond the last cell");
+		}
+		if (spawnX < 0 || spawnX >= width || spawnY < 0 || spawnY >= height) {
+			throw new IllegalArgumentException("Spawn point outside the board: " + spawnX + "," + spawnY);
+		}
+		this.width = width;
+		this.height = height;
+		this.spawnX = spawnX;
+		this.spawnY = spawnY;
+		this.direction = direction;
+		this.walls = walls.clone();
+		if (isWall(spawnX, spawnY)) {
+			throw new IllegalArgumentException("Spawn point is a wall: " + spawnX + "," + spawnY);
+		}
+		int count = 0;
+		for (long word : this.walls) {
+			count += Long.bitCount(word);
+		}
+		this.wallCount = count;
+	}
+
+	/**
+	 * Builds a level from rows of text: {@code '#'} is a wall, one of {@code '^'}, {@code '>'},
+	 * {@code 'v'} or {@code '<'} marks the spawn point and the direction the snake starts moving
+	 * in, and any other character is an empty cell. Every row must have the same length.
+	 *
+	 * @param rows the rows of the board, top first
+	 * @return the level the rows describe
+	 * @throws IllegalArgumentException if the rows are ragged or there is not exactly one spawn point
+	 */
+	public static Level fromRows(String... rows) {
+		int height = rows.length;
+		int width = height > 0 ? rows[0].length() : 0;
+		long[] walls = new long[wordCount(width, height)];
+		int spawnX = -1;
+		int spawnY = -1;
+		Direction direction = null;
+		for (int y = 0; y < height; y++) {
+			if (rows[y].length() != width) {
+				throw new IllegalArgumentException("Row " + y + " has " + rows[y].length() + " cells, expected " + width);
+			}
+			for (int x = 0; x < width; x++) {
+				char c = rows[y].charAt(x);
+				Direction spawn = switch (c) {
+					case '^' -> Direction.UP;
+					case '>' -> Direction.RIGHT;
+					case 'v' -> Direction.DOWN;
+					case '<' -> Direction.LEFT;
+					default -> null;
+				};
+				if (c == '#') {
+					int index = y * width + x;
+					walls[index >>> 6] |= 1L << index;
+				} else if (spawn != null) {
+					if (direction != null) {
+						throw new IllegalArgumentException("More than one spawn point");
+					}
+					spawnX = x;
+					spawnY = y;
+					direction = spawn;
+				}
+			}
+		}
+		if (direction == null) {
+			throw new IllegalArgumentException("No spawn point");
+		}
+		return new Level(width, height, spawnX, spawnY, direction, walls);
+	}
+
+	/**
+	 * Computes how many 64-bit words the collision bitmap of a board takes.
+	 *
+	 * @param width  the number of columns of the board
+	 * @param height the number of rows of the board
+	 * @return the number of words of the bitmap
+	 */
+	public static int wordCount(int width, int height) {
+		return (int) (((long) width * height + 63) >>> 6);
+	}
+
+	/**
+	 * Determines whether a cell is a wall.
+	 *
+	 * @param x the column of the cell
+	 * @param y the row of the cell
+	 * @return true if the cell is a wall
+	 */
+	public boolean isWall(int x, int y) {
+		int index = y * width + x;
+		return (walls[index >>> 6] & 1L << index) != 0;
+	}
+
+	/**
+	 * Retrieves one word of the collision bitmap.
+	 *
+	 * @param i the index of the word, from 0 to {@code wordCount(getWidth(), getHeight()) - 1}
+	 * @return the walls of cells {@code 64 * i} to {@code 64 * i + 63}, one bit each
+	 */
+	public long getWallWord(int i) {
+		return walls[i];
+	}
+
+	/**
+	 * Retrieves the collision bitmap itself, for boards to share without copying.
+	 */
+	long[] walls() {
+		return walls;
+	}
+
+	/**
+	 * Retrieves the number of columns of the board.
+	 *
+	 * @return the width of the level
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Retrieves the number of rows of the board.
+	 *
+	 * @return the height of the level
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Retrieves the column the snake starts on.
+	 *
+	 * @return the x-coordinate of the spawn point
+	 */
+	public int getSpawnX() {
+		return spawnX;
+	}
+
+	/**
+	 * Retrieves the row the snake starts on.
+	 *
+	 * @return the y-coordinate of the spawn point
+	 */
+	public int getSpawnY() {
+		return spawnY;
+	}
+
+	/**
+	 * Retrieves the direction the snake starts moving in.
+	 *
+	 * @return the initial direction
+	 */
+	public Direction getDirection() {
+		return direction;
+	}
+
+	/**
+	 * Retrieves the number of walls of the level.
+	 *
+	 * @return the number of cells that are walls
+	 */
+	public int getWallCount() {
+		return wallCount;
+	}
+}
@@ -0,0 +1,62 @@
+package domain;
+
+/**
+ * The SeededRandom class is the random number generator used for apple placement.
+ *
+ * It implements SplitMix64: the whole state is one {@code long}, which can be read and
+ * restored, so a game can be reproduced from its seed and resumed from a snapshot.
+ * {@link java.util.Random} hides its state and cannot do the latter.
+ */
+public class SeededRandom {
+	private long state;
+
+	/**
+	 * Constructs a generator from a seed. The same seed always yields the same sequence.
+	 *
+	 * @param seed the initial state of the generator
+	 */
+	public SeededRandom(long seed) {
+		this.state = seed;
+	}
+
+	/**
+	 * Returns the next pseudorandom 64-bit value.
+	 *
+	 * @return the next value of the sequence
+	 */
+	public long nextLong() {
+		long z = (state += 0x9E3779B97F4A7C15L);
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Returns a pseudorandom value between 0 (inclusive) and the bound (exclusive),
+	 * using a multiply-and-shift reduction of the upper 32 bits of {@link #nextLong()}.
+	 *
+	 * @param bound the upper bound, which must be positive
+	 * @return the next value in {@code [0, bound)}
+	 */
+	public int nextInt(int bound) {
+		return (int) (((nextLong() >>> 32) * bound) >>> 32);
+	}
+
+	/**
+	 * Retrieves the current state of the generator.
+	 *
+	 * @return the state, which passed to {@link #setState(long)} resumes the sequence from this point
+	 */
+	public long getState() {
+		return state;
+	}
+
+	/**
+	 * Restores a state previously returned by {@link #getState()}.
+	 *
+	 * @param state the state to resume from
+	 */
+	public void setState(long state) {
+		this.state = state;
+	}
+}
@@ -1,14 +1,39 @@
 package domain;
 
-import java.util.LinkedList;
+import java.util.AbstractList;
+import java.util.List;
 
 /**
  * The Snake class represents a snake in a grid-based game.
  * It manages the snake's body, movement, growth, and collision detection.
+ *
+ * The body is stored as a ring buffer of packed cell indices ({@code y * width + x}),
+ * with the head at {@code head} and the tail {@code length - 1} slots after it.
+ * An occupancy set mirrors the cells covered by the body, so moving the head,
+ * dropping the tail and checking for collisions are all constant time and do not
+ * allocate once the buffer has reached the snake's length.
+ *
+ * On grids of up to {@value #DENSE_LIMIT} cells the occupancy set is a dense bitset. On larger
+ * grids it is a {@link TileSet} that only holds the tiles the body covers, so the memory a snake
+ * needs follows its length rather than the size of the grid. Packed indices are kept as longs,
+ * since a grid of 50,000 by 50,000 cells has more cells than an int can count.
  */
 public class Snake {
-	private LinkedList<int[]> body;
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** Largest grid, in cells, whose occupancy is kept in a dense bitset. */
+	public static final long DENSE_LIMIT = 1L << 24;
+
+	private final int width;
+	private final long[] occupied;
+	private final TileSet tiles;
+	private long[] cells;
+	private int mask;
+	private int head;
+	private int length;
+	private long vacated;
 	private boolean shouldGrow;
+	private long links;
 
 	/**
 	 * Constructs a Snake object with an initial position on a grid.
@@ -16,12 +41,23 @@ public class Snake {
 	 * The snake is initialized with a single segment at the specified position,
 	 * and it is not set to grow initially.
 	 *
-	 * @param x the x-coordinate of the initial position of the snake
-	 * @param y the y-coordinate of the initial position of the snake
+	 * @param x      the x-coordinate of the initial position of the snake
+	 * @param y      the y-coordinate of the initial position of the snake
+	 * @param width  the width of the grid the snake lives on
+	 * @param height the height of the grid the snake lives on
 	 */
-	public Snake(int x, int y) {
-		this.body = new LinkedList<>();
-		this.body.add(new int[]{x, y});
+	public Snake(int x, int y, int width, int height) {
+		long area = (long) width * height;
+		this.width = width;
+		this.occupied = area <= DENSE_LIMIT ? new long[(int) ((area + 63) >>> 6)] : null;
+		this.tiles = area <= DENSE_LIMIT ? null : new TileSet();
+		this.cells = new long[(int) Math.min(INITIAL_CAPACITY, ceilPowerOfTwo(area))];
+		this.mask = cells.length - 1;
+		this.head = 0;
+		this.length = 1;
+		this.cells[0] = (long) y * width + x;
+		setOccupied(cells[0]);
+		this.vacated = -1;
 		this.shouldGrow = false;
 	}
 
@@ -35,67 +71,315 @@ public class Snake {
 	 * @param newX the new x-coordinate of the snake's head position
 	 */
 	public void move(int newX, int newY, boolean ateApple) {
-		body.addFirst(new int[]{newX, newY});
+		long oldHead = cells[head];
 		if (!shouldGrow) {
-			body.removeLast();
+			vacated = cells[(head + length - 1) & mask];
+			clearOccupied(vacated);
+			length--;
+			if (length > 0) {
+				links ^= Zobrist.link(cells[(head + length - 1) & mask], vacated);
+			}
 		} else {
+			vacated = -1;
 			shouldGrow = false;
+			if (length == cells.length) {
+				expand();
+			}
 		}
 
+		long index = (long) newY * width + newX;
+		if (length > 0) {
+			links ^= Zobrist.link(index, oldHead);
+		}
+		head = (head - 1) & mask;
+		cells[head] = index;
+		length++;
+		setOccupied(index);
+
 		if (ateApple) {
 			shouldGrow = true;
 		}
 	}
 
+	/**
+	 * Reverts the last call to {@link #move}, restoring the exact previous body and growth state.
+	 *
+	 * @param vacatedTail      the value {@link #getVacatedCell()} returned right after that move
+	 * @param wasGrowing       the value {@link #isGrowing()} returned right before that move
+	 * @param previousVacated  the value {@link #getVacatedCell()} returned right before that move
+	 */
+	public void undoMove(long vacatedTail, boolean wasGrowing, long previousVacated) {
+		long newHead = cells[head];
+		clearOccupied(newHead);
+		head = (head + 1) & mask;
+		length--;
+		if (length > 0) {
+			links ^= Zobrist.link(newHead, cells[head]);
+		}
+		if (vacatedTail >= 0) {
+			if (length > 0) {
+				links ^= Zobrist.link(cells[(head + length - 1) & mask], vacatedTail);
+			}
+			cells[(head + length) & mask] = vacatedTail;
+			length++;
+			setOccupied(vacatedTail);
+		}
+		shouldGrow = wasGrowing;
+		vacated = previousVacated;
+	}
+
+	/**
+	 * Retrieves the Zobrist hash of the body: the XOR of {@link Zobrist#link} for every pair of
+	 * consecutive segments, {@link Zobrist#head} for the head and {@link Zobrist#tail} for the tail.
+	 * The links are updated as the head is added and the tail removed, so the hash is kept in
+	 * constant time, and since following them from the head retraces the body, two bodies only
+	 * hash alike if they cover the same cells in the same order.
+	 *
+	 * @return the hash of the snake's body
+	 */
+	public long getHash() {
+		return links ^ Zobrist.head(cells[head]) ^ Zobrist.tail(cells[(head + length - 1) & mask]);
+	}
+
 	/**
 	 * Checks whether the given coordinates collide with any segment of the snake's body, excluding the head.
 	 *
-	 * This method iterates through the snake's body starting from the segment after the head,
-	 * and compares the provided coordinates with each segment's position to determine if a collision occurs.
+	 * The lookup is a single bit test against the occupancy set, so its cost does not
+	 * depend on the length of the snake.
 	 *
 	 * @param x the x-coordinate to check for collision
 	 * @param y the y-coordinate to check for collision
 	 * @return true if the provided coordinates collide with any segment of the snake's body (excluding the head), false otherwise
 	 */
 	public boolean collidesWith(int x, int y) {
-		for (int i = 1; i < body.size(); i++) {
-			int[] segment = body.get(i);
-			if (segment[0] == x && segment[1] == y) {
-				return true;
-			}
-		}
-		return false;
+		long index = (long) y * width + x;
+		return index != cells[head] && isOccupied(index);
 	}
+
+	/**
+	 * Determines whether any segment of the snake, including the head, covers the given cell.
+	 *
+	 * @param x the x-coordinate to check
+	 * @param y the y-coordinate to check
+	 * @return true if the cell is covered by the snake, false otherwise
+	 */
+	public boolean occupies(int x, int y) {
+		return isOccupied((long) y * width + x);
+	}
+
 	/**
 	 * Sets the snake to grow, causing it to increase in length in the next movement.
 	 */
 	public void grow() {
 		shouldGrow = true;
 	}
+
+	/**
+	 * Determines whether the snake will grow on its next move.
+	 *
+	 * @return true if the next move keeps the tail in place, false otherwise
+	 */
+	public boolean isGrowing() {
+		return shouldGrow;
+	}
+
+	/**
+	 * Replaces the body of the snake with the given segments.
+	 *
+	 * @param segments the packed cell indices of the new body, head first
+	 * @param length   the number of segments to take from {@code segments}
+	 * @param growing  whether the snake grows on its next move
+	 */
+	public void restore(int[] segments, int length, boolean growing) {
+		for (int i = 0; i < this.length; i++) {
+			clearOccupied(cells[(head + i) & mask]);
+		}
+		if (cells.length < length + 1) {
+			cells = new long[(int) ceilPowerOfTwo(length + 1)];
+			mask = cells.length - 1;
+		}
+		head = 0;
+		links = 0;
+		for (int i = 0; i < length; i++) {
+			cells[i] = segments[i];
+			setOccupied(segments[i]);
+			if (i > 0) {
+				links ^= Zobrist.link(segments[i - 1], segments[i]);
+			}
+		}
+		this.length = length;
+		this.vacated = -1;
+		this.shouldGrow = growing;
+	}
+
 	/**
 	 * Retrieves the current position of the snake's head.
 	 *
 	 * The head position is represented by an array of integers,
 	 * where the first element represents the x-coordinate and the second element represents the y-coordinate.
+	 * A new array is returned on every call; hot paths should prefer {@link #getHeadX()} and {@link #getHeadY()}.
 	 *
 	 * @return an array of integers representing the position of the snake's head
 	 */
-	@SuppressWarnings("unchecked")
 	public int[] getHead() {
-		return body.getFirst();
+		return segmentAt(0);
+	}
+
+	/**
+	 * Retrieves the x-coordinate of the snake's head without allocating.
+	 *
+	 * @return the x-coordinate of the head
+	 */
+	public int getHeadX() {
+		return (int) (cells[head] % width);
+	}
+
+	/**
+	 * Retrieves the y-coordinate of the snake's head without allocating.
+	 *
+	 * @return the y-coordinate of the head
+	 */
+	public int getHeadY() {
+		return (int) (cells[head] / width);
+	}
+
+	/**
+	 * Retrieves the packed cell index ({@code y * width + x}) of the segment at the given position,
+	 * where 0 is the head and {@code getLength() - 1} is the tail.
+	 *
+	 * @param i the position of the segment along the body
+	 * @return the packed cell index of that segment
+	 * @throws ArithmeticException if the grid has more cells than an int can index;
+	 *                             {@link #getX(int)} and {@link #getY(int)} work on any grid
+	 */
+	public int getCell(int i) {
+		return Math.toIntExact(cellIndex(i));
+	}
+
+	/**
+	 * Retrieves the x-coordinate of the segment at the given position, where 0 is the head.
+	 *
+	 * @param i the position of the segment along the body
+	 * @return the x-coordinate of that segment
+	 */
+	public int getX(int i) {
+		return (int) (cellIndex(i) % width);
+	}
+
+	/**
+	 * Retrieves the y-coordinate of the segment at the given position, where 0 is the head.
+	 *
+	 * @param i the position of the segment along the body
+	 * @return the y-coordinate of that segment
+	 */
+	public int getY(int i) {
+		return (int) (cellIndex(i) / width);
+	}
+
+	/**
+	 * Retrieves the packed cell index of the tail segment dropped by the last call to {@link #move},
+	 * or -1 if the snake grew on that move and no cell was freed.
+	 *
+	 * @return the packed cell index vacated by the last move, or -1
+	 * @throws ArithmeticException if the grid has more cells than an int can index
+	 */
+	public int getVacatedCell() {
+		return Math.toIntExact(vacated);
+	}
+
+	/**
+	 * Retrieves the packed index of a segment as a long, valid on grids of any size.
+	 */
+	long cellIndex(int i) {
+		if (i < 0 || i >= length) {
+			throw new IndexOutOfBoundsException("Segment " + i + " out of bounds for length " + length);
+		}
+		return cells[(head + i) & mask];
+	}
+
+	/**
+	 * Retrieves the packed index vacated by the last move as a long, or -1.
+	 */
+	long vacatedIndex() {
+		return vacated;
+	}
+
+	/**
+	 * Retrieves the number of segments that make up the snake.
+	 *
+	 * @return the length of the snake
+	 */
+	public int getLength() {
+		return length;
 	}
 
 	/**
 	 * Retrieves the current body of the snake.
 	 *
-	 * The body is represented as a list of integer arrays, where
+	 * The body is represented as a read-only list of integer arrays, where
 	 * each array consists of two integers indicating the x and y
 	 * coordinates of a segment of the snake on the grid. The first
-	 * element in the list represents the head of the snake.
+	 * element in the list represents the head of the snake. The list is a live
+	 * view over the ring buffer and builds each coordinate pair on access.
 	 *
-	 * @return a LinkedList of integer arrays representing the coordinates of the snake's body
+	 * @return a read-only list of integer arrays representing the coordinates of the snake's body
+	 */
+	public List<int[]> getBody() {
+		return new AbstractList<>() {
+			@Override
+			public int[] get(int i) {
+				return segmentAt(i);
+			}
+
+			@Override
+			public int size() {
+				return length;
+			}
+		};
+	}
+
+	private int[] segmentAt(int i) {
+		long index = cellIndex(i);
+		return new int[]{(int) (index % width), (int) (index / width)};
+	}
+
+	/**
+	 * Doubles the ring buffer, unrolling it so that the head sits at slot 0 again.
 	 */
-	public LinkedList<int[]> getBody() {
-		return body;
+	private void expand() {
+		long[] grown = new long[cells.length << 1];
+		for (int i = 0; i < length; i++) {
+			grown[i] = cells[(head + i) & mask];
+		}
+		cells = grown;
+		mask = grown.length - 1;
+		head = 0;
+	}
+
+	private boolean isOccupied(long index) {
+		if (occupied != null) {
+			return (occupied[(int) (index >>> 6)] & (1L << index)) != 0;
+		}
+		return tiles.contains((int) (index % width), (int) (index / width));
+	}
+
+	private void setOccupied(long index) {
+		if (occupied != null) {
+			occupied[(int) (index >>> 6)] |= 1L << index;
+		} else {
+			tiles.add((int) (index % width), (int) (index / width));
+		}
+	}
+
+	private void clearOccupied(long index) {
+		if (occupied != null) {
+			occupied[(int) (index >>> 6)] &= ~(1L << index);
+		} else {
+			tiles.remove((int) (index % width), (int) (index / width));
+		}
+	}
+
+	private static long ceilPowerOfTwo(long n) {
+		return n <= 1 ? 1 : Long.highestOneBit(n - 1) << 1;
 	}
-}
\ No newline at end of file
+}
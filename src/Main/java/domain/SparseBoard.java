@@ -0,0 +1,346 @@
+package domain;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The SparseBoard class is a game board for arenas far too large to store cell by cell, such as
+ * 50,000 by 50,000 cells.
+ *
+ * It keeps no grid at all: a cell holds the apple if it is the apple's position, the snake if the
+ * snake's occupancy set says so, and is empty otherwise. The snake's occupancy set is made of
+ * 64x64 tiles that only exist while the snake covers them (see {@link Snake}), so the memory of
+ * the whole board follows the length of the snake rather than the area of the arena. Apples are
+ * placed by drawing random cells until one is free, which nearly always takes a single draw
+ * because the snake covers a tiny fraction of the arena.
+ *
+ * Unlike {@link Board} it is not a {@link DenseBoard}: renderers read the cells around the snake
+ * with {@link #getCell(int, int)} and the changes of each tick with {@link #getDirtyCellX(int)}
+ * and {@link #getDirtyCellY(int)}.
+ */
+public final class SparseBoard implements GameBoard {
+	private static final byte UNDO_DEAD = 1;
+	private static final byte UNDO_ATE = 1 << 1;
+	private static final byte UNDO_WAS_GROWING = 1 << 2;
+
+	/** Draws after which apple placement stops guessing and scans for a free cell. */
+	private static final int MAX_APPLE_DRAWS = 64;
+
+	private final int width;
+	private final int height;
+	private final long seed;
+	private final SeededRandom random;
+	private Snake snake;
+	private Apple apple;
+	private int[] dirtyX;
+	private int[] dirtyY;
+	private int dirtyCount;
+	private long appleDraws;
+	private int undoDepth;
+	private long[] undoTails;
+	private long[] undoPreviousVacated;
+	private long[] undoPreviousApples;
+	private long[] undoRandomStates;
+	private byte[] undoFlags;
+
+	/**
+	 * Constructs a sparse board with a random seed.
+	 *
+	 * @param width  the width of the arena
+	 * @param height the height of the arena
+	 */
+	public SparseBoard(int width, int height) {
+		this(width, height, ThreadLocalRandom.current().nextLong());
+	}
+
+	/**
+	 * Constructs a sparse board whose apples are placed from the given seed.
+	 *
+	 * @param width  the width of the arena
+	 * @param height the height of the arena
+	 * @param seed   the seed for the board's random number generator
+	 */
+	public SparseBoard(int width, int height, long seed) {
+		if (width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("Board dimensions must be positive: " + width + "x" + height);
+		}
+		this.width = width;
+		this.height = height;
+		this.seed = seed;
+		this.random = new SeededRandom(seed);
+		this.dirtyX = new int[4];
+		this.dirtyY = new int[4];
+		this.createSnake();
+		this.createApple();
+	}
+
+	/**
+	 * Places the apple on a random free cell. Cells are drawn at random until one is not covered
+	 * by the snake; if that keeps failing, which only happens when the snake covers most of the
+	 * arena, the cells after the last draw are scanned in order for a free one.
+	 */
+	@Override
+	public void createApple() {
+		for (int i = 0; i < MAX_APPLE_DRAWS; i++) {
+			int x = random.nextInt(width);
+			int y = random.nextInt(height);
+			appleDraws++;
+			if (!snake.occupies(x, y)) {
+				placeApple(x, y);
+				return;
+			}
+		}
+		long area = (long) width * height;
+		long start = (long) random.nextInt(height) * width + random.nextInt(width);
+		for (long i = 0; i < area; i++) {
+			long index = (start + i) % area;
+			int x = (int) (index % width);
+			int y = (int) (index / width);
+			if (!snake.occupies(x, y)) {
+				placeApple(x, y);
+				return;
+			}
+		}
+	}
+
+	private void placeApple(int x, int y) {
+		if (apple == null) {
+			apple = new Apple(x, y);
+		} else {
+			markDirty(apple.getX(), apple.getY());
+			apple.setPosition(x, y);
+		}
+		updateApple(x, y);
+	}
+
+	/**
+	 * Places a one-segment snake in the middle of the arena.
+	 */
+	@Override
+	public void createSnake() {
+		int startX = width / 2;
+		int startY = height / 2;
+		this.snake = new Snake(startX, startY, width, height);
+		updateSnake(startX, startY);
+	}
+
+	/**
+	 * Moves the snake one cell in the given direction, with the same rules as
+	 * {@link Board#move(Direction)}.
+	 *
+	 * @param direction the direction in which the snake should move
+	 * @return true if the move ends the game, false otherwise
+	 */
+	@Override
+	public boolean move(Direction direction) {
+		dirtyCount = 0;
+		int newX = snake.getHeadX() + direction.getX();
+		int newY = snake.getHeadY() + direction.getY();
+		if (newX < 0 || newX >= width || newY < 0 || newY >= height || snake.collidesWith(newX, newY)) {
+			return true;
+		}
+
+		snake.move(newX, newY, apple.getX() == newX && apple.getY() == newY);
+		long vacated = snake.vacatedIndex();
+		if (vacated >= 0) {
+			markDirty((int) (vacated % width), (int) (vacated / width));
+		}
+		updateSnake(newX, newY);
+		return false;
+	}
+
+	/**
+	 * Plays one full tick and records how to revert it, like {@link Board#makeMove(Direction)}.
+	 * Only the snake's tail, the apple and the random number generator need to be remembered,
+	 * since the board keeps nothing else.
+	 *
+	 * @param direction the direction to move in
+	 * @return {@link #MOVE_DEAD}, {@link #MOVE_ATE} or {@link #MOVE_OK}
+	 */
+	@Override
+	public int makeMove(Direction direction) {
+		if (undoFlags == null) {
+			ensureUndoCapacity(64);
+		} else if (undoDepth == undoFlags.length) {
+			ensureUndoCapacity(undoDepth << 1);
+		}
+		int depth = undoDepth++;
+		boolean wasGrowing = snake.isGrowing();
+		long previousVacated = snake.vacatedIndex();
+		long previousApple = (long) apple.getY() * width + apple.getX();
+		long randomState = random.getState();
+
+		if (move(direction)) {
+			undoFlags[depth] = UNDO_DEAD;
+			return MOVE_DEAD;
+		}
+		byte flags = wasGrowing ? UNDO_WAS_GROWING : 0;
+		undoTails[depth] = snake.vacatedIndex();
+		undoPreviousVacated[depth] = previousVacated;
+		undoPreviousApples[depth] = previousApple;
+		undoRandomStates[depth] = randomState;
+		if (snakeAteApple()) {
+			flags |= UNDO_ATE;
+			growSnake();
+			createApple();
+		}
+		undoFlags[depth] = flags;
+		return (flags & UNDO_ATE) != 0 ? MOVE_ATE : MOVE_OK;
+	}
+
+	/**
+	 * Reverts the most recent {@link #makeMove(Direction)} that has not been reverted yet.
+	 *
+	 * @throws IllegalStateException if there is no move to revert
+	 */
+	@Override
+	public void unmakeMove() {
+		if (undoDepth == 0) {
+			throw new IllegalStateException("No move to unmake");
+		}
+		int depth = --undoDepth;
+		byte flags = undoFlags[depth];
+		if ((flags & UNDO_DEAD) != 0) {
+			return;
+		}
+		markDirty(snake.getHeadX(), snake.getHeadY());
+		if ((flags & UNDO_ATE) != 0) {
+			markDirty(apple.getX(), apple.getY());
+			random.setState(undoRandomStates[depth]);
+			long previousApple = undoPreviousApples[depth];
+			apple.setPosition((int) (previousApple % width), (int) (previousApple / width));
+		}
+		long tail = undoTails[depth];
+		snake.undoMove(tail, (flags & UNDO_WAS_GROWING) != 0, undoPreviousVacated[depth]);
+		if (tail >= 0) {
+			markDirty((int) (tail % width), (int) (tail / width));
+		}
+	}
+
+	private void ensureUndoCapacity(int capacity) {
+		undoTails = undoTails == null ? new long[capacity] : Arrays.copyOf(undoTails, capacity);
+		undoPreviousVacated = undoPreviousVacated == null ? new long[capacity] : Arrays.copyOf(undoPreviousVacated, capacity);
+		undoPreviousApples = undoPreviousApples == null ? new long[capacity] : Arrays.copyOf(undoPreviousApples, capacity);
+		undoRandomStates = undoRandomStates == null ? new long[capacity] : Arrays.copyOf(undoRandomStates, capacity);
+		undoFlags = undoFlags == null ? new byte[capacity] : Arrays.copyOf(undoFlags, capacity);
+	}
+
+	/**
+	 * Records that the apple is now at the given cell.
+	 */
+	@Override
+	public void updateApple(int x, int y) {
+		markDirty(x, y);
+	}
+
+	/**
+	 * Records that the snake now covers the given cell.
+	 */
+	@Override
+	public void updateSnake(int x, int y) {
+		markDirty(x, y);
+	}
+
+	@Override
+	public boolean snakeAteApple() {
+		return snake.getHeadX() == apple.getX() && snake.getHeadY() == apple.getY();
+	}
+
+	@Override
+	public void growSnake() {
+		snake.grow();
+	}
+
+	@Override
+	public byte getCell(int x, int y) {
+		if (apple.getX() == x && apple.getY() == y && !snake.occupies(x, y)) {
+			return APPLE;
+		}
+		return snake.occupies(x, y) ? SNAKE : EMPTY;
+	}
+
+	@Override
+	public Snake getSnake() {
+		return snake;
+	}
+
+	@Override
+	public Apple getApple() {
+		return apple;
+	}
+
+	/**
+	 * Retrieves the Zobrist hash of the board, combining the hash the snake keeps up to date as it
+	 * moves with the keys of the apple and of the growth flag. It is computed in constant time,
+	 * whatever the size of the board.
+	 *
+	 * @return the hash of the position on the board
+	 */
+	@Override
+	public long getHash() {
+		long hash = snake.getHash() ^ Zobrist.apple((long) apple.getY() * width + apple.getX());
+		return snake.isGrowing() ? hash ^ Zobrist.GROWING : hash;
+	}
+
+	@Override
+	public long getSeed() {
+		return seed;
+	}
+
+	@Override
+	public long getRandomState() {
+		return random.getState();
+	}
+
+	@Override
+	public int getWidth() {
+		return width;
+	}
+
+	@Override
+	public int getHeight() {
+		return height;
+	}
+
+	@Override
+	public int getDirtyCellCount() {
+		return dirtyCount;
+	}
+
+	@Override
+	public int getDirtyCellX(int i) {
+		checkDirtyIndex(i);
+		return dirtyX[i];
+	}
+
+	@Override
+	public int getDirtyCellY(int i) {
+		checkDirtyIndex(i);
+		return dirtyY[i];
+	}
+
+	/**
+	 * Retrieves how many random cells have been drawn to place apples, which is at least the
+	 * number of apples placed; the difference is the number of draws that hit the snake.
+	 *
+	 * @return the number of draws
+	 */
+	public long getAppleDraws() {
+		return appleDraws;
+	}
+
+	private void checkDirtyIndex(int i) {
+		if (i < 0 || i >= dirtyCount) {
+			throw new IndexOutOfBoundsException("Dirty cell " + i + " out of bounds for count " + dirtyCount);
+		}
+	}
+
+	private void markDirty(int x, int y) {
+		if (dirtyCount == dirtyX.length) {
+			dirtyX = Arrays.copyOf(dirtyX, dirtyCount << 1);
+			dirtyY = Arrays.copyOf(dirtyY, dirtyCount << 1);
+		}
+		dirtyX[dirtyCount] = x;
+		dirtyY[dirtyCount++] = y;
+	}
+}
@@ -0,0 +1,150 @@
+package domain;
+
+/**
+ * A set of grid cells stored as 64x64 tiles, for grids far too large for a dense bitset.
+ *
+ * Each tile is a {@code long[64]} bitmap, one long per row of the tile, and only the tiles that
+ * hold at least one cell exist: they are kept in an open-addressing hash table keyed by tile
+ * coordinates and dropped as soon as their last cell is cleared. Memory therefore follows the
+ * number of cells in the set, not the size of the grid. A few dropped tiles are kept for reuse,
+ * so a snake that keeps crossing the same tile border does not allocate on every crossing.
+ */
+class TileSet {
+	private static final int TILE_BITS = 6;
+	private static final int TILE_MASK = (1 << TILE_BITS) - 1;
+	private static final int SPARE_TILES = 16;
+
+	private long[] keys;
+	private long[][] tiles;
+	private int[] counts;
+	private int mask;
+	private int size;
+	private final long[][] spare = new long[SPARE_TILES][];
+	private int spareCount;
+
+	TileSet() {
+		allocate(16);
+	}
+
+	boolean contains(int x, int y) {
+		int slot = find(keyOf(x, y));
+		return slot >= 0 && (tiles[slot][y & TILE_MASK] & (1L << x)) != 0;
+	}
+
+	void add(int x, int y) {
+		long key = keyOf(x, y);
+		int slot = find(key);
+		if (slot < 0) {
+			if ((size + 1) * 2 > keys.length) {
+				rehash(keys.length << 1);
+			}
+			slot = insert(key);
+		}
+		long[] tile = tiles[slot];
+		long bit = 1L << x;
+		if ((tile[y & TILE_MASK] & bit) == 0) {
+			tile[y & TILE_MASK] |= bit;
+			counts[slot]++;
+		}
+	}
+
+	void remove(int x, int y) {
+		int slot = find(keyOf(x, y));
+		if (slot < 0) {
+			return;
+		}
+		long[] tile = tiles[slot];
+		long bit = 1L << x;
+		if ((tile[y & TILE_MASK] & bit) != 0) {
+			tile[y & TILE_MASK] &= ~bit;
+			if (--counts[slot] == 0) {
+				delete(slot);
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the number of tiles that currently exist.
+	 */
+	int getTileCount() {
+		return size;
+	}
+
+	private static long keyOf(int x, int y) {
+		return ((long) (y >>> TILE_BITS) << 32) | (x >>> TILE_BITS);
+	}
+
+	private int slotOf(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mask;
+	}
+
+	private int find(long key) {
+		for (int slot = slotOf(key); tiles[slot] != null; slot = (slot + 1) & mask) {
+			if (keys[slot] == key) {
+				return slot;
+			}
+		}
+		return -1;
+	}
+
+	private int insert(long key) {
+		int slot = slotOf(key);
+		while (tiles[slot] != null) {
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		tiles[slot] = spareCount > 0 ? spare[--spareCount] : new long[1 << TILE_BITS];
+		counts[slot] = 0;
+		size++;
+		return slot;
+	}
+
+	/**
+	 * Removes an empty tile, shifting back the entries of its probe sequence so that lookups
+	 * never need tombstones.
+	 */
+	private void delete(int slot) {
+		if (spareCount < SPARE_TILES) {
+			spare[spareCount++] = tiles[slot];
+		}
+		tiles[slot] = null;
+		size--;
+		int hole = slot;
+		for (int next = (slot + 1) & mask; tiles[next] != null; next = (next + 1) & mask) {
+			int home = slotOf(keys[next]);
+			if (((next - home) & mask) >= ((next - hole) & mask)) {
+				keys[hole] = keys[next];
+				tiles[hole] = tiles[next];
+				counts[hole] = counts[next];
+				tiles[next] = null;
+				hole = next;
+			}
+		}
+	}
+
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		long[][] oldTiles = tiles;
+		int[] oldCounts = counts;
+		allocate(capacity);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldTiles[i] != null) {
+				int slot = slotOf(oldKeys[i]);
+				while (tiles[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				tiles[slot] = oldTiles[i];
+				counts[slot] = oldCounts[i];
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		tiles = new long[capacity][];
+		counts = new int[capacity];
+		mask = capacity - 1;
+	}
+}
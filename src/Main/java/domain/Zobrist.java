@@ -0,0 +1,83 @@
+package domain;
+
+/**
+ * The Zobrist class supplies the random keys whose XOR identifies a position: one key per link
+ * between consecutive segments of the body, one for the cell of the head, one for the cell of
+ * the tail, one for the cell of the apple, one per direction and one for a snake about to grow.
+ * Moving the snake or the apple changes the hash by XORing out the keys that no longer apply and
+ * XORing in the new ones, so it is kept up to date in constant time per tick.
+ *
+ * Instead of tables of random numbers, which would take several longs per cell on every board size,
+ * each key is derived from the cell indices by the SplitMix64 finaliser. Keys are therefore the
+ * same on every board, in every process, and cost nothing to store.
+ */
+public final class Zobrist {
+	private static final long LINK = 0x6A09E667F3BCC909L;
+	private static final long HEAD = 0xBB67AE8584CAA73BL;
+	private static final long TAIL = 0x9B05688C2B3E6C1FL;
+	private static final long APPLE = 0x3C6EF372FE94F82BL;
+	private static final long DIRECTION = 0xA54FF53A5F1D36F1L;
+
+	/** Key XORed into the hash of a board whose snake grows on its next move. */
+	public static final long GROWING = mix(0x510E527FADE682D1L);
+
+	private Zobrist() {
+	}
+
+	/**
+	 * Retrieves the key of the link between two consecutive segments of the body.
+	 *
+	 * @param from the packed index of the segment nearer the head
+	 * @param to   the packed index of the segment nearer the tail
+	 * @return the key of the link
+	 */
+	public static long link(long from, long to) {
+		return mix(from * 0x9E3779B97F4A7C15L ^ to * 0xC2B2AE3D27D4EB4FL ^ LINK);
+	}
+
+	/**
+	 * Retrieves the key of the head on the given cell.
+	 *
+	 * @param cell the packed index of the cell
+	 * @return the key of the head
+	 */
+	public static long head(long cell) {
+		return mix(cell * 0x9E3779B97F4A7C15L ^ HEAD);
+	}
+
+	/**
+	 * Retrieves the key of the tail on the given cell.
+	 *
+	 * @param cell the packed index of the cell
+	 * @return the key of the tail
+	 */
+	public static long tail(long cell) {
+		return mix(cell * 0x9E3779B97F4A7C15L ^ TAIL);
+	}
+
+	/**
+	 * Retrieves the key of the apple on the given cell.
+	 *
+	 * @param cell the packed index of the cell
+	 * @return the key of the apple
+	 */
+	public static long apple(long cell) {
+		return mix(cell * 0x9E3779B97F4A7C15L ^ APPLE);
+	}
+
+	/**
+	 * Retrieves the key of the direction the snake is moving in.
+	 *
+	 * @param direction the direction
+	 * @return the key of the direction
+	 */
+	public static long direction(Direction direction) {
+		return mix((direction.ordinal() + 1) * 0x9E3779B97F4A7C15L ^ DIRECTION);
+	}
+
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
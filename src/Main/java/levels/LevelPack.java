@@ -0,0 +1,241 @@
+package levels;
+
+import domain.Board;
+import domain.Direction;
+import domain.Level;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The LevelPack reads {@link Level}s from a level pack file through memory-mapped I/O.
+ *
+ * The file starts with a {@value #HEADER_BYTES}-byte header (magic number, version, number of
+ * levels) and an index with the offset of each level. Each level is a {@value #LEVEL_HEADER_BYTES}-byte
+ * header (width, height, spawn point, initial direction, number of walls) followed by its
+ * collision bitmap, already packed the way {@link Level} keeps it, so loading a level is a bulk
+ * copy of 64-bit words rather than parsing. All numbers are little-endian.
+ *
+ * Opening a pack maps only the header and the index; a level is mapped and copied the first time
+ * it is asked for, so packs of any size open in constant time. The most recently used levels are
+ * kept in a small cache and the least recently used one is evicted when it is full.
+ */
+public class LevelPack implements Closeable {
+	/** Size of the file header in bytes. */
+	public static final int HEADER_BYTES = 16;
+
+	/** Size of the header of each level in bytes. */
+	public static final int LEVEL_HEADER_BYTES = 24;
+
+	private static final int MAGIC = 0x4C564C53;
+	private static final int VERSION = 1;
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private final FileChannel channel;
+	private final MappedByteBuffer index;
+	private final int levelCount;
+	private final long fileSize;
+	private final Map<Integer, Level> cache;
+	private long loadCount;
+
+	/**
+	 * Opens the pack at the given path with a cache of 16 levels.
+	 *
+	 * @param path the level pack file
+	 * @throws IOException if the file cannot be opened or is not a level pack
+	 */
+	public LevelPack(Path path) throws IOException {
+		this(path, 16);
+	}
+
+	/**
+	 * Opens the pack at the given path with a cache of the given size.
+	 *
+	 * @param path      the level pack file
+	 * @param cacheSize the largest number of parsed levels kept in memory
+	 * @throws IOException if the file cannot be opened or is not a level pack
+	 */
+	public LevelPack(Path path, int cacheSize) throws IOException {
+		if (cacheSize <= 0) {
+			throw new IllegalArgumentException("Cache size must be positive: " + cacheSize);
+		}
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			this.fileSize = channel.size();
+			if (fileSize < HEADER_BYTES) {
+				throw new IOException("Not a level pack of version " + VERSION);
+			}
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+				throw new IOException("Not a level pack of version " + VERSION);
+			}
+			this.levelCount = header.getInt(8);
+			if (levelCount < 0 || HEADER_BYTES + 8L * levelCount > fileSize) {
+				throw new IOException("Level pack index is truncated");
+			}
+			this.index = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, 8L * levelCount);
+			this.index.order(ByteOrder.LITTLE_ENDIAN);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+		this.cache = new LinkedHashMap<>(cacheSize * 2, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, Level> eldest) {
+				return size() > cacheSize;
+			}
+		};
+	}
+
+	/**
+	 * Retrieves a level, mapping and copying it from the file unless it is in the cache.
+	 *
+	 * @param number the position of the level in the pack, from 0 to {@code getLevelCount() - 1}
+	 * @return the level
+	 * @throws IOException if the level cannot be read or is malformed
+	 */
+	public synchronized Level getLevel(int number) throws IOException {
+		if (number < 0 || number >= levelCount) {
+			throw new IndexOutOfBoundsException("Level " + number + " out of bounds for " + levelCount + " levels");
+		}
+		Level level = cache.get(number);
+		if (level == null) {
+			level = load(number);
+			cache.put(number, level);
+			loadCount++;
+		}
+		return level;
+	}
+
+	/**
+	 * Retrieves the number of levels in the pack.
+	 *
+	 * @return the level count
+	 */
+	public int getLevelCount() {
+		return levelCount;
+	}
+
+	/**
+	 * Retrieves how many times a level was read from the file because it was not in the cache.
+	 *
+	 * @return the number of loads
+	 */
+	public synchronized long getLoadCount() {
+		return loadCount;
+	}
+
+	/**
+	 * Closes the file. Levels already returned stay valid.
+	 *
+	 * @throws IOException if the file cannot be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Writes a level pack holding the given levels, replacing the file if it exists.
+	 *
+	 * @param path   the file to write
+	 * @param levels the levels, in the order they are numbered
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(Path path, List<Level> levels) throws IOException {
+		long size = HEADER_BYTES + 8L * levels.size();
+		long[] offsets = new long[levels.size()];
+		for (int i = 0; i < levels.size(); i++) {
+			Level level = levels.get(i);
+			offsets[i] = size;
+			size += LEVEL_HEADER_BYTES + 8L * Level.wordCount(level.getWidth(), level.getHeight());
+		}
+		try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			MappedByteBuffer buffer = out.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(levels.size()).putInt(0);
+			for (long offset : offsets) {
+				buffer.putLong(offset);
+			}
+			for (Level level : levels) {
+				buffer.putInt(level.getWidth()).putInt(level.getHeight());
+				buffer.putInt(level.getSpawnX()).putInt(level.getSpawnY());
+				buffer.putInt(level.getDirection().ordinal()).putInt(level.getWallCount());
+				int words = Level.wordCount(level.getWidth(), level.getHeight());
+				for (int i = 0; i < words; i++) {
+					buffer.putLong(level.getWallWord(i));
+				}
+			}
+			buffer.force();
+		}
+	}
+
+	/**
+	 * Builds a level pack from text files in the format of {@link Level#fromRows(String...)},
+	 * one level per file.
+	 *
+	 * @param args the pack to write, followed by the text files of its levels
+	 * @throws IOException if a file cannot be read or the pack cannot be written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: LevelPack <pack> <level.txt>...");
+			return;
+		}
+		List<Level> levels = new ArrayList<>();
+		for (int i = 1; i < args.length; i++) {
+			List<String> rows = Files.readAllLines(Path.of(args[i]));
+			while (!rows.isEmpty() && rows.get(rows.size() - 1).isEmpty()) {
+				rows.remove(rows.size() - 1);
+			}
+			levels.add(Level.fromRows(rows.toArray(new String[0])));
+		}
+		write(Path.of(args[0]), levels);
+		System.out.println(levels.size() + " levels written to " + args[0]);
+	}
+
+	private Level load(int number) throws IOException {
+		long offset = index.getLong(8 * number);
+		long end = number + 1 < levelCount ? index.getLong(8 * (number + 1)) : fileSize;
+		if (offset < HEADER_BYTES + 8L * levelCount || end > fileSize || end - offset < LEVEL_HEADER_BYTES) {
+			throw new IOException("Level " + number + " is truncated");
+		}
+		ByteBuffer record = channel.map(FileChannel.MapMode.READ_ONLY, offset, end - offset).order(ByteOrder.LITTLE_ENDIAN);
+		int width = record.getInt(0);
+		int height = record.getInt(4);
+		int direction = record.getInt(16);
+		int wallCount = record.getInt(20);
+		if (width <= 0 || height <= 0 || (long) width * height > Board.MAX_CELLS
+				|| direction < 0 || direction >= DIRECTIONS.length) {
+			throw new IOException("Level " + number + " has an invalid header");
+		}
+		long words = ((long) width * height + 63) >>> 6;
+		if (LEVEL_HEADER_BYTES + 8 * words > end - offset) {
+			throw new IOException("Level " + number + " is truncated");
+		}
+		long[] walls = new long[(int) words];
+		record.position(LEVEL_HEADER_BYTES);
+		record.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(walls);
+		try {
+			Level level = new Level(width, height, record.getInt(8), record.getInt(12), DIRECTIONS[direction], walls);
+			if (level.getWallCount() != wallCount) {
+				throw new IOException("Level " + number + " has a corrupt collision bitmap");
+			}
+			return level;
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Level " + number + " is invalid: " + e.getMessage(), e);
+		}
+	}
+}
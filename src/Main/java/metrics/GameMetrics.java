@@ -0,0 +1,247 @@
+package metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+/**
+ * The GameMetrics class collects where the time of a game goes: a latency {@link Histogram}
+ * for each {@link Phase} of a tick and of a frame, the bytes allocated by each tick, and
+ * counters for the apples spawned and the cells written and drawn.
+ *
+ * Metrics are opt-in: a game only measures itself while a GameMetrics is attached to it with
+ * {@link domain.Game#setMetrics(GameMetrics)}, and does a single null check per tick otherwise.
+ * One thread records ticks and one thread records frames; any thread may read the metrics at
+ * runtime, as a slightly inconsistent snapshot.
+ */
+public class GameMetrics {
+	/**
+	 * The measured parts of a tick, plus the frame drawn after it.
+	 */
+	public enum Phase {
+		/** The whole of {@link domain.Game#update()}. */
+		UPDATE("tick"),
+		/** Moving the snake, including the collision checks and the grid writes. */
+		MOVE("mover"),
+		/** Checking whether the head landed on the apple. */
+		APPLE_CHECK("comprobar manzana"),
+		/** Making the snake grow after eating. */
+		GROW("crecer"),
+		/** Placing a new apple. */
+		SPAWN("nueva manzana"),
+		/** Drawing a frame in the front end. */
+		RENDER("dibujar");
+
+		private final String label;
+
+		Phase(String label) {
+			this.label = label;
+		}
+
+		/**
+		 * Retrieves the name of the phase as shown in reports.
+		 *
+		 * @return the label
+		 */
+		public String getLabel() {
+			return label;
+		}
+	}
+
+	private static final Phase[] PHASES = Phase.values();
+	private static final com.sun.management.ThreadMXBean THREADS = allocationBean();
+
+	private final Histogram[] phases = new Histogram[PHASES.length];
+	private final Histogram allocatedBytes = new Histogram();
+	private long ticks;
+	private long applesSpawned;
+	private long cellsWritten;
+	private long frames;
+	private long cellsRendered;
+
+	/**
+	 * Constructs empty metrics.
+	 */
+	public GameMetrics() {
+		for (int i = 0; i < phases.length; i++) {
+			phases[i] = new Histogram();
+		}
+	}
+
+	/**
+	 * Records how long a phase took.
+	 *
+	 * @param phase the phase
+	 * @param nanos its duration in nanoseconds
+	 */
+	public void recordPhase(Phase phase, long nanos) {
+		phases[phase.ordinal()].record(nanos);
+	}
+
+	/**
+	 * Records the end of a tick.
+	 *
+	 * @param cells     the number of grid cells the tick changed
+	 * @param allocated the bytes the tick allocated, or a negative value if unknown
+	 */
+	public void recordTick(int cells, long allocated) {
+		ticks++;
+		cellsWritten += cells;
+		if (allocated >= 0) {
+			allocatedBytes.record(allocated);
+		}
+	}
+
+	/**
+	 * Records that a new apple was placed.
+	 */
+	public void recordSpawn() {
+		applesSpawned++;
+	}
+
+	/**
+	 * Records a frame drawn by a front end.
+	 *
+	 * @param nanos how long drawing took, in nanoseconds
+	 * @param cells the number of grid cells that changed since the previous frame
+	 */
+	public void recordFrame(long nanos, int cells) {
+		phases[Phase.RENDER.ordinal()].record(nanos);
+		frames++;
+		cellsRendered += cells;
+	}
+
+	/**
+	 * Retrieves the latency histogram of a phase.
+	 *
+	 * @param phase the phase
+	 * @return its histogram, in nanoseconds
+	 */
+	public Histogram getHistogram(Phase phase) {
+		return phases[phase.ordinal()];
+	}
+
+	/**
+	 * Retrieves the histogram of the bytes allocated per tick. It stays empty when the JVM
+	 * cannot measure allocations per thread.
+	 *
+	 * @return the histogram of allocated bytes
+	 */
+	public Histogram getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	/**
+	 * Retrieves the number of ticks measured.
+	 *
+	 * @return the tick count
+	 */
+	public long getTicks() {
+		return ticks;
+	}
+
+	/**
+	 * Retrieves the number of apples placed. Apples are drawn directly from the index of free
+	 * cells, so each one takes a single draw and there are no retries to count.
+	 *
+	 * @return the number of apples spawned
+	 */
+	public long getApplesSpawned() {
+		return applesSpawned;
+	}
+
+	/**
+	 * Retrieves the number of grid cells written by the measured ticks.
+	 *
+	 * @return the number of cells written
+	 */
+	public long getCellsWritten() {
+		return cellsWritten;
+	}
+
+	/**
+	 * Retrieves the number of frames measured.
+	 *
+	 * @return the frame count
+	 */
+	public long getFrames() {
+		return frames;
+	}
+
+	/**
+	 * Retrieves the number of changed cells the measured frames had to draw.
+	 *
+	 * @return the number of cells drawn
+	 */
+	public long getCellsRendered() {
+		return cellsRendered;
+	}
+
+	/**
+	 * Forgets everything measured so far.
+	 */
+	public void reset() {
+		for (Histogram histogram : phases) {
+			histogram.reset();
+		}
+		allocatedBytes.reset();
+		ticks = 0;
+		applesSpawned = 0;
+		cellsWritten = 0;
+		frames = 0;
+		cellsRendered = 0;
+	}
+
+	/**
+	 * Formats the metrics as a few lines of text, with latencies in microseconds.
+	 *
+	 * @return the report
+	 */
+	public String report() {
+		StringBuilder report = new StringBuilder();
+		for (Phase phase : PHASES) {
+			Histogram histogram = phases[phase.ordinal()];
+			if (histogram.getCount() == 0) {
+				continue;
+			}
+			report.append(String.format(Locale.ROOT,
+					"%-18s n=%-8d media %8.2f µs  p50 %8.2f  p99 %8.2f  p99.9 %8.2f  máx %8.2f%n",
+					phase.getLabel(), histogram.getCount(), histogram.getMean() / 1e3,
+					histogram.getValueAtPercentile(50) / 1e3, histogram.getValueAtPercentile(99) / 1e3,
+					histogram.getValueAtPercentile(99.9) / 1e3, histogram.getMax() / 1e3));
+		}
+		report.append(String.format(Locale.ROOT,
+				"ticks %d, manzanas %d, celdas escritas %d, frames %d, celdas dibujadas %d%n",
+				ticks, applesSpawned, cellsWritten, frames, cellsRendered));
+		if (allocatedBytes.getCount() > 0) {
+			report.append(String.format(Locale.ROOT,
+					"bytes reservados por tick: media %.1f, p99 %d, máx %d, total %d%n",
+					allocatedBytes.getMean(), allocatedBytes.getValueAtPercentile(99),
+					allocatedBytes.getMax(), allocatedBytes.getTotal()));
+		}
+		return report.toString();
+	}
+
+	@Override
+	public String toString() {
+		return report();
+	}
+
+	/**
+	 * Retrieves the bytes allocated so far by the calling thread.
+	 *
+	 * @return the allocated bytes, or -1 if the JVM cannot measure them
+	 */
+	public static long currentThreadAllocatedBytes() {
+		return THREADS == null ? -1 : THREADS.getCurrentThreadAllocatedBytes();
+	}
+
+	private static com.sun.management.ThreadMXBean allocationBean() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean threads && threads.isThreadAllocatedMemorySupported()) {
+			threads.setThreadAllocatedMemoryEnabled(true);
+			return threads;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,35 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JDK Flight Recorder event covering one call to {@link domain.Game#update()}.
+ *
+ * The event is disabled unless a recording enables it, for instance with
+ * {@code -XX:StartFlightRecording:settings=profile}, and costs next to nothing while disabled.
+ */
+@Name("snake.GameUpdate")
+@Label("Game Update")
+@Category("Snake")
+@Description("One tick of a game")
+public class GameUpdateEvent extends Event {
+	@Label("Score")
+	public int score;
+
+	@Label("Snake Length")
+	public int snakeLength;
+
+	@Label("Ate Apple")
+	public boolean ateApple;
+
+	@Label("Game Over")
+	public boolean gameOver;
+
+	@Label("Cells Written")
+	@Description("Cells of the grid changed by the tick")
+	public int cellsWritten;
+}
@@ -0,0 +1,163 @@
+package metrics;
+
+import java.util.Arrays;
+
+/**
+ * The Histogram class counts recorded values, such as latencies in nanoseconds, in log-linear
+ * buckets in the manner of HdrHistogram.
+ *
+ * Values below {@value #SUB_BUCKETS} get a bucket each and every larger power of two is split
+ * into {@code SUB_BUCKETS / 2} equal buckets, so any value up to {@link Long#MAX_VALUE} is kept
+ * with a relative error below 1% in a fixed array of about 7,000 counters. Recording is a handful of arithmetic operations and never allocates.
+ *
+ * A histogram is meant to have a single writer. Other threads may read it at any time; they see
+ * a snapshot that can be slightly inconsistent, which is acceptable for monitoring.
+ */
+public class Histogram {
+	private static final int SUB_BUCKET_BITS = 8;
+	/** Number of buckets each power of two is split into. */
+	public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * (SUB_BUCKETS >>> 1) + SUB_BUCKETS;
+
+	private final long[] counts = new long[BUCKET_COUNT];
+	private long count;
+	private long sum;
+	private long min = Long.MAX_VALUE;
+	private long max;
+
+	/**
+	 * Adds a value to the histogram. Negative values are recorded as 0.
+	 *
+	 * @param value the value to record
+	 */
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+		counts[indexOf(value)]++;
+		count++;
+		sum += value;
+		if (value < min) {
+			min = value;
+		}
+		if (value > max) {
+			max = value;
+		}
+	}
+
+	/**
+	 * Adds every value recorded in another histogram to this one.
+	 *
+	 * @param other the histogram to add
+	 */
+	public void add(Histogram other) {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts[i] += other.counts[i];
+		}
+		count += other.count;
+		sum += other.sum;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	/**
+	 * Forgets every recorded value.
+	 */
+	public void reset() {
+		Arrays.fill(counts, 0);
+		count = 0;
+		sum = 0;
+		min = Long.MAX_VALUE;
+		max = 0;
+	}
+
+	/**
+	 * Retrieves the value below which the given percentage of the recorded values fall, rounded
+	 * up to the highest value of its bucket.
+	 *
+	 * @param percentile the percentage, from 0 to 100
+	 * @return the value at that percentile, or 0 if nothing has been recorded
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long total = count;
+		if (total == 0) {
+			return 0;
+		}
+		long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += counts[i];
+			if (seen >= target) {
+				return Math.min(highestValueOf(i), max);
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * Retrieves the number of recorded values.
+	 *
+	 * @return the count
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Retrieves the sum of the recorded values.
+	 *
+	 * @return the total
+	 */
+	public long getTotal() {
+		return sum;
+	}
+
+	/**
+	 * Retrieves the average of the recorded values.
+	 *
+	 * @return the mean, or 0 if nothing has been recorded
+	 */
+	public double getMean() {
+		long total = count;
+		return total == 0 ? 0 : (double) sum / total;
+	}
+
+	/**
+	 * Retrieves the smallest recorded value.
+	 *
+	 * @return the minimum, or 0 if nothing has been recorded
+	 */
+	public long getMin() {
+		return count == 0 ? 0 : min;
+	}
+
+	/**
+	 * Retrieves the largest recorded value.
+	 *
+	 * @return the maximum
+	 */
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * Computes the bucket of a value: values below {@link #SUB_BUCKETS} have a bucket each, and
+	 * every larger power of two is split into {@code SUB_BUCKETS / 2} buckets of equal width.
+	 */
+	private static int indexOf(long value) {
+		int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		if (shift <= 0) {
+			return (int) value;
+		}
+		return shift * (SUB_BUCKETS >>> 1) + (int) (value >>> shift);
+	}
+
+	private static long highestValueOf(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int shift = index / (SUB_BUCKETS >>> 1) - 1;
+		long subBucket = index - shift * (SUB_BUCKETS >>> 1);
+		return ((subBucket + 1) << shift) - 1;
+	}
+}
@@ -0,0 +1,23 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JDK Flight Recorder event covering one frame drawn by a front end.
+ */
+@Name("snake.RenderFrame")
+@Label("Render Frame")
+@Category("Snake")
+@Description("One frame drawn by the console or the JavaFX front end")
+public class RenderFrameEvent extends Event {
+	@Label("Renderer")
+	public String renderer;
+
+	@Label("Cells Changed")
+	@Description("Cells of the grid that changed since the previous tick")
+	public int cellsChanged;
+}
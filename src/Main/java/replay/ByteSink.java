@@ -0,0 +1,63 @@
+package replay;
+
+import java.util.Arrays;
+
+/**
+ * A growable byte buffer with the variable-length integer encoding used by replays.
+ *
+ * Unsigned values are written as LEB128 varints: seven bits per byte, low bits first,
+ * with the high bit set on every byte but the last.
+ */
+class ByteSink {
+	private byte[] bytes;
+	private int length;
+
+	ByteSink(int capacity) {
+		this.bytes = new byte[Math.max(capacity, 16)];
+	}
+
+	void writeByte(int value) {
+		if (length == bytes.length) {
+			bytes = Arrays.copyOf(bytes, length << 1);
+		}
+		bytes[length++] = (byte) value;
+	}
+
+	void writeVarLong(long value) {
+		while ((value & ~0x7FL) != 0) {
+			writeByte((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		writeByte((int) value);
+	}
+
+	void writeLong(long value) {
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			writeByte((int) (value >>> shift));
+		}
+	}
+
+	void writeBytes(byte[] source, int offset, int count) {
+		if (length + count > bytes.length) {
+			bytes = Arrays.copyOf(bytes, Math.max(bytes.length << 1, length + count));
+		}
+		System.arraycopy(source, offset, bytes, length, count);
+		length += count;
+	}
+
+	void writeSink(ByteSink other) {
+		writeBytes(other.bytes, 0, other.length);
+	}
+
+	int length() {
+		return length;
+	}
+
+	void clear() {
+		length = 0;
+	}
+
+	byte[] toByteArray() {
+		return Arrays.copyOf(bytes, length);
+	}
+}
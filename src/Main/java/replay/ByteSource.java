@@ -0,0 +1,57 @@
+package replay;
+
+/**
+ * Reads the encoding written by {@link ByteSink} from a byte array.
+ */
+class ByteSource {
+	private final byte[] bytes;
+	private int position;
+
+	ByteSource(byte[] bytes, int position) {
+		this.bytes = bytes;
+		this.position = position;
+	}
+
+	int readByte() {
+		if (position >= bytes.length) {
+			throw new IllegalArgumentException("Replay data is truncated at byte " + position);
+		}
+		return bytes[position++] & 0xFF;
+	}
+
+	long readVarLong() {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = readByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Malformed varint at byte " + position);
+	}
+
+	int readVarInt() {
+		long value = readVarLong();
+		if (value > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Value out of range at byte " + position + ": " + value);
+		}
+		return (int) value;
+	}
+
+	long readLong() {
+		long value = 0;
+		for (int i = 0; i < 8; i++) {
+			value = (value << 8) | readByte();
+		}
+		return value;
+	}
+
+	int position() {
+		return position;
+	}
+
+	void skip(int count) {
+		position += count;
+	}
+}
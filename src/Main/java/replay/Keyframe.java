@@ -0,0 +1,168 @@
+package replay;
+
+import domain.Board;
+import domain.Direction;
+import domain.Game;
+import domain.Snake;
+
+/**
+ * Encodes and decodes keyframes: complete snapshots of a game at the start of a tick,
+ * from which a {@link ReplayPlayer} can resume without simulating from tick zero.
+ *
+ * The snake is stored as its head cell followed by the direction from each segment to the
+ * next one, two bits per segment, which is possible because consecutive segments are always
+ * neighbours on the grid. The free cells follow, preceded by their count since walls are not
+ * free cells, in the board's free-cell order, since apples are drawn by position in that order,
+ * packed with just enough bits per cell to hold the index of any cell of the board.
+ *
+ * The free-cell order cannot be derived from the rest of the state, so a keyframe still takes
+ * one entry per free cell and grows with the area of the board: under 500 bytes on a 20x20
+ * board, but about 2.5 MB on a 1000x1000 one. On large boards the keyframe interval has to be
+ * raised accordingly.
+ */
+final class Keyframe {
+	private static final Direction[] DIRECTIONS = Direction.values();
+	private static final int FLAG_GAME_OVER = 1 << 2;
+	private static final int FLAG_GROWING = 1 << 3;
+
+	private Keyframe() {
+	}
+
+	/**
+	 * Writes the state of a game at the start of the given tick. The direction is passed in
+	 * separately because the game's own may already hold a turn that belongs to this tick's event.
+	 */
+	static void write(ByteSink sink, Game game, Direction direction, long tick, int eventIndex, int[] scratch) {
+		Board board = (Board) game.getGameBoard();
+		Snake snake = board.getSnake();
+		int width = board.getWidth();
+
+		sink.writeVarLong(tick);
+		sink.writeVarLong(eventIndex);
+		sink.writeVarLong(game.getScore());
+		int flags = direction.ordinal();
+		if (game.isGameOver()) {
+			flags |= FLAG_GAME_OVER;
+		}
+		if (snake.isGrowing()) {
+			flags |= FLAG_GROWING;
+		}
+		sink.writeByte(flags);
+		sink.writeVarLong((long) board.getApple().getY() * width + board.getApple().getX());
+		sink.writeLong(board.getRandomState());
+
+		int length = snake.getLength();
+		sink.writeVarLong(length);
+		int previous = snake.getCell(0);
+		sink.writeVarLong(previous);
+		int packed = 0;
+		int count = 0;
+		for (int i = 1; i < length; i++) {
+			int cell = snake.getCell(i);
+			packed |= directionBetween(previous, cell, width).ordinal() << (count * 2);
+			previous = cell;
+			if (++count == 4) {
+				sink.writeByte(packed);
+				packed = 0;
+				count = 0;
+			}
+		}
+		if (count > 0) {
+			sink.writeByte(packed);
+		}
+
+		int free = board.copyFreeCells(scratch);
+		sink.writeVarLong(free);
+		int bits = bitsPerCell(width * board.getHeight());
+		long buffer = 0;
+		int buffered = 0;
+		for (int i = 0; i < free; i++) {
+			buffer |= (long) scratch[i] << buffered;
+			buffered += bits;
+			while (buffered >= 8) {
+				sink.writeByte((int) buffer);
+				buffer >>>= 8;
+				buffered -= 8;
+			}
+		}
+		if (buffered > 0) {
+			sink.writeByte((int) buffer);
+		}
+	}
+
+	/**
+	 * Reads only the tick of the keyframe starting at the given offset.
+	 */
+	static long readTick(byte[] data, int offset) {
+		return new ByteSource(data, offset).readVarLong();
+	}
+
+	/**
+	 * Restores the keyframe starting at the given offset into a game and its board.
+	 * Both scratch arrays should hold at least one entry per cell of the board.
+	 *
+	 * @return the index of the first direction change that happens at or after the keyframe's tick
+	 */
+	static int restore(byte[] data, int offset, Game game, Board board, int[] snakeScratch, int[] freeScratch) {
+		ByteSource source = new ByteSource(data, offset);
+		int width = board.getWidth();
+		source.readVarLong();
+		int eventIndex = source.readVarInt();
+		int score = source.readVarInt();
+		int flags = source.readByte();
+		int apple = source.readVarInt();
+		long randomState = source.readLong();
+
+		int length = source.readVarInt();
+		int area = width * board.getHeight();
+		int[] cells = snakeScratch.length >= length ? snakeScratch : new int[length];
+		cells[0] = source.readVarInt();
+		int packed = 0;
+		for (int i = 1; i < length; i++) {
+			int slot = (i - 1) & 3;
+			if (slot == 0) {
+				packed = source.readByte();
+			}
+			Direction direction = DIRECTIONS[(packed >>> (slot * 2)) & 3];
+			cells[i] = cells[i - 1] + direction.getY() * width + direction.getX();
+		}
+
+		int free = source.readVarInt();
+		int[] freeOrder = freeScratch.length >= free ? freeScratch : new int[free];
+		int bits = bitsPerCell(area);
+		long mask = (1L << bits) - 1;
+		long buffer = 0;
+		int buffered = 0;
+		for (int i = 0; i < free; i++) {
+			while (buffered < bits) {
+				buffer |= (long) source.readByte() << buffered;
+				buffered += 8;
+			}
+			freeOrder[i] = (int) (buffer & mask);
+			buffer >>>= bits;
+			buffered -= bits;
+		}
+
+		board.restore(cells, length, (flags & FLAG_GROWING) != 0, apple % width, apple / width, randomState, freeOrder);
+		game.restore(score, (flags & FLAG_GAME_OVER) != 0, DIRECTIONS[flags & 3]);
+		return eventIndex;
+	}
+
+	/**
+	 * Computes how many bits hold the index of any cell of a board with the given number of cells.
+	 */
+	private static int bitsPerCell(int area) {
+		return Math.max(1, 32 - Integer.numberOfLeadingZeros(area - 1));
+	}
+
+	private static Direction directionBetween(int from, int to, int width) {
+		int dx = to % width - from % width;
+		int dy = to / width - from / width;
+		for (Direction direction : DIRECTIONS) {
+			if (direction.getX() == dx && direction.getY() == dy) {
+				return direction;
+			}
+		}
+		throw new IllegalStateException("Snake segments " + from + " and " + to + " are not adjacent");
+	}
+}
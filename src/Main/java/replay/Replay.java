@@ -0,0 +1,247 @@
+package replay;
+
+import domain.Direction;
+import domain.Level;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A Replay is a recorded game in a compact binary form. Since apple placement is driven by the
+ * board's seed, a game is fully described by the seed, the level if the board has walls, and
+ * the ticks at which the snake turned.
+ *
+ * Layout, with all unsigned integers as varints unless noted:
+ * <pre>
+ * "SNKR" version:byte width height seed:long8
+ * hasLevel:byte [ spawnX spawnY direction:byte { wallWord:long8 }* ] totalTicks
+ * eventCount  { (ticksSincePreviousEvent &lt;&lt; 2) | direction }*
+ * keyframeCount { byteLength keyframe }*
+ * </pre>
+ * The level, when there is one, is stored as its collision bitmap of
+ * {@link Level#wordCount(int, int)} words.
+ * Keyframes are full snapshots taken at regular intervals, which let a {@link ReplayPlayer}
+ * seek to any tick by restoring the nearest earlier keyframe and simulating only the rest.
+ */
+public class Replay {
+	static final byte[] MAGIC = {'S', 'N', 'K', 'R'};
+	static final int VERSION = 3;
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private final byte[] data;
+	private final int width;
+	private final int height;
+	private final long seed;
+	private final Level level;
+	private final long totalTicks;
+	private final long[] eventTicks;
+	private final byte[] eventDirections;
+	private final long[] keyframeTicks;
+	private final int[] keyframeOffsets;
+
+	private Replay(byte[] data) {
+		this.data = data;
+		ByteSource source = new ByteSource(data, 0);
+		for (byte b : MAGIC) {
+			if (source.readByte() != (b & 0xFF)) {
+				throw new IllegalArgumentException("Not a replay: bad magic number");
+			}
+		}
+		int version = source.readByte();
+		if (version != VERSION) {
+			throw new IllegalArgumentException("Unsupported replay version " + version);
+		}
+		this.width = source.readVarInt();
+		this.height = source.readVarInt();
+		this.seed = source.readLong();
+		if (source.readByte() != 0) {
+			int spawnX = source.readVarInt();
+			int spawnY = source.readVarInt();
+			Direction direction = DIRECTIONS[source.readByte() & 3];
+			long[] walls = new long[Level.wordCount(width, height)];
+			for (int i = 0; i < walls.length; i++) {
+				walls[i] = source.readLong();
+			}
+			this.level = new Level(width, height, spawnX, spawnY, direction, walls);
+		} else {
+			this.level = null;
+		}
+		this.totalTicks = source.readVarLong();
+
+		int events = source.readVarInt();
+		this.eventTicks = new long[events];
+		this.eventDirections = new byte[events];
+		long tick = 0;
+		for (int i = 0; i < events; i++) {
+			long value = source.readVarLong();
+			tick += value >>> 2;
+			eventTicks[i] = tick;
+			eventDirections[i] = (byte) (value & 3);
+		}
+
+		int keyframes = source.readVarInt();
+		this.keyframeTicks = new long[keyframes];
+		this.keyframeOffsets = new int[keyframes];
+		for (int i = 0; i < keyframes; i++) {
+			int length = source.readVarInt();
+			keyframeOffsets[i] = source.position();
+			keyframeTicks[i] = Keyframe.readTick(data, source.position());
+			source.skip(length);
+		}
+	}
+
+	/**
+	 * Parses a replay from its binary form.
+	 *
+	 * @param data the bytes of the replay; the array is used as is and must not be modified afterwards
+	 * @return the parsed replay
+	 * @throws IllegalArgumentException if the data is not a valid replay
+	 */
+	public static Replay fromBytes(byte[] data) {
+		return new Replay(data);
+	}
+
+	/**
+	 * Reads a replay from a file.
+	 *
+	 * @param path the file to read
+	 * @return the parsed replay
+	 * @throws IOException if the file cannot be read
+	 */
+	public static Replay read(Path path) throws IOException {
+		return new Replay(Files.readAllBytes(path));
+	}
+
+	/**
+	 * Writes the replay to a file.
+	 *
+	 * @param path the file to write
+	 * @throws IOException if the file cannot be written
+	 */
+	public void write(Path path) throws IOException {
+		Files.write(path, data);
+	}
+
+	/**
+	 * Retrieves a copy of the binary form of the replay.
+	 *
+	 * @return the encoded replay
+	 */
+	public byte[] toBytes() {
+		return data.clone();
+	}
+
+	/**
+	 * Retrieves the size of the encoded replay.
+	 *
+	 * @return the number of bytes
+	 */
+	public int getByteSize() {
+		return data.length;
+	}
+
+	/**
+	 * Retrieves the width of the recorded board.
+	 *
+	 * @return the board width
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Retrieves the height of the recorded board.
+	 *
+	 * @return the board height
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Retrieves the seed of the recorded board.
+	 *
+	 * @return the seed
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Retrieves the level of the recorded board.
+	 *
+	 * @return the level, or null if the board had no walls
+	 */
+	public Level getLevel() {
+		return level;
+	}
+
+	/**
+	 * Retrieves the number of ticks that were recorded.
+	 *
+	 * @return the length of the replay in ticks
+	 */
+	public long getTotalTicks() {
+		return totalTicks;
+	}
+
+	/**
+	 * Retrieves the number of direction changes that were recorded.
+	 *
+	 * @return the number of events
+	 */
+	public int getEventCount() {
+		return eventTicks.length;
+	}
+
+	/**
+	 * Retrieves the number of keyframes stored in the replay.
+	 *
+	 * @return the number of keyframes
+	 */
+	public int getKeyframeCount() {
+		return keyframeTicks.length;
+	}
+
+	long getEventTick(int i) {
+		return eventTicks[i];
+	}
+
+	int getEventDirection(int i) {
+		return eventDirections[i];
+	}
+
+	/**
+	 * Finds the last keyframe taken at or before the given tick.
+	 *
+	 * @return the index of the keyframe, or -1 if there is none
+	 */
+	int findKeyframe(long tick) {
+		int low = 0;
+		int high = keyframeTicks.length - 1;
+		int found = -1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (keyframeTicks[middle] <= tick) {
+				found = middle;
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return found;
+	}
+
+	long getKeyframeTick(int i) {
+		return keyframeTicks[i];
+	}
+
+	int getKeyframeOffset(int i) {
+		return keyframeOffsets[i];
+	}
+
+	byte[] data() {
+		return data;
+	}
+}
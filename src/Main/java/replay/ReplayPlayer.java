@@ -0,0 +1,107 @@
+package replay;
+
+import domain.Board;
+import domain.Direction;
+import domain.Game;
+
+/**
+ * The ReplayPlayer plays a {@link Replay} back on a fresh game. It steps at headless speed and
+ * can seek to any tick: seeking restores the nearest keyframe at or before the target and
+ * simulates only the ticks between the keyframe and the target.
+ */
+public class ReplayPlayer {
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private final Replay replay;
+	private final Board board;
+	private final Game game;
+	private final int[] snakeScratch;
+	private final int[] freeScratch;
+	private long tick;
+	private int nextEvent;
+
+	/**
+	 * Constructs a player positioned at tick zero.
+	 *
+	 * @param replay the replay to play
+	 */
+	public ReplayPlayer(Replay replay) {
+		this.replay = replay;
+		if (replay.getLevel() == null) {
+			this.game = new Game(new Board(replay.getWidth(), replay.getHeight(), replay.getSeed()));
+		} else {
+			this.game = new Game(replay.getLevel(), replay.getSeed());
+		}
+		this.board = (Board) game.getGameBoard();
+		this.snakeScratch = new int[replay.getWidth() * replay.getHeight()];
+		this.freeScratch = new int[replay.getWidth() * replay.getHeight()];
+	}
+
+	/**
+	 * Retrieves the game being played back. Its state always corresponds to the start of {@link #getTick()}.
+	 *
+	 * @return the game
+	 */
+	public Game getGame() {
+		return game;
+	}
+
+	/**
+	 * Retrieves the current position in the replay.
+	 *
+	 * @return the number of ticks played so far
+	 */
+	public long getTick() {
+		return tick;
+	}
+
+	/**
+	 * Plays one tick, applying the recorded direction change for it if there is one.
+	 *
+	 * @return true if a tick was played, false if the replay has ended
+	 */
+	public boolean step() {
+		if (tick >= replay.getTotalTicks()) {
+			return false;
+		}
+		if (nextEvent < replay.getEventCount() && replay.getEventTick(nextEvent) == tick) {
+			game.setCurrentDirection(DIRECTIONS[replay.getEventDirection(nextEvent)]);
+			nextEvent++;
+		}
+		game.update();
+		tick++;
+		return true;
+	}
+
+	/**
+	 * Moves the playback to the start of the given tick.
+	 *
+	 * @param target the tick to seek to, clamped to the length of the replay
+	 */
+	public void seek(long target) {
+		target = Math.max(0, Math.min(target, replay.getTotalTicks()));
+		int keyframe = replay.findKeyframe(target);
+		if (keyframe >= 0 && (target < tick || replay.getKeyframeTick(keyframe) > tick)) {
+			restoreKeyframe(keyframe);
+		} else if (target < tick) {
+			throw new IllegalStateException("Cannot seek back to tick " + target + " without a keyframe");
+		}
+		while (tick < target && step()) {
+			// simulate up to the target
+		}
+	}
+
+	/**
+	 * Plays the rest of the replay.
+	 */
+	public void playToEnd() {
+		while (step()) {
+			// simulate to the end
+		}
+	}
+
+	private void restoreKeyframe(int keyframe) {
+		nextEvent = Keyframe.restore(replay.data(), replay.getKeyframeOffset(keyframe), game, board, snakeScratch, freeScratch);
+		tick = replay.getKeyframeTick(keyframe);
+	}
+}
@@ -0,0 +1,131 @@
+package replay;
+
+import domain.Board;
+import domain.Direction;
+import domain.Game;
+import domain.Level;
+
+/**
+ * The ReplayRecorder records a game as it is played, logging only the board's seed and the
+ * ticks at which the direction changed, plus a keyframe every {@code keyframeInterval} ticks.
+ * Boards laid out by a {@link Level} also store the level, so that the walls are replayed too.
+ *
+ * The recorder must be attached to a game on a {@link domain.Board} that has not been updated
+ * yet, and the game must then be advanced only through {@link #update()}.
+ */
+public class ReplayRecorder {
+	/** Default number of ticks between keyframes. */
+	public static final int DEFAULT_KEYFRAME_INTERVAL = 10_000;
+
+	private final Game game;
+	private final int keyframeInterval;
+	private final ByteSink events;
+	private final ByteSink keyframes;
+	private final ByteSink keyframe;
+	private final int[] scratch;
+	private int eventCount;
+	private int keyframeCount;
+	private long tick;
+	private long lastEventTick;
+	private Direction lastDirection;
+
+	/**
+	 * Constructs a recorder with the default keyframe interval.
+	 *
+	 * @param game the game to record, before its first update
+	 */
+	public ReplayRecorder(Game game) {
+		this(game, DEFAULT_KEYFRAME_INTERVAL);
+	}
+
+	/**
+	 * Constructs a recorder.
+	 *
+	 * @param game             the game to record, before its first update
+	 * @param keyframeInterval the number of ticks between keyframes
+	 */
+	public ReplayRecorder(Game game, int keyframeInterval) {
+		if (!(game.getGameBoard() instanceof Board)) {
+			throw new IllegalArgumentException("Only games played on a Board can be recorded");
+		}
+		if (keyframeInterval <= 0) {
+			throw new IllegalArgumentException("Keyframe interval must be positive: " + keyframeInterval);
+		}
+		this.game = game;
+		this.keyframeInterval = keyframeInterval;
+		this.events = new ByteSink(256);
+		this.keyframes = new ByteSink(256);
+		this.keyframe = new ByteSink(64);
+		this.scratch = new int[game.getGameBoard().getWidth() * game.getGameBoard().getHeight()];
+		this.lastDirection = game.getCurrentDirection();
+	}
+
+	/**
+	 * Records the current direction if it changed, takes a keyframe if one is due, and then
+	 * advances the game by one tick. Does nothing once the game is over.
+	 */
+	public void update() {
+		if (game.isGameOver()) {
+			return;
+		}
+		if (tick % keyframeInterval == 0) {
+			keyframe.clear();
+			Keyframe.write(keyframe, game, lastDirection, tick, eventCount, scratch);
+			keyframes.writeVarLong(keyframe.length());
+			keyframes.writeSink(keyframe);
+			keyframeCount++;
+		}
+		Direction direction = game.getCurrentDirection();
+		if (direction != lastDirection) {
+			events.writeVarLong(((tick - lastEventTick) << 2) | direction.ordinal());
+			eventCount++;
+			lastEventTick = tick;
+			lastDirection = direction;
+		}
+		game.update();
+		tick++;
+	}
+
+	/**
+	 * Retrieves the number of ticks recorded so far.
+	 *
+	 * @return the tick count
+	 */
+	public long getTick() {
+		return tick;
+	}
+
+	/**
+	 * Builds the replay of everything recorded so far. Recording may continue afterwards.
+	 *
+	 * @return the replay
+	 */
+	public Replay finish() {
+		Board board = (Board) game.getGameBoard();
+		Level level = board.getLevel();
+		int wallWords = level == null ? 0 : Level.wordCount(level.getWidth(), level.getHeight());
+		ByteSink sink = new ByteSink(48 + wallWords * 8 + events.length() + keyframes.length());
+		for (byte b : Replay.MAGIC) {
+			sink.writeByte(b);
+		}
+		sink.writeByte(Replay.VERSION);
+		sink.writeVarLong(board.getWidth());
+		sink.writeVarLong(board.getHeight());
+		sink.writeLong(board.getSeed());
+		sink.writeByte(level == null ? 0 : 1);
+		if (level != null) {
+			sink.writeVarLong(level.getSpawnX());
+			sink.writeVarLong(level.getSpawnY());
+			sink.writeByte(level.getDirection().ordinal());
+			for (int i = 0; i < wallWords; i++) {
+				sink.writeLong(level.getWallWord(i));
+			}
+		}
+		sink.writeVarLong(tick);
+		sink.writeVarLong(eventCount);
+		sink.writeSink(events);
+		sink.writeVarLong(keyframeCount);
+		sink.writeSink(keyframes);
+		return Replay.fromBytes(sink.toByteArray());
+	}
+}
@@ -0,0 +1,168 @@
+package results;
+
+import domain.Direction;
+import domain.Game;
+import domain.GameBoard;
+
+/**
+ * The GameResult class is the outcome of one finished game as kept by a {@link ResultStore}:
+ * the seed of its board, its score and length, how many ticks it lasted and how it ended.
+ */
+public class GameResult {
+	/**
+	 * How a game ended.
+	 */
+	public enum Cause {
+		/** The game was stopped before the snake died, for example by a tick limit. */
+		NONE,
+		/** The snake ran into a wall: the edge of the board or a wall of its level. */
+		WALL,
+		/** The snake ran into its own body. */
+		SELF
+	}
+
+	private static final Cause[] CAUSES = Cause.values();
+
+	private final long seed;
+	private final int score;
+	private final int length;
+	private final long ticks;
+	private final Cause cause;
+	private final int width;
+	private final int height;
+	private final long timestamp;
+
+	/**
+	 * Constructs a result from its fields.
+	 *
+	 * @param seed      the seed of the game's board
+	 * @param score     the final score
+	 * @param length    the final length of the snake
+	 * @param ticks     the number of ticks played
+	 * @param cause     how the game ended
+	 * @param width     the width of the board
+	 * @param height    the height of the board
+	 * @param timestamp when the game ended, in milliseconds since the epoch
+	 */
+	public GameResult(long seed, int score, int length, long ticks, Cause cause, int width, int height, long timestamp) {
+		this.seed = seed;
+		this.score = score;
+		this.length = length;
+		this.ticks = ticks;
+		this.cause = cause;
+		this.width = width;
+		this.height = height;
+		this.timestamp = timestamp;
+	}
+
+	/**
+	 * Builds the result of a game that has just been played, telling a crash into a wall, the edge
+	 * of the board or one of its level, from a crash into the snake's body by looking at the cell
+	 * in front of the head.
+	 *
+	 * @param game  the game, over or stopped
+	 * @param ticks the number of ticks it was played for
+	 * @return the result of the game
+	 */
+	public static GameResult of(Game game, long ticks) {
+		GameBoard board = game.getGameBoard();
+		return new GameResult(board.getSeed(), game.getScore(), board.getSnake().getLength(), ticks,
+				causeOf(game), board.getWidth(), board.getHeight(), System.currentTimeMillis());
+	}
+
+	private static Cause causeOf(Game game) {
+		if (!game.isGameOver()) {
+			return Cause.NONE;
+		}
+		GameBoard board = game.getGameBoard();
+		Direction direction = game.getCurrentDirection();
+		int x = board.getSnake().getHeadX() + direction.getX();
+		int y = board.getSnake().getHeadY() + direction.getY();
+		if (x < 0 || x >= board.getWidth() || y < 0 || y >= board.getHeight()) {
+			return Cause.WALL;
+		}
+		return board.getCell(x, y) == GameBoard.WALL ? Cause.WALL : Cause.SELF;
+	}
+
+	static Cause causeOf(int ordinal) {
+		return ordinal >= 0 && ordinal < CAUSES.length ? CAUSES[ordinal] : Cause.NONE;
+	}
+
+	/**
+	 * Retrieves the seed of the game's board.
+	 *
+	 * @return the seed
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Retrieves the final score.
+	 *
+	 * @return the score
+	 */
+	public int getScore() {
+		return score;
+	}
+
+	/**
+	 * Retrieves the final length of the snake.
+	 *
+	 * @return the length
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Retrieves the number of ticks played.
+	 *
+	 * @return the tick count
+	 */
+	public long getTicks() {
+		return ticks;
+	}
+
+	/**
+	 * Retrieves how the game ended.
+	 *
+	 * @return the cause of the end of the game
+	 */
+	public Cause getCause() {
+		return cause;
+	}
+
+	/**
+	 * Retrieves the width of the board.
+	 *
+	 * @return the number of columns
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Retrieves the height of the board.
+	 *
+	 * @return the number of rows
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Retrieves when the game ended.
+	 *
+	 * @return the time in milliseconds since the epoch
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("score %d, length %d, %d ticks, %s, seed %d, %dx%d",
+				score, length, ticks, cause, seed, width, height);
+	}
+}
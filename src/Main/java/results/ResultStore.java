@@ -0,0 +1,434 @@
+package results;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The ResultStore keeps {@link GameResult}s in a memory-mapped, append-only file of fixed-width
+ * records, so that the results of millions of games survive the process.
+ *
+ * The file starts with a {@value #HEADER_BYTES}-byte header and continues with
+ * {@value #RECORD_BYTES}-byte records, mapped in chunks of {@value #CHUNK_RECORDS} records that
+ * are added as the file grows. Appending is lock-free: a thread reserves a slot with a single
+ * atomic increment, writes the fields of its record and finally publishes a checksum of them
+ * with release semantics. Only a record whose checksum matches its fields counts, so a record
+ * torn by a crash is recognised and skipped, and when the file is opened again appending resumes
+ * right after the last complete record.
+ *
+ * Leaderboard queries go through a small in-memory index that keeps the slots of the best
+ * {@code indexCapacity} scores in order. The index reads only the records appended since the
+ * previous query, and a query then reads just the records it returns. Closing the store saves the
+ * index next to the file, with the suffix {@value #INDEX_SUFFIX}, so that a store opened again
+ * only reads the records appended after it was saved, even if it crashed since. Without a usable
+ * saved index, because the store was never closed or the saved index is smaller than the one
+ * asked for, the first query rebuilds the index with one pass over every recovered record.
+ */
+public class ResultStore implements Closeable {
+	/** Size of one record in bytes. */
+	public static final int RECORD_BYTES = 64;
+
+	/** Size of the file header in bytes. */
+	public static final int HEADER_BYTES = 64;
+
+	/** Number of records mapped together. */
+	public static final int CHUNK_RECORDS = 1 << 16;
+
+	/** Suffix of the file the index is saved in, next to the store's own file. */
+	public static final String INDEX_SUFFIX = ".top";
+
+	private static final int MAX_CHUNKS = 1 << 14;
+	private static final long CHUNK_BYTES = (long) CHUNK_RECORDS * RECORD_BYTES;
+	private static final int MAGIC = 0x534E4B52;
+	private static final int VERSION = 1;
+	private static final int INDEX_MAGIC = 0x534E4B49;
+	private static final int INDEX_HEADER_BYTES = 24;
+	private static final int INDEX_ENTRY_BYTES = 12;
+
+	private static final int SEED = 0;
+	private static final int TICKS = 8;
+	private static final int TIMESTAMP = 16;
+	private static final int SCORE = 24;
+	private static final int LENGTH = 28;
+	private static final int WIDTH = 32;
+	private static final int HEIGHT = 36;
+	private static final int CAUSE = 40;
+	private static final int CHECKSUM = 60;
+
+	private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+	private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+	private final FileChannel channel;
+	private final Path indexPath;
+	private final AtomicReferenceArray<MappedByteBuffer> chunks;
+	private final AtomicLong next;
+	private final long recovered;
+	private final Set<Long> abandoned = ConcurrentHashMap.newKeySet();
+
+	private final int indexCapacity;
+	private final int[] indexScores;
+	private final long[] indexSlots;
+	private int indexSize;
+	private long indexedUpTo;
+
+	/**
+	 * Opens the store at the given path, creating the file if it does not exist and recovering
+	 * the last complete record if it does. The index keeps the best 1000 results.
+	 *
+	 * @param path the file that holds the results
+	 * @throws IOException if the file cannot be opened or is not a result store
+	 */
+	public ResultStore(Path path) throws IOException {
+		this(path, 1000);
+	}
+
+	/**
+	 * Opens the store at the given path with an index of the given size.
+	 *
+	 * @param path          the file that holds the results
+	 * @param indexCapacity the largest number of results {@link #top(int)} can return
+	 * @throws IOException if the file cannot be opened or is not a result store
+	 */
+	public ResultStore(Path path, int indexCapacity) throws IOException {
+		if (indexCapacity <= 0) {
+			throw new IllegalArgumentException("Index capacity must be positive: " + indexCapacity);
+		}
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		this.indexPath = path.resolveSibling(path.getFileName() + INDEX_SUFFIX);
+		this.chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+		this.indexCapacity = indexCapacity;
+		this.indexScores = new int[indexCapacity];
+		this.indexSlots = new long[indexCapacity];
+		try {
+			checkHeader();
+			this.recovered = recover();
+			loadIndex();
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+		this.next = new AtomicLong(recovered);
+	}
+
+	/**
+	 * Appends a result. Any number of threads may append at the same time without locking.
+	 *
+	 * @param result the result to store
+	 * @return the slot of the new record
+	 */
+	public long append(GameResult result) {
+		return append(result.getSeed(), result.getScore(), result.getLength(), result.getTicks(),
+				result.getCause(), result.getWidth(), result.getHeight(), result.getTimestamp());
+	}
+
+	/**
+	 * Appends a result from its fields, without building a {@link GameResult}.
+	 *
+	 * @param seed      the seed of the game's board
+	 * @param score     the final score
+	 * @param length    the final length of the snake
+	 * @param ticks     the number of ticks played
+	 * @param cause     how the game ended
+	 * @param width     the width of the board
+	 * @param height    the height of the board
+	 * @param timestamp when the game ended, in milliseconds since the epoch
+	 * @return the slot of the new record
+	 */
+	public long append(long seed, int score, int length, long ticks, GameResult.Cause cause, int width, int height,
+			long timestamp) {
+		long slot = next.getAndIncrement();
+		ByteBuffer chunk;
+		try {
+			chunk = chunk(slot);
+		} catch (RuntimeException e) {
+			abandoned.add(slot);
+			throw e;
+		}
+		int offset = offset(slot);
+		LONGS.set(chunk, offset + SEED, seed);
+		LONGS.set(chunk, offset + TICKS, ticks);
+		LONGS.set(chunk, offset + TIMESTAMP, timestamp);
+		INTS.set(chunk, offset + SCORE, score);
+		INTS.set(chunk, offset + LENGTH, length);
+		INTS.set(chunk, offset + WIDTH, width);
+		INTS.set(chunk, offset + HEIGHT, height);
+		INTS.set(chunk, offset + CAUSE, cause.ordinal());
+		INTS.setRelease(chunk, offset + CHECKSUM, checksum(seed, ticks, timestamp, score, length, width, height, cause.ordinal()));
+		return slot;
+	}
+
+	/**
+	 * Reads the record in the given slot.
+	 *
+	 * @param slot the slot returned by {@link #append(GameResult)}
+	 * @return the result, or null if the slot holds no complete record
+	 */
+	public GameResult get(long slot) {
+		if (slot < 0 || slot >= next.get() || !isComplete(slot)) {
+			return null;
+		}
+		ByteBuffer chunk = chunk(slot);
+		int offset = offset(slot);
+		return new GameResult((long) LONGS.get(chunk, offset + SEED), (int) INTS.get(chunk, offset + SCORE),
+				(int) INTS.get(chunk, offset + LENGTH), (long) LONGS.get(chunk, offset + TICKS),
+				GameResult.causeOf((int) INTS.get(chunk, offset + CAUSE)), (int) INTS.get(chunk, offset + WIDTH),
+				(int) INTS.get(chunk, offset + HEIGHT), (long) LONGS.get(chunk, offset + TIMESTAMP));
+	}
+
+	/**
+	 * Retrieves the best results stored so far, highest score first; results with the same score
+	 * keep the order in which they were appended.
+	 *
+	 * @param count the number of results wanted, at most the index capacity
+	 * @return up to {@code count} results
+	 */
+	public synchronized List<GameResult> top(int count) {
+		if (count < 0 || count > indexCapacity) {
+			throw new IllegalArgumentException("The index holds the best " + indexCapacity + " results, not " + count);
+		}
+		updateIndex();
+		List<GameResult> results = new ArrayList<>(Math.min(count, indexSize));
+		for (int i = 0; i < indexSize && i < count; i++) {
+			results.add(get(indexSlots[i]));
+		}
+		return results;
+	}
+
+	/**
+	 * Retrieves the number of slots taken, including records still being written, records torn
+	 * by a crash and slots of appends that failed.
+	 *
+	 * @return the number of slots
+	 */
+	public long size() {
+		return next.get();
+	}
+
+	/**
+	 * Retrieves the number of slots that were in the file when it was opened.
+	 *
+	 * @return the number of recovered slots
+	 */
+	public long getRecoveredSize() {
+		return recovered;
+	}
+
+	/**
+	 * Writes every mapped chunk back to the file, so that the records appended so far survive
+	 * a crash of the machine and not only of the process.
+	 */
+	public void force() {
+		for (int i = 0; i < MAX_CHUNKS; i++) {
+			MappedByteBuffer chunk = chunks.get(i);
+			if (chunk == null) {
+				break;
+			}
+			chunk.force();
+		}
+	}
+
+	/**
+	 * Forces the records to the file, saves the index and closes the file.
+	 *
+	 * @throws IOException if the file cannot be closed or the index cannot be saved
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			force();
+			saveIndex();
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Adds the records appended since the last query to the index. Stops at the first slot that
+	 * is still being written, unless that slot was already there when the file was opened, in
+	 * which case it was torn by a crash, or its append failed before writing it. Neither kind of
+	 * slot will ever be completed.
+	 */
+	private void updateIndex() {
+		long end = next.get();
+		while (indexedUpTo < end) {
+			long slot = indexedUpTo;
+			if (!abandoned.contains(slot)) {
+				if (isComplete(slot)) {
+					insert((int) INTS.get(chunk(slot), offset(slot) + SCORE), slot);
+				} else if (slot >= recovered) {
+					return;
+				}
+			}
+			indexedUpTo++;
+		}
+	}
+
+	/**
+	 * Writes the index and how far it got to a file of its own, replacing the previous one only
+	 * once the new one is complete.
+	 */
+	private synchronized void saveIndex() throws IOException {
+		updateIndex();
+		ByteBuffer buffer = ByteBuffer.allocate(INDEX_HEADER_BYTES + indexSize * INDEX_ENTRY_BYTES)
+				.order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(INDEX_MAGIC).putInt(VERSION).putInt(indexCapacity).putInt(indexSize).putLong(indexedUpTo);
+		for (int i = 0; i < indexSize; i++) {
+			buffer.putInt(indexScores[i]).putLong(indexSlots[i]);
+		}
+		Path temporary = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+		Files.write(temporary, buffer.array());
+		Files.move(temporary, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Loads the index saved when the store was last closed, if there is one that covers at least
+	 * {@code indexCapacity} results and still matches the records. Checking it reads only the
+	 * records it lists. Otherwise the index starts empty and is rebuilt by the first query.
+	 */
+	private void loadIndex() throws IOException {
+		if (!Files.isRegularFile(indexPath)) {
+			return;
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(indexPath)).order(ByteOrder.LITTLE_ENDIAN);
+		if (buffer.remaining() < INDEX_HEADER_BYTES || buffer.getInt() != INDEX_MAGIC || buffer.getInt() != VERSION) {
+			return;
+		}
+		int capacity = buffer.getInt();
+		int size = buffer.getInt();
+		long upTo = buffer.getLong();
+		if (capacity < indexCapacity || size < 0 || size > capacity || upTo < 0 || upTo > recovered
+				|| buffer.remaining() != size * INDEX_ENTRY_BYTES) {
+			return;
+		}
+		int kept = Math.min(size, indexCapacity);
+		for (int i = 0; i < kept; i++) {
+			int score = buffer.getInt();
+			long slot = buffer.getLong();
+			if (slot < 0 || slot >= upTo || !isComplete(slot) || (int) INTS.get(chunk(slot), offset(slot) + SCORE) != score) {
+				indexSize = 0;
+				return;
+			}
+			indexScores[i] = score;
+			indexSlots[i] = slot;
+			indexSize = i + 1;
+		}
+		indexedUpTo = upTo;
+	}
+
+	private void insert(int score, long slot) {
+		if (indexSize == indexCapacity && score <= indexScores[indexSize - 1]) {
+			return;
+		}
+		int low = 0;
+		int high = indexSize;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (indexScores[middle] >= score) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		int moved = Math.min(indexSize, indexCapacity - 1) - low;
+		System.arraycopy(indexScores, low, indexScores, low + 1, moved);
+		System.arraycopy(indexSlots, low, indexSlots, low + 1, moved);
+		indexScores[low] = score;
+		indexSlots[low] = slot;
+		indexSize = Math.min(indexSize + 1, indexCapacity);
+	}
+
+	private boolean isComplete(long slot) {
+		ByteBuffer chunk = chunk(slot);
+		int offset = offset(slot);
+		int stored = (int) INTS.getAcquire(chunk, offset + CHECKSUM);
+		return stored != 0 && stored == checksum((long) LONGS.get(chunk, offset + SEED),
+				(long) LONGS.get(chunk, offset + TICKS), (long) LONGS.get(chunk, offset + TIMESTAMP),
+				(int) INTS.get(chunk, offset + SCORE), (int) INTS.get(chunk, offset + LENGTH),
+				(int) INTS.get(chunk, offset + WIDTH), (int) INTS.get(chunk, offset + HEIGHT),
+				(int) INTS.get(chunk, offset + CAUSE));
+	}
+
+	private void checkHeader() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		if (channel.size() == 0) {
+			header.putInt(MAGIC).putInt(VERSION).putInt(RECORD_BYTES).putInt(CHUNK_RECORDS).clear();
+			channel.write(header, 0);
+			return;
+		}
+		channel.read(header, 0);
+		if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || header.getInt(8) != RECORD_BYTES
+				|| header.getInt(12) != CHUNK_RECORDS) {
+			throw new IOException("Not a result store of version " + VERSION);
+		}
+	}
+
+	/**
+	 * Finds the slot after the last complete record by scanning backwards from the end of the file.
+	 *
+	 * @return the number of slots already used
+	 */
+	private long recover() throws IOException {
+		long slots = Math.max(0, (channel.size() - HEADER_BYTES) / CHUNK_BYTES) * CHUNK_RECORDS;
+		for (long slot = slots - 1; slot >= 0; slot--) {
+			if (isComplete(slot)) {
+				return slot + 1;
+			}
+		}
+		return 0;
+	}
+
+	private ByteBuffer chunk(long slot) {
+		int index = (int) (slot / CHUNK_RECORDS);
+		MappedByteBuffer chunk = chunks.get(index);
+		if (chunk != null) {
+			return chunk;
+		}
+		if (index >= MAX_CHUNKS) {
+			throw new IllegalStateException("Result store is full: " + slot + " records");
+		}
+		try {
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + index * CHUNK_BYTES, CHUNK_BYTES);
+			return chunks.compareAndSet(index, null, mapped) ? mapped : chunks.get(index);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static int offset(long slot) {
+		return (int) (slot % CHUNK_RECORDS) * RECORD_BYTES;
+	}
+
+	private static int checksum(long seed, long ticks, long timestamp, int score, int length, int width, int height,
+			int cause) {
+		long hash = seed;
+		hash = mix(hash ^ ticks);
+		hash = mix(hash ^ timestamp);
+		hash = mix(hash ^ ((long) score << 32 | (length & 0xFFFFFFFFL)));
+		hash = mix(hash ^ ((long) width << 32 | (height & 0xFFFFFFFFL)));
+		hash = mix(hash ^ cause);
+		int checksum = (int) (hash ^ (hash >>> 32));
+		return checksum == 0 ? 1 : checksum;
+	}
+
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,271 @@
+package server;
+
+import application.GameLoop;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The GameServer class hosts one game per connected client and streams each tick to it.
+ *
+ * A single thread runs a non-blocking {@link Selector}: it accepts connections, reads the
+ * clients' commands and, on the deadlines of a {@link GameLoop}, advances every session by one
+ * tick and queues what changed as a small DELTA frame (see {@link Protocol}). Ticking a 20x20
+ * game takes well under a microsecond, so one thread keeps thousands of sessions on time, and
+ * no thread is ever blocked on a slow client: its frames wait in its own buffer and, if that
+ * fills up, it is resynchronised later with a STATE frame.
+ */
+public class GameServer implements Closeable {
+	/** Default port of the server. */
+	public static final int DEFAULT_PORT = 7340;
+
+	private final InetSocketAddress address;
+	private final int width;
+	private final int height;
+	private final long tickNanos;
+	private final List<Session> sessions = new ArrayList<>();
+	private final ByteBuffer scratch;
+
+	private Selector selector;
+	private ServerSocketChannel serverChannel;
+	private Thread thread;
+	private volatile boolean running;
+	private volatile long tickCount;
+	private volatile int sessionCount;
+	private volatile long droppedFrames;
+
+	/**
+	 * Constructs a server. Nothing is opened until {@link #start()} is called.
+	 *
+	 * @param address   the address to listen on; port 0 picks a free port
+	 * @param width     the width of the sessions' boards
+	 * @param height    the height of the sessions' boards
+	 * @param tickNanos the time between two ticks, in nanoseconds
+	 */
+	public GameServer(InetSocketAddress address, int width, int height, long tickNanos) {
+		this.address = address;
+		this.width = width;
+		this.height = height;
+		this.tickNanos = tickNanos;
+		this.scratch = ByteBuffer.allocate(Protocol.maxStateFrame(width * height));
+	}
+
+	/**
+	 * Opens the listening socket and starts the server thread.
+	 *
+	 * @throws IOException if the socket cannot be opened
+	 */
+	public synchronized void start() throws IOException {
+		if (running) {
+			return;
+		}
+		selector = Selector.open();
+		serverChannel = ServerSocketChannel.open();
+		serverChannel.bind(address, 1024);
+		serverChannel.configureBlocking(false);
+		serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+		running = true;
+		thread = new Thread(this::run, "game-server");
+		thread.start();
+	}
+
+	/**
+	 * Retrieves the port the server listens on, which is useful when it was started on port 0.
+	 *
+	 * @return the local port
+	 * @throws IOException if the port cannot be read
+	 */
+	public int getPort() throws IOException {
+		return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+	}
+
+	/**
+	 * Stops the server thread and closes every connection.
+	 */
+	@Override
+	public synchronized void close() {
+		running = false;
+		if (selector != null) {
+			selector.wakeup();
+		}
+		if (thread != null) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Retrieves the number of ticks run so far.
+	 *
+	 * @return the tick count
+	 */
+	public long getTickCount() {
+		return tickCount;
+	}
+
+	/**
+	 * Retrieves the number of connected clients.
+	 *
+	 * @return the session count
+	 */
+	public int getSessionCount() {
+		return sessionCount;
+	}
+
+	/**
+	 * Retrieves how many frames were dropped, across every session, because a client was not
+	 * reading fast enough.
+	 *
+	 * @return the number of dropped frames
+	 */
+	public long getDroppedFrames() {
+		return droppedFrames;
+	}
+
+	/**
+	 * Starts a server and keeps it running until the process is stopped.
+	 *
+	 * @param args optionally the port, followed by the tick interval in milliseconds
+	 * @throws IOException if the socket cannot be opened
+	 */
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		long tickMillis = args.length > 1 ? Long.parseLong(args[1]) : 100;
+		GameServer server = new GameServer(new InetSocketAddress(port), 20, 20,
+				TimeUnit.MILLISECONDS.toNanos(tickMillis));
+		server.start();
+		System.out.println("Servidor de Snake escuchando en el puerto " + server.getPort());
+	}
+
+	private void run() {
+		GameLoop loop = new GameLoop(this::tickAll, this::flushAll, () -> false);
+		loop.setTickNanos(tickNanos);
+		try {
+			while (running) {
+				long wait = loop.nanosUntilNextTick(System.nanoTime());
+				if (wait >= 1_000_000) {
+					selector.select(TimeUnit.NANOSECONDS.toMillis(wait));
+				} else {
+					selector.selectNow();
+				}
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					if (!key.isValid()) {
+						continue;
+					}
+					if (key.isAcceptable()) {
+						accept();
+					} else {
+						handle(key, (Session) key.attachment());
+					}
+				}
+				loop.advance(System.nanoTime());
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			for (Session session : sessions) {
+				session.close();
+			}
+			sessions.clear();
+			sessionCount = 0;
+			try {
+				serverChannel.close();
+				selector.close();
+			} catch (IOException e) {
+				// Se está cerrando el servidor; los errores al liberar los recursos no importan
+			}
+		}
+	}
+
+	private void accept() throws IOException {
+		SocketChannel channel;
+		while ((channel = serverChannel.accept()) != null) {
+			channel.configureBlocking(false);
+			channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+			SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+			Session session = new Session(channel, key, width, height);
+			key.attach(session);
+			session.index = sessions.size();
+			sessions.add(session);
+			sessionCount = sessions.size();
+			try {
+				session.flush(tickCount, scratch);
+			} catch (IOException e) {
+				remove(session);
+			}
+		}
+	}
+
+	private void handle(SelectionKey key, Session session) {
+		try {
+			if (key.isReadable() && !session.read()) {
+				remove(session);
+				return;
+			}
+			if (key.isValid() && key.isWritable()) {
+				session.flush(tickCount, scratch);
+			}
+		} catch (IOException e) {
+			remove(session);
+		}
+	}
+
+	private void tickAll() {
+		long time = System.nanoTime();
+		long tick = tickCount + 1;
+		long dropped = 0;
+		for (int i = 0; i < sessions.size(); i++) {
+			if (!sessions.get(i).tick(tick, time, scratch)) {
+				dropped++;
+			}
+		}
+		droppedFrames += dropped;
+		tickCount = tick;
+	}
+
+	private void flushAll() {
+		for (int i = sessions.size() - 1; i >= 0; i--) {
+			Session session = sessions.get(i);
+			try {
+				session.flush(tickCount, scratch);
+			} catch (IOException e) {
+				remove(session);
+			}
+		}
+	}
+
+	/**
+	 * Closes a session and takes it out of the list by moving the last session into its slot.
+	 */
+	private void remove(Session session) {
+		if (session.index < 0) {
+			return;
+		}
+		session.close();
+		Session last = sessions.remove(sessions.size() - 1);
+		if (last != session) {
+			sessions.set(session.index, last);
+			last.index = session.index;
+		}
+		session.index = -1;
+		sessionCount = sessions.size();
+	}
+}
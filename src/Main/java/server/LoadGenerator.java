@@ -0,0 +1,185 @@
+package server;
+
+import domain.Direction;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The LoadGenerator class opens many client connections to a {@link GameServer} from a single
+ * thread, plays them with random turns and measures the latency from tick to client: the time
+ * between the moment the server ran a tick and the moment the client decoded its DELTA frame.
+ *
+ * The latency relies on the server time carried by each delta, which is only comparable with
+ * the client's clock when both run on the same host. Without a host argument the generator
+ * starts a server in the same process.
+ */
+public class LoadGenerator {
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private final InetSocketAddress address;
+	private final int clients;
+	private final Random random = new Random(1);
+	private final ByteBuffer command = ByteBuffer.allocate(Protocol.COMMAND_SIZE);
+
+	private long[] latencies = new long[1 << 16];
+	private int latencyCount;
+	private long stateFrames;
+	private long deltaFrames;
+	private long bytesReceived;
+	private long gamesOver;
+
+	/**
+	 * Constructs a load generator.
+	 *
+	 * @param address the address of the server
+	 * @param clients the number of connections to open
+	 */
+	public LoadGenerator(InetSocketAddress address, int clients) {
+		this.address = address;
+		this.clients = clients;
+	}
+
+	/**
+	 * Connects every client, plays for the given time and prints a report.
+	 *
+	 * @param durationNanos how long to play once every client is connected
+	 * @throws IOException if a connection fails
+	 */
+	public void run(long durationNanos) throws IOException {
+		try (Selector selector = Selector.open()) {
+			for (int i = 0; i < clients; i++) {
+				SocketChannel channel = SocketChannel.open(address);
+				channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+				channel.configureBlocking(false);
+				channel.register(selector, SelectionKey.OP_READ, ByteBuffer.allocate(64 * 1024));
+			}
+
+			long start = System.nanoTime();
+			long end = start + durationNanos;
+			while (System.nanoTime() < end) {
+				selector.select(TimeUnit.NANOSECONDS.toMillis(Math.max(1_000_000, end - System.nanoTime())));
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					receive((SocketChannel) key.channel(), (ByteBuffer) key.attachment());
+				}
+			}
+			report(System.nanoTime() - start);
+			for (SelectionKey key : selector.keys()) {
+				key.channel().close();
+			}
+		}
+	}
+
+	private void receive(SocketChannel channel, ByteBuffer buffer) throws IOException {
+		int read = channel.read(buffer);
+		if (read < 0) {
+			throw new IOException("Server closed the connection");
+		}
+		bytesReceived += read;
+		buffer.flip();
+		int length;
+		while ((length = Protocol.peekFrame(buffer)) >= 0) {
+			Protocol.getVarInt(buffer);
+			int end = buffer.position() + length;
+			byte type = buffer.get();
+			if (type == Protocol.FRAME_DELTA) {
+				Protocol.getVarLong(buffer);
+				long time = buffer.getLong();
+				recordLatency(System.nanoTime() - time);
+				deltaFrames++;
+				if ((buffer.get() & Protocol.DELTA_GAME_OVER) != 0) {
+					gamesOver++;
+					send(channel, Protocol.COMMAND_RESTART, 0);
+				} else if (random.nextInt(4) == 0) {
+					send(channel, Protocol.COMMAND_DIRECTION, random.nextInt(DIRECTIONS.length));
+				}
+			} else if (type == Protocol.FRAME_STATE) {
+				stateFrames++;
+			}
+			buffer.position(end);
+		}
+		buffer.compact();
+	}
+
+	/**
+	 * Sends a command. Commands are tiny and the socket buffer is nearly always empty, so a
+	 * command that does not fit right away is simply dropped.
+	 */
+	private void send(SocketChannel channel, byte type, int argument) throws IOException {
+		command.clear();
+		command.put(type).put((byte) argument).flip();
+		channel.write(command);
+	}
+
+	private void recordLatency(long nanos) {
+		if (latencyCount == latencies.length) {
+			latencies = Arrays.copyOf(latencies, latencyCount << 1);
+		}
+		latencies[latencyCount++] = nanos;
+	}
+
+	private void report(long elapsedNanos) {
+		Arrays.sort(latencies, 0, latencyCount);
+		double seconds = elapsedNanos / 1e9;
+		System.out.printf("Clientes: %d, duración: %.1f s%n", clients, seconds);
+		System.out.printf("Frames: %d deltas (%.0f/s), %d estados, %d partidas terminadas, %.1f KB/s%n",
+				deltaFrames, deltaFrames / seconds, stateFrames, gamesOver, bytesReceived / 1024.0 / seconds);
+		System.out.printf("Latencia tick-cliente: p50 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, máx %.3f ms%n",
+				percentile(0.50) / 1e6, percentile(0.99) / 1e6, percentile(0.999) / 1e6,
+				(latencyCount == 0 ? 0 : latencies[latencyCount - 1]) / 1e6);
+	}
+
+	private long percentile(double fraction) {
+		if (latencyCount == 0) {
+			return 0;
+		}
+		return latencies[(int) Math.min(latencyCount - 1, Math.ceil(fraction * latencyCount) - 1)];
+	}
+
+	/**
+	 * Runs a load test.
+	 *
+	 * @param args optionally the number of clients, the duration in seconds, the tick interval in
+	 *             milliseconds of the embedded server, and a host and port to use an already running
+	 *             server instead
+	 * @throws IOException if a connection fails
+	 */
+	public static void main(String[] args) throws IOException {
+		int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		long seconds = args.length > 1 ? Long.parseLong(args[1]) : 10;
+		long tickMillis = args.length > 2 ? Long.parseLong(args[2]) : 100;
+
+		GameServer server = null;
+		InetSocketAddress address;
+		if (args.length > 3) {
+			int port = args.length > 4 ? Integer.parseInt(args[4]) : GameServer.DEFAULT_PORT;
+			address = new InetSocketAddress(args[3], port);
+		} else {
+			server = new GameServer(new InetSocketAddress("127.0.0.1", 0), 20, 20,
+					TimeUnit.MILLISECONDS.toNanos(tickMillis));
+			server.start();
+			address = new InetSocketAddress("127.0.0.1", server.getPort());
+		}
+		try {
+			new LoadGenerator(address, clients).run(TimeUnit.SECONDS.toNanos(seconds));
+		} finally {
+			if (server != null) {
+				System.out.printf("Servidor: %d ticks, %d frames descartados%n",
+						server.getTickCount(), server.getDroppedFrames());
+				server.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package server;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The Protocol class defines the binary framing spoken between the {@link GameServer} and its
+ * clients.
+ *
+ * Clients send fixed two-byte commands: a command type and its argument. The server sends
+ * frames made of a varint length, a frame type and the frame's fields. Cells are packed indices
+ * ({@code y * width + x}) and, like every other unsigned number, are written as LEB128 varints:
+ * seven bits per byte, low bits first, with the high bit set on every byte but the last.
+ *
+ * <pre>
+ * STATE  tick, width, height, score, apple, game over (1 byte), snake length, snake cells head first
+ * DELTA  tick, server time (8 bytes, big endian), flags (1 byte), then one varint for each flag
+ *        set among HEAD, TAIL, APPLE and SCORE, in that order
+ * </pre>
+ *
+ * A STATE frame is sent when a session starts and whenever the client has fallen so far behind
+ * that deltas were dropped; every following DELTA applies on top of it. The server time is its
+ * {@link System#nanoTime()} when the tick ran, so a client on the same host can measure the
+ * latency from tick to client.
+ */
+public final class Protocol {
+	/** Client command: turn; the argument is the {@link domain.Direction} ordinal. */
+	public static final byte COMMAND_DIRECTION = 1;
+	/** Client command: start a new game once the current one is over; the argument is ignored. */
+	public static final byte COMMAND_RESTART = 2;
+	/** Size of every client command, in bytes. */
+	public static final int COMMAND_SIZE = 2;
+
+	/** Server frame: the whole state of the session's game. */
+	public static final byte FRAME_STATE = 1;
+	/** Server frame: what changed in the last tick. */
+	public static final byte FRAME_DELTA = 2;
+
+	/** Delta flag: a new head cell follows. */
+	public static final int DELTA_HEAD = 1;
+	/** Delta flag: the tail cell that was freed follows. */
+	public static final int DELTA_TAIL = 1 << 1;
+	/** Delta flag: the new apple cell follows. */
+	public static final int DELTA_APPLE = 1 << 2;
+	/** Delta flag: the new score follows. */
+	public static final int DELTA_SCORE = 1 << 3;
+	/** Delta flag: the game ended on this tick. */
+	public static final int DELTA_GAME_OVER = 1 << 4;
+
+	/** Largest frame a peer will accept, to reject garbage early. */
+	public static final int MAX_FRAME_LENGTH = 1 << 24;
+
+	/** Upper bound on the encoded size of a DELTA frame, length prefix included. */
+	public static final int MAX_DELTA_FRAME = 1 + 1 + 10 + 8 + 1 + 4 * 5;
+
+	private Protocol() {
+	}
+
+	/**
+	 * Computes an upper bound on the encoded size of a STATE frame, length prefix included.
+	 *
+	 * @param snakeLength the length of the snake in the frame
+	 * @return the number of bytes the frame can take at most
+	 */
+	public static int maxStateFrame(int snakeLength) {
+		return 5 + 1 + 10 + 5 * 4 + 1 + 5 + 5 * snakeLength;
+	}
+
+	/**
+	 * Writes an unsigned number as a varint.
+	 *
+	 * @param buffer the buffer to write to
+	 * @param value  the value to write
+	 */
+	public static void putVarLong(ByteBuffer buffer, long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	/**
+	 * Reads a varint written by {@link #putVarLong(ByteBuffer, long)}.
+	 *
+	 * @param buffer the buffer to read from
+	 * @return the value read
+	 * @throws IllegalArgumentException if the varint is longer than ten bytes
+	 */
+	public static long getVarLong(ByteBuffer buffer) {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Malformed varint");
+	}
+
+	/**
+	 * Reads a varint that must fit in an int.
+	 *
+	 * @param buffer the buffer to read from
+	 * @return the value read
+	 */
+	public static int getVarInt(ByteBuffer buffer) {
+		return (int) getVarLong(buffer);
+	}
+
+	/**
+	 * Determines whether the buffer holds a whole frame at its position, without consuming it.
+	 *
+	 * @param buffer a buffer in read mode
+	 * @return the length of the frame's body, with the position left on the length prefix,
+	 *         or -1 if more bytes are needed
+	 * @throws IllegalArgumentException if the length prefix is malformed or too large
+	 */
+	public static int peekFrame(ByteBuffer buffer) {
+		int position = buffer.position();
+		int length = 0;
+		for (int shift = 0, i = position; ; shift += 7, i++) {
+			if (i == buffer.limit()) {
+				return -1;
+			}
+			byte b = buffer.get(i);
+			length |= (b & 0x7F) << shift;
+			if (b >= 0) {
+				if (length > MAX_FRAME_LENGTH) {
+					throw new IllegalArgumentException("Frame too large: " + length);
+				}
+				return buffer.limit() - (i + 1) >= length ? length : -1;
+			}
+			if (shift >= 21) {
+				throw new IllegalArgumentException("Malformed frame length");
+			}
+		}
+	}
+}
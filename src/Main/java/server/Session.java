@@ -0,0 +1,220 @@
+package server;
+
+import application.DirectionQueue;
+import domain.Board;
+import domain.Direction;
+import domain.Game;
+import domain.GameBoard;
+import domain.Snake;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * One client connection of the {@link GameServer} and the game it plays.
+ *
+ * Sessions are only touched by the server's selector thread. Outgoing frames are queued in a
+ * fixed direct buffer; when a slow client lets it fill up, the deltas that do not fit are
+ * dropped and a STATE frame is sent instead as soon as the buffer has drained.
+ */
+class Session {
+	private static final Direction[] DIRECTIONS = Direction.values();
+	private static final int MAX_QUEUED_TURNS = 4;
+
+	private final SocketChannel channel;
+	private final SelectionKey key;
+	private final int width;
+	private final int height;
+	private final ByteBuffer inbound;
+	private final ByteBuffer outbound;
+	private final DirectionQueue directions = new DirectionQueue(MAX_QUEUED_TURNS);
+	private Game game;
+	private int lastApple;
+	private int lastScore;
+	private boolean resync;
+	/** Position in the server's session list, or -1 once the session has been removed. */
+	int index;
+
+	Session(SocketChannel channel, SelectionKey key, int width, int height) {
+		this.channel = channel;
+		this.key = key;
+		this.width = width;
+		this.height = height;
+		this.inbound = ByteBuffer.allocate(Protocol.COMMAND_SIZE * 64);
+		this.outbound = ByteBuffer.allocateDirect(Math.max(8192, 2 * Protocol.maxStateFrame(width * height)));
+		this.game = newGame();
+		this.resync = true;
+	}
+
+	/**
+	 * Reads the pending commands from the client.
+	 *
+	 * @return false if the client closed the connection
+	 * @throws IOException if the connection failed or a command is invalid
+	 */
+	boolean read() throws IOException {
+		int read = channel.read(inbound);
+		inbound.flip();
+		while (inbound.remaining() >= Protocol.COMMAND_SIZE) {
+			byte type = inbound.get();
+			byte argument = inbound.get();
+			switch (type) {
+				case Protocol.COMMAND_DIRECTION -> {
+					if (argument < 0 || argument >= DIRECTIONS.length) {
+						throw new IOException("Invalid direction: " + argument);
+					}
+					directions.offer(DIRECTIONS[argument]);
+				}
+				case Protocol.COMMAND_RESTART -> {
+					if (game.isGameOver()) {
+						game = newGame();
+						resync = true;
+					}
+				}
+				default -> throw new IOException("Unknown command: " + type);
+			}
+		}
+		inbound.compact();
+		return read >= 0;
+	}
+
+	/**
+	 * Plays one tick and queues its delta.
+	 *
+	 * @param tick    the server's tick number
+	 * @param time    the server time of the tick, from {@link System#nanoTime()}
+	 * @param scratch a buffer large enough for any frame, used to build the delta
+	 * @return false if the delta had to be dropped because the client is not keeping up
+	 */
+	boolean tick(long tick, long time, ByteBuffer scratch) {
+		if (game.isGameOver()) {
+			return true;
+		}
+		directions.applyNextTurn(game);
+		game.update();
+		if (resync) {
+			return true;
+		}
+
+		GameBoard board = game.getGameBoard();
+		Snake snake = board.getSnake();
+		int apple = board.getApple().getY() * width + board.getApple().getX();
+		int flags;
+		if (game.isGameOver()) {
+			flags = Protocol.DELTA_GAME_OVER;
+		} else {
+			flags = Protocol.DELTA_HEAD;
+			if (snake.getVacatedCell() >= 0) {
+				flags |= Protocol.DELTA_TAIL;
+			}
+			if (apple != lastApple) {
+				flags |= Protocol.DELTA_APPLE;
+			}
+			if (game.getScore() != lastScore) {
+				flags |= Protocol.DELTA_SCORE;
+			}
+		}
+
+		scratch.clear();
+		scratch.put(Protocol.FRAME_DELTA);
+		Protocol.putVarLong(scratch, tick);
+		scratch.putLong(time);
+		scratch.put((byte) flags);
+		if ((flags & Protocol.DELTA_HEAD) != 0) {
+			Protocol.putVarLong(scratch, snake.getCell(0));
+		}
+		if ((flags & Protocol.DELTA_TAIL) != 0) {
+			Protocol.putVarLong(scratch, snake.getVacatedCell());
+		}
+		if ((flags & Protocol.DELTA_APPLE) != 0) {
+			Protocol.putVarLong(scratch, apple);
+		}
+		if ((flags & Protocol.DELTA_SCORE) != 0) {
+			Protocol.putVarLong(scratch, game.getScore());
+		}
+		if (!enqueue(scratch)) {
+			resync = true;
+			return false;
+		}
+		lastApple = apple;
+		lastScore = game.getScore();
+		return true;
+	}
+
+	/**
+	 * Writes as much of the queued output as the socket takes. Once the queue is empty, a
+	 * session that dropped deltas is brought back in sync with a STATE frame.
+	 *
+	 * @param tick    the server's current tick number
+	 * @param scratch a buffer large enough for any frame
+	 * @throws IOException if the connection failed
+	 */
+	void flush(long tick, ByteBuffer scratch) throws IOException {
+		if (resync && outbound.position() == 0) {
+			writeState(tick, scratch);
+		}
+		if (outbound.position() > 0) {
+			outbound.flip();
+			channel.write(outbound);
+			outbound.compact();
+		}
+		int interest = outbound.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ;
+		if (key.interestOps() != interest) {
+			key.interestOps(interest);
+		}
+	}
+
+	void close() {
+		key.cancel();
+		try {
+			channel.close();
+		} catch (IOException e) {
+			// La conexión ya estaba rota; no hay nada más que liberar
+		}
+	}
+
+	private void writeState(long tick, ByteBuffer scratch) {
+		GameBoard board = game.getGameBoard();
+		Snake snake = board.getSnake();
+		int apple = board.getApple().getY() * width + board.getApple().getX();
+		scratch.clear();
+		scratch.put(Protocol.FRAME_STATE);
+		Protocol.putVarLong(scratch, tick);
+		Protocol.putVarLong(scratch, width);
+		Protocol.putVarLong(scratch, height);
+		Protocol.putVarLong(scratch, game.getScore());
+		Protocol.putVarLong(scratch, apple);
+		scratch.put((byte) (game.isGameOver() ? 1 : 0));
+		Protocol.putVarLong(scratch, snake.getLength());
+		for (int i = 0; i < snake.getLength(); i++) {
+			Protocol.putVarLong(scratch, snake.getCell(i));
+		}
+		if (enqueue(scratch)) {
+			lastApple = apple;
+			lastScore = game.getScore();
+			resync = false;
+		}
+	}
+
+	/**
+	 * Appends a frame built in {@code scratch}, prefixed with its length.
+	 *
+	 * @return false if it does not fit in the output buffer
+	 */
+	private boolean enqueue(ByteBuffer scratch) {
+		scratch.flip();
+		if (outbound.remaining() < scratch.remaining() + 5) {
+			return false;
+		}
+		Protocol.putVarLong(outbound, scratch.remaining());
+		outbound.put(scratch);
+		return true;
+	}
+
+	private Game newGame() {
+		return new Game(new Board(width, height, ThreadLocalRandom.current().nextLong()));
+	}
+}
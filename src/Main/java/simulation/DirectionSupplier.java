@@ -0,0 +1,19 @@
+package simulation;
+
+import domain.Direction;
+import domain.Game;
+
+/**
+ * A DirectionSupplier decides which way the snake should turn before each tick of a headless game.
+ * Implementations may keep state between calls, so the engine asks for a fresh supplier per game.
+ */
+@FunctionalInterface
+public interface DirectionSupplier {
+	/**
+	 * Chooses the direction for the next tick.
+	 *
+	 * @param game the game about to be updated
+	 * @return the direction to pass to {@link Game#changeDirection(Direction)}, or null to keep the current one
+	 */
+	public abstract Direction next(Game game);
+}
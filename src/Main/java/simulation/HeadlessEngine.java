@@ -0,0 +1,255 @@
+package simulation;
+
+import autopilot.Autopilot;
+import autopilot.TranspositionTable;
+import domain.Board;
+import domain.Direction;
+import domain.Game;
+import results.GameResult;
+import results.ResultStore;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntFunction;
+
+/**
+ * The HeadlessEngine steps {@link Game} instances as fast as the CPU allows, with no rendering
+ * and no sleeping between ticks. It is meant for evaluating strategies over large numbers of games.
+ *
+ * Games are independent, so a batch can be sharded across a {@link ForkJoinPool}: the range of
+ * game indices is split in halves until each shard is small enough, every shard plays its games
+ * sequentially, and the partial reports are merged on the way back up.
+ *
+ * An engine built with {@link #withAutopilots(IntFunction, int, int, int, long)} plays every game
+ * with an {@link Autopilot} and lets all of them, on every thread, share one
+ * {@link TranspositionTable}, so positions one game evaluated are reused by the others.
+ */
+public class HeadlessEngine {
+	private static final int SHARD_SIZE = 64;
+
+	private final IntFunction<Game> gameFactory;
+	private final IntFunction<DirectionSupplier> supplierFactory;
+	private final long maxTicksPerGame;
+	private final TranspositionTable table;
+	private volatile ResultStore resultStore;
+
+	/**
+	 * Constructs an engine.
+	 *
+	 * @param gameFactory     creates the game with the given index of a batch
+	 * @param supplierFactory creates the direction supplier that drives the game with the given index
+	 * @param maxTicksPerGame the number of ticks after which a game that is still running is stopped,
+	 *                        so that a strategy that never dies cannot stall a batch
+	 */
+	public HeadlessEngine(IntFunction<Game> gameFactory, IntFunction<DirectionSupplier> supplierFactory,
+			long maxTicksPerGame) {
+		this(gameFactory, supplierFactory, maxTicksPerGame, null);
+	}
+
+	private HeadlessEngine(IntFunction<Game> gameFactory, IntFunction<DirectionSupplier> supplierFactory,
+			long maxTicksPerGame, TranspositionTable table) {
+		this.gameFactory = gameFactory;
+		this.supplierFactory = supplierFactory;
+		this.maxTicksPerGame = maxTicksPerGame;
+		this.table = table;
+	}
+
+	/**
+	 * Creates an engine whose games are played by autopilots sharing one transposition table.
+	 * The engine starts a new search on the table at the start of every batch, so that entries
+	 * stored by earlier batches are the first to be replaced; within a batch, entries compete
+	 * by depth only.
+	 *
+	 * @param gameFactory     creates the game with the given index of a batch; every game must be
+	 *                        played on a dense board of the given size, and all of them on boards
+	 *                        with the same walls, since they share their evaluations
+	 * @param width           the width of the boards
+	 * @param height          the height of the boards
+	 * @param tableCapacity   the number of entries of the shared table
+	 * @param maxTicksPerGame the number of ticks after which a game that is still running is stopped
+	 * @return the engine
+	 */
+	public static HeadlessEngine withAutopilots(IntFunction<Game> gameFactory, int width, int height, int tableCapacity,
+			long maxTicksPerGame) {
+		TranspositionTable table = new TranspositionTable(tableCapacity);
+		return new HeadlessEngine(gameFactory, i -> new Autopilot(width, height, table), maxTicksPerGame, table);
+	}
+
+	/**
+	 * Retrieves the transposition table the autopilots of the engine share.
+	 *
+	 * @return the shared table, or null if the engine was not built with autopilots
+	 */
+	public TranspositionTable getTranspositionTable() {
+		return table;
+	}
+
+	/**
+	 * Makes the engine append the result of every game it plays to the given store, from
+	 * whichever thread played the game.
+	 *
+	 * @param resultStore the store that receives the results, or null to keep none
+	 */
+	public void setResultStore(ResultStore resultStore) {
+		this.resultStore = resultStore;
+	}
+
+	/**
+	 * Plays a single game until it is over or the tick limit is reached.
+	 *
+	 * @param game     the game to play
+	 * @param supplier the supplier asked for a direction before every tick
+	 * @return the number of ticks played
+	 */
+	public long play(Game game, DirectionSupplier supplier) {
+		long ticks = 0;
+		while (!game.isGameOver() && ticks < maxTicksPerGame) {
+			Direction direction = supplier.next(game);
+			if (direction != null) {
+				game.changeDirection(direction);
+			}
+			game.update();
+			ticks++;
+		}
+		return ticks;
+	}
+
+	/**
+	 * Plays the games with indices {@code [0, games)} one after another on the calling thread.
+	 *
+	 * @param games the number of games to play
+	 * @return the aggregate report of the batch
+	 */
+	public SimulationReport runSequential(int games) {
+		long start = System.nanoTime();
+		startBatch();
+		SimulationReport report = playRange(0, games);
+		return report.withElapsedNanos(System.nanoTime() - start);
+	}
+
+	/**
+	 * Plays the games with indices {@code [0, games)} on the common fork-join pool, using every core.
+	 *
+	 * @param games the number of games to play
+	 * @return the aggregate report of the batch
+	 */
+	public SimulationReport runParallel(int games) {
+		return runParallel(games, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Plays the games with indices {@code [0, games)} on the given fork-join pool.
+	 *
+	 * @param games the number of games to play
+	 * @param pool  the pool that executes the shards
+	 * @return the aggregate report of the batch
+	 */
+	public SimulationReport runParallel(int games, ForkJoinPool pool) {
+		long start = System.nanoTime();
+		startBatch();
+		SimulationReport report = pool.invoke(new Shard(0, games));
+		return report.withElapsedNanos(System.nanoTime() - start);
+	}
+
+	/**
+	 * Runs a batch of 20x20 games driven by random turns and prints the report, as a quick
+	 * throughput check. Game {@code i} uses seed {@code i} for both its board and its turns.
+	 * With {@code --autopilot} the games are played by autopilots sharing a transposition table
+	 * instead, and the table's hit rate is printed too.
+	 *
+	 * @param args optionally the number of games to play, followed by "sequential" to use a single
+	 *             thread or "parallel", followed by a file in which to store the results; the
+	 *             {@code --autopilot} option may appear anywhere
+	 * @throws IOException if the result file cannot be opened
+	 */
+	public static void main(String[] args) throws IOException {
+		List<String> arguments = new ArrayList<>(Arrays.asList(args));
+		boolean autopilot = arguments.remove("--autopilot");
+		args = arguments.toArray(new String[0]);
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+		boolean sequential = args.length > 1 && args[1].equals("sequential");
+		ResultStore store = args.length > 2 ? new ResultStore(Path.of(args[2])) : null;
+		Direction[] directions = Direction.values();
+
+		HeadlessEngine engine = autopilot
+				? withAutopilots(i -> new Game(new Board(20, 20, i)), 20, 20, 1 << 20, 1_000_000)
+				: new HeadlessEngine(
+						i -> new Game(new Board(20, 20, i)),
+						i -> {
+							Random random = new Random(i);
+							return game -> random.nextInt(4) == 0 ? directions[random.nextInt(directions.length)] : null;
+						},
+						1_000_000);
+		engine.setResultStore(store);
+		SimulationReport report = sequential ? engine.runSequential(games) : engine.runParallel(games);
+		System.out.println(report);
+		TranspositionTable table = engine.getTranspositionTable();
+		if (table != null) {
+			System.out.printf("Transposition table: %d hits, %d misses, %d replacements%n",
+					table.getHits(), table.getMisses(), table.getReplacements());
+		}
+		if (store != null) {
+			System.out.println(store.size() + " results stored, best:");
+			for (GameResult result : store.top(5)) {
+				System.out.println("  " + result);
+			}
+			store.close();
+		}
+	}
+
+	private void startBatch() {
+		if (table != null) {
+			table.newSearch();
+		}
+	}
+
+	private SimulationReport playRange(int from, int to) {
+		long ticks = 0;
+		long totalScore = 0;
+		int bestScore = 0;
+		ResultStore store = resultStore;
+		for (int i = from; i < to; i++) {
+			Game game = gameFactory.apply(i);
+			long played = play(game, supplierFactory.apply(i));
+			ticks += played;
+			if (store != null) {
+				store.append(GameResult.of(game, played));
+			}
+			totalScore += game.getScore();
+			bestScore = Math.max(bestScore, game.getScore());
+		}
+		return new SimulationReport(to - from, ticks, totalScore, bestScore, 0);
+	}
+
+	/**
+	 * A range of game indices that is split in halves until it is at most {@link #SHARD_SIZE} games long.
+	 */
+	@SuppressWarnings("serial")
+	private class Shard extends RecursiveTask<SimulationReport> {
+		private final int from;
+		private final int to;
+
+		Shard(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected SimulationReport compute() {
+			if (to - from <= SHARD_SIZE) {
+				return playRange(from, to);
+			}
+			int middle = (from + to) >>> 1;
+			Shard left = new Shard(from, middle);
+			left.fork();
+			SimulationReport right = new Shard(middle, to).compute();
+			return left.join().merge(right);
+		}
+	}
+}
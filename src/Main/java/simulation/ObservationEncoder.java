@@ -0,0 +1,258 @@
+package simulation;
+
+import domain.GameBoard;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The ObservationEncoder writes the state of a {@link GameBoard} as numeric planes straight into
+ * memory owned by the caller, typically a direct {@link ByteBuffer} or a {@link MemorySegment}
+ * shared with a trainer, so that no strings or intermediate arrays are built.
+ *
+ * The observation has three one-hot planes, one after the other: {@link #PLANE_HEAD},
+ * {@link #PLANE_BODY} and {@link #PLANE_APPLE}. Each plane is row-major and holds one value per
+ * cell, either a byte (0 or 1) or a float (0.0 or 1.0) in the byte order of the target.
+ *
+ * Without a crop the planes cover the whole board and only the first export is written in full:
+ * after that only the board's dirty cells and the previous head are rewritten, so an export costs
+ * as much as the cells that changed. This relies on the encoder being called after every tick;
+ * call {@link #reset()} when ticks were skipped. With a crop the planes
+ * cover a square centred on the head, with cells beyond the walls marked as body, and the whole
+ * square is written on every export since it moves with the head.
+ */
+public class ObservationEncoder {
+	/** Index of the plane that marks the snake's head. */
+	public static final int PLANE_HEAD = 0;
+
+	/** Index of the plane that marks the rest of the snake's body and the walls of a level. */
+	public static final int PLANE_BODY = 1;
+
+	/** Index of the plane that marks the apple. */
+	public static final int PLANE_APPLE = 2;
+
+	/** Number of planes in an observation. */
+	public static final int PLANES = 3;
+
+	/**
+	 * How each value of a plane is stored.
+	 */
+	public enum Format {
+		/** One unsigned byte per value. */
+		UINT8(1),
+		/** One 32-bit float per value. */
+		FLOAT32(4);
+
+		private final int bytes;
+
+		Format(int bytes) {
+			this.bytes = bytes;
+		}
+
+		/**
+		 * Retrieves the size of one value.
+		 *
+		 * @return the number of bytes per value
+		 */
+		public int getBytes() {
+			return bytes;
+		}
+	}
+
+	private final Format format;
+	private final int cropRadius;
+
+	private GameBoard lastBoard;
+	private ByteBuffer lastTarget;
+	private int lastBase;
+	private int lastHeadX;
+	private int lastHeadY;
+	private MemorySegment lastSegment;
+	private ByteBuffer segmentView;
+	private long fullExports;
+	private long cellsWritten;
+
+	/**
+	 * Constructs an encoder that covers the whole board.
+	 *
+	 * @param format how the values are stored
+	 */
+	public ObservationEncoder(Format format) {
+		this(format, 0);
+	}
+
+	/**
+	 * Constructs an encoder that covers a square of {@code 2 * cropRadius + 1} cells centred on
+	 * the head, or the whole board when the radius is 0.
+	 *
+	 * @param format     how the values are stored
+	 * @param cropRadius the number of cells shown on each side of the head, or 0 for no crop
+	 */
+	public ObservationEncoder(Format format, int cropRadius) {
+		if (cropRadius < 0) {
+			throw new IllegalArgumentException("Crop radius must not be negative: " + cropRadius);
+		}
+		this.format = format;
+		this.cropRadius = cropRadius;
+	}
+
+	/**
+	 * Computes how many bytes an observation of the given board takes.
+	 *
+	 * @param board the board to encode
+	 * @return the size of the observation in bytes
+	 * @throws ArithmeticException if the board is too large to encode without a crop
+	 */
+	public int getByteSize(GameBoard board) {
+		return Math.multiplyExact(PLANES * format.getBytes(), Math.multiplyExact(viewWidth(board), viewHeight(board)));
+	}
+
+	/**
+	 * Writes the observation of the board into the target, starting at its current position.
+	 * The position and limit of the target are left unchanged.
+	 *
+	 * @param board  the board to encode
+	 * @param target the buffer that receives the observation, preferably direct
+	 * @return the number of cells written
+	 * @throws IllegalArgumentException if the target has fewer than {@link #getByteSize(GameBoard)} bytes remaining
+	 */
+	public int encode(GameBoard board, ByteBuffer target) {
+		int size = getByteSize(board);
+		if (target.remaining() < size) {
+			throw new IllegalArgumentException("Observation needs " + size + " bytes, only " + target.remaining() + " remaining");
+		}
+		int base = target.position();
+		int written;
+		if (cropRadius > 0) {
+			written = encodeCrop(board, target, base);
+		} else if (board != lastBoard || target != lastTarget || base != lastBase) {
+			written = encodeFull(board, target, base);
+			lastBoard = board;
+			lastTarget = target;
+			lastBase = base;
+			fullExports++;
+		} else {
+			written = encodeChanges(board, target, base);
+		}
+		lastHeadX = board.getSnake().getHeadX();
+		lastHeadY = board.getSnake().getHeadY();
+		cellsWritten += written;
+		return written;
+	}
+
+	/**
+	 * Writes the observation of the board at the start of the target segment, in the platform's
+	 * native byte order. The segment is wrapped once and the wrapper reused for as long as the
+	 * same segment is passed, so exports after the first one are incremental too.
+	 *
+	 * @param board  the board to encode
+	 * @param target the segment that receives the observation
+	 * @return the number of cells written
+	 */
+	public int encode(GameBoard board, MemorySegment target) {
+		if (!target.equals(lastSegment)) {
+			lastSegment = target;
+			segmentView = target.asByteBuffer().order(ByteOrder.nativeOrder());
+		}
+		return encode(board, segmentView);
+	}
+
+	/**
+	 * Forgets the previous export, so that the next one writes every cell again.
+	 */
+	public void reset() {
+		lastBoard = null;
+		lastTarget = null;
+	}
+
+	/**
+	 * Retrieves how many exports wrote the whole board.
+	 *
+	 * @return the number of full exports
+	 */
+	public long getFullExports() {
+		return fullExports;
+	}
+
+	/**
+	 * Retrieves how many cells have been written across all exports.
+	 *
+	 * @return the number of cells written
+	 */
+	public long getCellsWritten() {
+		return cellsWritten;
+	}
+
+	private int encodeFull(GameBoard board, ByteBuffer target, int base) {
+		int width = board.getWidth();
+		int height = board.getHeight();
+		int headX = board.getSnake().getHeadX();
+		int headY = board.getSnake().getHeadY();
+		int cells = width * height;
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				writeCell(target, base, cells, y * width + x, board.getCell(x, y), x == headX && y == headY);
+			}
+		}
+		return cells;
+	}
+
+	private int encodeChanges(GameBoard board, ByteBuffer target, int base) {
+		int width = board.getWidth();
+		int cells = width * board.getHeight();
+		int headX = board.getSnake().getHeadX();
+		int headY = board.getSnake().getHeadY();
+		writeCell(target, base, cells, lastHeadY * width + lastHeadX, board.getCell(lastHeadX, lastHeadY),
+				lastHeadX == headX && lastHeadY == headY);
+		int written = 1;
+		for (int i = 0; i < board.getDirtyCellCount(); i++) {
+			int x = board.getDirtyCellX(i);
+			int y = board.getDirtyCellY(i);
+			writeCell(target, base, cells, y * width + x, board.getCell(x, y), x == headX && y == headY);
+			written++;
+		}
+		return written;
+	}
+
+	private int encodeCrop(GameBoard board, ByteBuffer target, int base) {
+		int side = 2 * cropRadius + 1;
+		int cells = side * side;
+		int headX = board.getSnake().getHeadX();
+		int headY = board.getSnake().getHeadY();
+		int width = board.getWidth();
+		int height = board.getHeight();
+		for (int dy = 0; dy < side; dy++) {
+			int y = headY - cropRadius + dy;
+			for (int dx = 0; dx < side; dx++) {
+				int x = headX - cropRadius + dx;
+				boolean inside = x >= 0 && x < width && y >= 0 && y < height;
+				byte type = inside ? board.getCell(x, y) : GameBoard.SNAKE;
+				writeCell(target, base, cells, dy * side + dx, type, dx == cropRadius && dy == cropRadius);
+			}
+		}
+		return cells;
+	}
+
+	private void writeCell(ByteBuffer target, int base, int cells, int index, byte type, boolean head) {
+		write(target, base, PLANE_HEAD * cells + index, head);
+		write(target, base, PLANE_BODY * cells + index, (type == GameBoard.SNAKE || type == GameBoard.WALL) && !head);
+		write(target, base, PLANE_APPLE * cells + index, type == GameBoard.APPLE);
+	}
+
+	private void write(ByteBuffer target, int base, int value, boolean set) {
+		if (format == Format.UINT8) {
+			target.put(base + value, set ? (byte) 1 : (byte) 0);
+		} else {
+			target.putFloat(base + (value << 2), set ? 1f : 0f);
+		}
+	}
+
+	private int viewWidth(GameBoard board) {
+		return cropRadius > 0 ? 2 * cropRadius + 1 : board.getWidth();
+	}
+
+	private int viewHeight(GameBoard board) {
+		return cropRadius > 0 ? 2 * cropRadius + 1 : board.getHeight();
+	}
+}
@@ -0,0 +1,122 @@
+package simulation;
+
+/**
+ * The SimulationReport class holds the aggregate results of a batch of headless games.
+ * Reports of disjoint batches can be merged, which is how the parallel engine combines shards.
+ */
+public class SimulationReport {
+	private final long games;
+	private final long ticks;
+	private final long totalScore;
+	private final int bestScore;
+	private final long elapsedNanos;
+
+	/**
+	 * Constructs a report from raw totals.
+	 *
+	 * @param games        the number of games played
+	 * @param ticks        the total number of ticks over all games
+	 * @param totalScore   the sum of the final scores of all games
+	 * @param bestScore    the highest final score of any game
+	 * @param elapsedNanos the wall-clock time taken by the batch, in nanoseconds
+	 */
+	public SimulationReport(long games, long ticks, long totalScore, int bestScore, long elapsedNanos) {
+		this.games = games;
+		this.ticks = ticks;
+		this.totalScore = totalScore;
+		this.bestScore = bestScore;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 * Combines the totals of this report with another one covering different games.
+	 * The elapsed time of the result is left at zero; the caller measures the whole batch.
+	 *
+	 * @param other the report to merge with
+	 * @return a report whose totals cover both batches
+	 */
+	public SimulationReport merge(SimulationReport other) {
+		return new SimulationReport(games + other.games, ticks + other.ticks, totalScore + other.totalScore,
+				Math.max(bestScore, other.bestScore), 0);
+	}
+
+	/**
+	 * Returns a copy of this report with the given elapsed time.
+	 *
+	 * @param nanos the wall-clock time of the batch, in nanoseconds
+	 * @return a report with the same totals and the given elapsed time
+	 */
+	public SimulationReport withElapsedNanos(long nanos) {
+		return new SimulationReport(games, ticks, totalScore, bestScore, nanos);
+	}
+
+	/**
+	 * Retrieves the number of games played.
+	 *
+	 * @return the number of games
+	 */
+	public long getGames() {
+		return games;
+	}
+
+	/**
+	 * Retrieves the total number of ticks over all games.
+	 *
+	 * @return the number of ticks
+	 */
+	public long getTicks() {
+		return ticks;
+	}
+
+	/**
+	 * Retrieves the sum of the final scores of all games.
+	 *
+	 * @return the total score
+	 */
+	public long getTotalScore() {
+		return totalScore;
+	}
+
+	/**
+	 * Retrieves the highest final score of any game.
+	 *
+	 * @return the best score
+	 */
+	public int getBestScore() {
+		return bestScore;
+	}
+
+	/**
+	 * Retrieves the wall-clock time taken by the batch.
+	 *
+	 * @return the elapsed time in nanoseconds
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * Retrieves the throughput of the batch in finished games per second.
+	 *
+	 * @return games per second, or 0 if no time was recorded
+	 */
+	public double getGamesPerSecond() {
+		return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+	}
+
+	/**
+	 * Retrieves the throughput of the batch in simulated ticks per second.
+	 *
+	 * @return ticks per second, or 0 if no time was recorded
+	 */
+	public double getTicksPerSecond() {
+		return elapsedNanos == 0 ? 0 : ticks * 1e9 / elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d games, %d ticks in %.3f s (%.0f games/s, %.0f ticks/s), best score %d, mean score %.2f",
+				games, ticks, elapsedNanos / 1e9, getGamesPerSecond(), getTicksPerSecond(), bestScore,
+				games == 0 ? 0.0 : (double) totalScore / games);
+	}
+}
@@ -0,0 +1,449 @@
+package simulation;
+
+import domain.Board;
+import domain.Direction;
+import domain.GameBoard;
+import domain.SeededRandom;
+
+import java.util.Arrays;
+
+/**
+ * The VectorEnvironment steps many independent games at once for training agents, keeping every
+ * game in flat primitive arrays instead of one {@link domain.Game} object per game.
+ *
+ * Each array holds one value per game (head slot, length, apple, score, direction, generator
+ * state...) or one stride of {@code width * height} values per game (cells, ring-buffer body,
+ * free-cell index), so a call to {@link #step(int[])} is a single loop over games that touches
+ * no objects and allocates nothing. Cell types match {@link domain.DenseBoard#getCells()}, and
+ * {@link #getCells()} exposes all the boards back to back as the observation.
+ *
+ * The rules are exactly those of {@link Board#move(Direction)} and {@link domain.Game#update()},
+ * down to the order of the free-cell index and the SplitMix64 draws of {@link SeededRandom}: an
+ * episode started with seed {@code s} plays the same apples as {@code new Board(width, height, s)}
+ * given the same actions. When a game ends it is reported as done and immediately reset with
+ * the next seed of the environment, so every game always has a live episode.
+ *
+ * An environment must only be used from one thread at a time.
+ */
+public class VectorEnvironment {
+	/** Action that keeps the current direction; any other action is a {@link Direction} ordinal. */
+	public static final int NO_ACTION = -1;
+
+	/** Reward for a step that eats an apple. */
+	public static final float REWARD_APPLE = 1f;
+
+	/** Reward for a step that ends the episode. */
+	public static final float REWARD_DEATH = -1f;
+
+	private static final Direction[] DIRECTIONS = Direction.values();
+	private static final int[] DX = new int[4];
+	private static final int[] DY = new int[4];
+	private static final int[] OPPOSITE = new int[4];
+	private static final int RIGHT = Direction.RIGHT.ordinal();
+
+	static {
+		for (Direction direction : DIRECTIONS) {
+			DX[direction.ordinal()] = direction.getX();
+			DY[direction.ordinal()] = direction.getY();
+			for (Direction other : DIRECTIONS) {
+				if (direction.isOpposite(other)) {
+					OPPOSITE[direction.ordinal()] = other.ordinal();
+				}
+			}
+		}
+	}
+
+	private final int count;
+	private final int width;
+	private final int height;
+	private final int area;
+	private final SeededRandom seeds;
+
+	private final byte[] cells;
+	private final int[] bodies;
+	private final int[] freeCells;
+	private final int[] freeSlots;
+
+	private final int[] heads;
+	private final int[] lengths;
+	private final int[] apples;
+	private final int[] freeCounts;
+	private final int[] scores;
+	private final int[] steps;
+	private final byte[] directions;
+	private final boolean[] growing;
+	private final long[] randomStates;
+	private final long[] episodeSeeds;
+
+	private final float[] rewards;
+	private final boolean[] dones;
+	private final int[] finalScores;
+	private final int[] finalSteps;
+	private long episodeCount;
+
+	/**
+	 * Constructs an environment and starts the first episode of every game.
+	 *
+	 * @param count  the number of games stepped together
+	 * @param width  the width of every board
+	 * @param height the height of every board
+	 * @param seed   the seed from which the seed of every episode is drawn
+	 */
+	public VectorEnvironment(int count, int width, int height, long seed) {
+		if (count <= 0 || width <= 0 || height <= 0 || (long) count * width * height > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Invalid environment size: " + count + " games of " + width + "x" + height);
+		}
+		this.count = count;
+		this.width = width;
+		this.height = height;
+		this.area = width * height;
+		this.seeds = new SeededRandom(seed);
+		this.cells = new byte[count * area];
+		this.bodies = new int[count * area];
+		this.freeCells = new int[count * area];
+		this.freeSlots = new int[count * area];
+		this.heads = new int[count];
+		this.lengths = new int[count];
+		this.apples = new int[count];
+		this.freeCounts = new int[count];
+		this.scores = new int[count];
+		this.steps = new int[count];
+		this.directions = new byte[count];
+		this.growing = new boolean[count];
+		this.randomStates = new long[count];
+		this.episodeSeeds = new long[count];
+		this.rewards = new float[count];
+		this.dones = new boolean[count];
+		this.finalScores = new int[count];
+		this.finalSteps = new int[count];
+		for (int game = 0; game < count; game++) {
+			reset(game, seeds.nextLong());
+		}
+	}
+
+	/**
+	 * Plays one tick of every game. Games that end are reset before this method returns, so the
+	 * cells already show their new episode; their final score and length stay available through
+	 * {@link #getFinalScore(int)} and {@link #getFinalSteps(int)}.
+	 *
+	 * @param actions one action per game: a {@link Direction} ordinal, or {@link #NO_ACTION}.
+	 *                As in {@link domain.Game#changeDirection(Direction)}, turning back is ignored
+	 * @return the number of episodes that ended in this step
+	 */
+	public int step(int[] actions) {
+		if (actions.length != count) {
+			throw new IllegalArgumentException("Expected " + count + " actions, got " + actions.length);
+		}
+		int finished = 0;
+		for (int game = 0; game < count; game++) {
+			int action = actions[game];
+			int direction = directions[game];
+			if (action >= 0 && action < 4 && action != OPPOSITE[direction]) {
+				direction = action;
+				directions[game] = (byte) direction;
+			}
+			if (move(game, direction)) {
+				rewards[game] = REWARD_DEATH;
+				dones[game] = true;
+				finalScores[game] = scores[game];
+				finalSteps[game] = steps[game] + 1;
+				reset(game, seeds.nextLong());
+				finished++;
+			} else {
+				dones[game] = false;
+				steps[game]++;
+			}
+		}
+		episodeCount += finished;
+		return finished;
+	}
+
+	/**
+	 * Moves one snake like {@link Board#move(Direction)} followed by the eating step of
+	 * {@link domain.Game#update()}, and sets its reward when it does not die.
+	 *
+	 * @return true if the move ends the episode
+	 */
+	private boolean move(int game, int direction) {
+		int base = game * area;
+		int head = bodies[base + heads[game]];
+		int x = head % width + DX[direction];
+		int y = head / width + DY[direction];
+		if (x < 0 || x >= width || y < 0 || y >= height) {
+			return true;
+		}
+		int target = y * width + x;
+		if (cells[base + target] == GameBoard.SNAKE) {
+			return true;
+		}
+
+		boolean ate = target == apples[game];
+		if (growing[game]) {
+			growing[game] = false;
+		} else {
+			int tailSlot = heads[game] + lengths[game] - 1;
+			if (tailSlot >= area) {
+				tailSlot -= area;
+			}
+			int tail = bodies[base + tailSlot];
+			cells[base + tail] = GameBoard.EMPTY;
+			releaseFreeCell(game, base, tail);
+			lengths[game]--;
+		}
+		int slot = heads[game] == 0 ? area - 1 : heads[game] - 1;
+		heads[game] = slot;
+		bodies[base + slot] = target;
+		lengths[game]++;
+		claimFreeCell(game, base, target);
+		cells[base + target] = GameBoard.SNAKE;
+
+		if (ate) {
+			growing[game] = true;
+			scores[game]++;
+			rewards[game] = REWARD_APPLE;
+			placeApple(game, base);
+		} else {
+			rewards[game] = 0f;
+		}
+		return false;
+	}
+
+	/**
+	 * Starts a new episode of one game: an empty board, a one-segment snake in the middle
+	 * heading right, and an apple drawn from the episode's seed, as in {@link Board}.
+	 */
+	private void reset(int game, long seed) {
+		int base = game * area;
+		Arrays.fill(cells, base, base + area, GameBoard.EMPTY);
+		for (int i = 0; i < area; i++) {
+			freeCells[base + i] = i;
+			freeSlots[base + i] = i;
+		}
+		freeCounts[game] = area;
+
+		int start = (height / 2) * width + width / 2;
+		heads[game] = 0;
+		bodies[base] = start;
+		lengths[game] = 1;
+		claimFreeCell(game, base, start);
+		cells[base + start] = GameBoard.SNAKE;
+
+		directions[game] = (byte) RIGHT;
+		growing[game] = false;
+		scores[game] = 0;
+		steps[game] = 0;
+		episodeSeeds[game] = seed;
+		randomStates[game] = seed;
+		apples[game] = -1;
+		placeApple(game, base);
+	}
+
+	private void placeApple(int game, int base) {
+		if (freeCounts[game] == 0) {
+			return;
+		}
+		int apple = freeCells[base + nextInt(game, freeCounts[game])];
+		apples[game] = apple;
+		cells[base + apple] = GameBoard.APPLE;
+	}
+
+	private void claimFreeCell(int game, int base, int index) {
+		int slot = freeSlots[base + index];
+		if (slot < 0) {
+			return;
+		}
+		int last = freeCells[base + --freeCounts[game]];
+		freeCells[base + slot] = last;
+		freeSlots[base + last] = slot;
+		freeSlots[base + index] = -1;
+	}
+
+	private void releaseFreeCell(int game, int base, int index) {
+		if (freeSlots[base + index] >= 0) {
+			return;
+		}
+		freeCells[base + freeCounts[game]] = index;
+		freeSlots[base + index] = freeCounts[game]++;
+	}
+
+	/**
+	 * Draws from the game's generator exactly like {@link SeededRandom#nextInt(int)}.
+	 */
+	private int nextInt(int game, int bound) {
+		long z = (randomStates[game] += 0x9E3779B97F4A7C15L);
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		z = z ^ (z >>> 31);
+		return (int) (((z >>> 32) * bound) >>> 32);
+	}
+
+	/**
+	 * Retrieves the boards of all games back to back, each one row-major with
+	 * {@code width * height} cells holding {@link GameBoard#EMPTY}, {@link GameBoard#SNAKE} or
+	 * {@link GameBoard#APPLE}. The array is the live storage and must not be modified.
+	 *
+	 * @return the cells of every game
+	 */
+	public byte[] getCells() {
+		return cells;
+	}
+
+	/**
+	 * Retrieves the reward of every game for the last step. The array is reused by every step.
+	 *
+	 * @return one reward per game
+	 */
+	public float[] getRewards() {
+		return rewards;
+	}
+
+	/**
+	 * Retrieves which games ended in the last step and were reset. The array is reused by every step.
+	 *
+	 * @return one flag per game
+	 */
+	public boolean[] getDones() {
+		return dones;
+	}
+
+	/**
+	 * Retrieves the packed index ({@code y * width + x}) of a game's head.
+	 *
+	 * @param game the index of the game
+	 * @return the head cell of the game
+	 */
+	public int getHeadCell(int game) {
+		return bodies[game * area + heads[game]];
+	}
+
+	/**
+	 * Retrieves the packed index of a game's apple.
+	 *
+	 * @param game the index of the game
+	 * @return the apple cell of the game
+	 */
+	public int getAppleCell(int game) {
+		return apples[game];
+	}
+
+	/**
+	 * Retrieves the length of a game's snake.
+	 *
+	 * @param game the index of the game
+	 * @return the number of segments
+	 */
+	public int getLength(int game) {
+		return lengths[game];
+	}
+
+	/**
+	 * Retrieves the direction a game's snake is moving in.
+	 *
+	 * @param game the index of the game
+	 * @return the current direction
+	 */
+	public Direction getDirection(int game) {
+		return DIRECTIONS[directions[game]];
+	}
+
+	/**
+	 * Retrieves the score of a game's current episode.
+	 *
+	 * @param game the index of the game
+	 * @return the number of apples eaten so far
+	 */
+	public int getScore(int game) {
+		return scores[game];
+	}
+
+	/**
+	 * Retrieves the seed of a game's current episode, to replay it on a {@link Board}.
+	 *
+	 * @param game the index of the game
+	 * @return the seed of the episode
+	 */
+	public long getEpisodeSeed(int game) {
+		return episodeSeeds[game];
+	}
+
+	/**
+	 * Retrieves the score with which a game's last finished episode ended.
+	 *
+	 * @param game the index of the game
+	 * @return the final score, or 0 if no episode has ended yet
+	 */
+	public int getFinalScore(int game) {
+		return finalScores[game];
+	}
+
+	/**
+	 * Retrieves the number of steps a game's last finished episode lasted, including the
+	 * step that ended it.
+	 *
+	 * @param game the index of the game
+	 * @return the length of the episode, or 0 if no episode has ended yet
+	 */
+	public int getFinalSteps(int game) {
+		return finalSteps[game];
+	}
+
+	/**
+	 * Retrieves the number of episodes that have ended across all games.
+	 *
+	 * @return the episode count
+	 */
+	public long getEpisodeCount() {
+		return episodeCount;
+	}
+
+	/**
+	 * Retrieves the number of games stepped together.
+	 *
+	 * @return the number of games
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Retrieves the width of every board.
+	 *
+	 * @return the number of columns
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Retrieves the height of every board.
+	 *
+	 * @return the number of rows
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Steps 20x20 games with random actions and prints the throughput, as a quick check.
+	 *
+	 * @param args optionally the number of games, followed by the number of steps
+	 */
+	public static void main(String[] args) {
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+		int stepCount = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+		VectorEnvironment environment = new VectorEnvironment(games, 20, 20, 42);
+		SeededRandom random = new SeededRandom(7);
+		int[] actions = new int[games];
+
+		long start = System.nanoTime();
+		for (int s = 0; s < stepCount; s++) {
+			for (int game = 0; game < games; game++) {
+				actions[game] = random.nextInt(4) == 0 ? random.nextInt(4) : NO_ACTION;
+			}
+			environment.step(actions);
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("%d games, %d steps in %.3f s (%.0f ticks/s), %d episodes%n",
+				games, stepCount, seconds, (double) games * stepCount / seconds, environment.getEpisodeCount());
+	}
+}
@@ -0,0 +1,21 @@
+package view;
+
+/**
+ * A BoardRenderer draws a {@link Frame} of a game onto a JavaFX node.
+ * The controller calls {@link #render(Frame)} on the JavaFX thread with the newest frame
+ * published by the game loop, which may have run several ticks since the previous one.
+ */
+public interface BoardRenderer {
+    /**
+     * Draws the cells of the given frame.
+     *
+     * @param frame the frame to draw
+     */
+    public abstract void render(Frame frame);
+
+    /**
+     * Discards anything the renderer has cached about the previous frame, so that the next
+     * call to {@link #render(Frame)} draws the whole window again.
+     */
+    public abstract void reset();
+}
@@ -0,0 +1,137 @@
+package view;
+
+import domain.GameBoard;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+/**
+ * The CanvasRenderer draws the board onto a single {@link Canvas}, with the same
+ * light green background, black border and glyphs as the {@link GridPaneRenderer}.
+ *
+ * The first frame (and the first frame after {@link #reset()}, a resize or a scroll of the
+ * window) paints every cell. After that each frame is compared with a copy of the previous one
+ * and only the cells that differ are repainted, so the cost of a frame depends on how many cells
+ * changed rather than on the size of the board, and no scene graph nodes are created. Comparing
+ * frames rather than using the board's dirty-cell list also covers frames that are several ticks
+ * apart.
+ */
+public class CanvasRenderer implements BoardRenderer {
+    private static final Color BACKGROUND = Color.LIGHTGREEN;
+    private static final Color BORDER_COLOR = Color.BLACK;
+    private static final Color GLYPH_COLOR = Color.BLACK;
+    private static final double BORDER = 2;
+
+    private final Canvas canvas;
+    private final GraphicsContext graphics;
+    private byte[] previous;
+    private int previousLeft;
+    private int previousTop;
+    private int previousWidth;
+    private double paintedWidth;
+    private double paintedHeight;
+    private double cellWidth;
+    private double cellHeight;
+
+    /**
+     * Constructs a renderer that draws into the given canvas.
+     *
+     * @param canvas the canvas that receives the board
+     */
+    public CanvasRenderer(Canvas canvas) {
+        this.canvas = canvas;
+        this.graphics = canvas.getGraphicsContext2D();
+        this.graphics.setTextAlign(TextAlignment.CENTER);
+        this.graphics.setTextBaseline(VPos.CENTER);
+    }
+
+    /**
+     * Draws the frame, repainting only the cells that differ from the previous frame when it is
+     * still on the canvas.
+     *
+     * @param frame the frame to draw
+     */
+    @Override
+    public void render(Frame frame) {
+        byte[] cells = frame.getCells();
+        int width = frame.getWidth();
+        if (previous == null || previous.length != cells.length || previousWidth != width
+                || previousLeft != frame.getLeft() || previousTop != frame.getTop()
+                || canvas.getWidth() != paintedWidth || canvas.getHeight() != paintedHeight) {
+            paintAll(frame);
+        } else {
+            for (int i = 0; i < cells.length; i++) {
+                if (cells[i] != previous[i]) {
+                    paintCell(i % width, i / width, cells[i]);
+                }
+            }
+        }
+        if (previous == null || previous.length != cells.length) {
+            previous = new byte[cells.length];
+        }
+        System.arraycopy(cells, 0, previous, 0, cells.length);
+        previousLeft = frame.getLeft();
+        previousTop = frame.getTop();
+        previousWidth = width;
+    }
+
+    /**
+     * Forces the next frame to repaint the whole window.
+     */
+    @Override
+    public void reset() {
+        previous = null;
+    }
+
+    /**
+     * Paints the background, the border and every cell of the frame, and records
+     * the canvas size and cell metrics used for the following frames.
+     *
+     * @param frame the frame to draw
+     */
+    private void paintAll(Frame frame) {
+        paintedWidth = canvas.getWidth();
+        paintedHeight = canvas.getHeight();
+        cellWidth = (paintedWidth - 2 * BORDER) / frame.getWidth();
+        cellHeight = (paintedHeight - 2 * BORDER) / frame.getHeight();
+        graphics.setFont(Font.font(Math.min(Font.getDefault().getSize(), Math.min(cellWidth, cellHeight) * 0.8)));
+
+        graphics.setFill(BACKGROUND);
+        graphics.fillRect(0, 0, paintedWidth, paintedHeight);
+        graphics.setStroke(BORDER_COLOR);
+        graphics.setLineWidth(BORDER);
+        graphics.strokeRect(BORDER / 2, BORDER / 2, paintedWidth - BORDER, paintedHeight - BORDER);
+
+        for (int y = 0; y < frame.getHeight(); y++) {
+            for (int x = 0; x < frame.getWidth(); x++) {
+                paintCell(x, y, frame.getCell(x, y));
+            }
+        }
+    }
+
+    /**
+     * Clears one cell back to the background and draws the glyph for its type.
+     *
+     * @param x    the x-coordinate of the cell within the frame
+     * @param y    the y-coordinate of the cell within the frame
+     * @param type the cell type, one of {@link GameBoard#EMPTY}, {@link GameBoard#SNAKE}, {@link GameBoard#APPLE} or {@link GameBoard#WALL}
+     */
+    private void paintCell(int x, int y, byte type) {
+        double left = BORDER + x * cellWidth;
+        double top = BORDER + y * cellHeight;
+        graphics.setFill(BACKGROUND);
+        graphics.fillRect(left, top, cellWidth, cellHeight);
+
+        graphics.setFill(GLYPH_COLOR);
+        String glyph = switch (type) {
+            case GameBoard.SNAKE -> "■";
+            case GameBoard.APPLE -> "○";
+            case GameBoard.WALL -> "▓";
+            default -> "-";
+        };
+        graphics.fillText(glyph, left + cellWidth / 2, top + cellHeight / 2);
+    }
+}
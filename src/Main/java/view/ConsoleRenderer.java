@@ -0,0 +1,269 @@
+package view;
+
+import domain.Game;
+import domain.GameBoard;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The ConsoleRenderer draws a game on an ANSI terminal: the score on the first line and then
+ * one glyph per cell, row by row.
+ *
+ * Each frame is built in a reusable byte buffer and written with a single call. The first frame
+ * clears the screen and draws everything; after that the board is compared with the previous
+ * frame and only the cells that differ are emitted, each preceded by a cursor-move sequence.
+ * Boards larger than the screen are drawn through a {@link Viewport} that follows the head,
+ * so the size of a frame depends on the window and never on the size of the board.
+ * A renderer on its own thread can instead print {@link Frame}s published by the game loop.
+ * Output goes either to an {@link OutputStream} or straight to a {@link WritableByteChannel},
+ * which avoids the locking of {@link java.io.PrintStream} on {@code System.out}.
+ */
+public class ConsoleRenderer {
+    private static final byte[] CLEAR_SCREEN = ascii("\033[H\033[2J");
+    private static final byte[] CLEAR_TO_END_OF_LINE = ascii("\033[K");
+    private static final byte[] SCORE_PREFIX = "Puntuación: ".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] EMPTY_GLYPH = "· ".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SNAKE_GLYPH = "■ ".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] APPLE_GLYPH = "○ ".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] WALL_GLYPH = "▓ ".getBytes(StandardCharsets.UTF_8);
+
+    /** Screen line of the first board row: the score and a blank line come before it. */
+    private static final int FIRST_BOARD_LINE = 3;
+
+    /** Upper bound on the bytes one changed cell can take: a cursor move plus its glyph. */
+    private static final int MAX_CELL_BYTES = 32;
+
+    private final OutputStream out;
+    private final WritableByteChannel channel;
+
+    /** Largest window drawn by default: 40 cells take 80 columns of the terminal. */
+    private static final int DEFAULT_COLUMNS = 40;
+    private static final int DEFAULT_ROWS = 20;
+
+    private Viewport viewport;
+    private byte[] frame;
+    private ByteBuffer frameBuffer;
+    private int length;
+    private Frame captured;
+    private byte[] previous;
+    private int previousWidth;
+    private int previousScore;
+
+    /**
+     * Constructs a renderer that writes each frame to the given stream.
+     *
+     * @param out the stream that receives each frame, usually {@code System.out}
+     */
+    public ConsoleRenderer(OutputStream out) {
+        this.out = out;
+        this.channel = null;
+        this.viewport = new Viewport(DEFAULT_COLUMNS, DEFAULT_ROWS);
+    }
+
+    /**
+     * Constructs a renderer that writes each frame to the given channel.
+     *
+     * @param channel the channel that receives each frame
+     */
+    public ConsoleRenderer(WritableByteChannel channel) {
+        this.out = null;
+        this.channel = channel;
+        this.viewport = new Viewport(DEFAULT_COLUMNS, DEFAULT_ROWS);
+    }
+
+    /**
+     * Creates a renderer that writes to the process's standard output through a
+     * {@link java.nio.channels.FileChannel}, bypassing {@code System.out}.
+     *
+     * @return a renderer bound to the standard output file descriptor
+     */
+    public static ConsoleRenderer forStandardOutputChannel() {
+        return new ConsoleRenderer(new FileOutputStream(FileDescriptor.out).getChannel());
+    }
+
+    /**
+     * Prints the current state of the game, emitting only what changed since the previous frame.
+     * Only the cells inside the viewport are drawn; when the viewport scrolls to follow the head,
+     * the cells that now show something different are redrawn like any other change.
+     *
+     * @param game the game to print
+     */
+    public void render(Game game) {
+        if (captured == null) {
+            captured = new Frame();
+        }
+        captured.capture(game, viewport);
+        render(captured);
+    }
+
+    /**
+     * Prints a frame captured by another thread, emitting only what differs from the previous
+     * frame printed. The frame is only read during the call, so it may be reused afterwards.
+     *
+     * @param source the frame to print
+     */
+    public void render(Frame source) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        int score = source.getScore();
+        byte[] cells = source.getCells();
+        length = 0;
+
+        if (previous == null || previous.length != cells.length || previousWidth != width) {
+            ensureCapacity(64 + cells.length * MAX_CELL_BYTES + height * 8);
+            previous = new byte[cells.length];
+            previousWidth = width;
+            appendFullFrame(cells, width, score);
+        } else {
+            if (score != previousScore) {
+                appendCursorMove(1, 1);
+                appendScore(score);
+            }
+            int i = Arrays.mismatch(previous, cells);
+            while (i >= 0) {
+                appendCursorMove(FIRST_BOARD_LINE + i / width, 2 * (i % width) + 1);
+                append(glyph(cells[i]));
+                int next = i + 1;
+                if (next == cells.length) {
+                    break;
+                }
+                int offset = Arrays.mismatch(previous, next, cells.length, cells, next, cells.length);
+                i = offset < 0 ? -1 : next + offset;
+            }
+        }
+        System.arraycopy(cells, 0, previous, 0, cells.length);
+        previousScore = score;
+
+        if (length > 0) {
+            // Dejar el cursor debajo del tablero para los mensajes que vengan después
+            appendCursorMove(FIRST_BOARD_LINE + height, 1);
+            flush();
+        }
+    }
+
+    /**
+     * Replaces the window of the board that is drawn. The next frame is drawn in full.
+     *
+     * @param viewport the viewport that decides which cells are shown
+     */
+    public void setViewport(Viewport viewport) {
+        this.viewport = viewport;
+        reset();
+    }
+
+    /**
+     * Retrieves the window of the board that is drawn.
+     *
+     * @return the viewport of this renderer
+     */
+    public Viewport getViewport() {
+        return viewport;
+    }
+
+    /**
+     * Forgets the previous frame, so that the next call to {@link #render(Game)} clears the
+     * screen and draws everything again.
+     */
+    public void reset() {
+        previous = null;
+        viewport.reset();
+    }
+
+    private void appendFullFrame(byte[] cells, int width, int score) {
+        append(CLEAR_SCREEN);
+        appendScore(score);
+        append((byte) '\n');
+        append((byte) '\n');
+        for (int i = 0; i < cells.length; i++) {
+            append(glyph(cells[i]));
+            if ((i + 1) % width == 0) {
+                append((byte) '\n');
+            }
+        }
+    }
+
+    private void appendScore(int score) {
+        append(SCORE_PREFIX);
+        appendNumber(score);
+        append(CLEAR_TO_END_OF_LINE);
+    }
+
+    private void appendCursorMove(int line, int column) {
+        append((byte) '\033');
+        append((byte) '[');
+        appendNumber(line);
+        append((byte) ';');
+        appendNumber(column);
+        append((byte) 'H');
+    }
+
+    private void appendNumber(int value) {
+        if (value < 0) {
+            append((byte) '-');
+            value = -value;
+        }
+        int start = length;
+        do {
+            append((byte) ('0' + value % 10));
+            value /= 10;
+        } while (value > 0);
+        for (int a = start, b = length - 1; a < b; a++, b--) {
+            byte swap = frame[a];
+            frame[a] = frame[b];
+            frame[b] = swap;
+        }
+    }
+
+    private void append(byte[] bytes) {
+        System.arraycopy(bytes, 0, frame, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private void append(byte value) {
+        frame[length++] = value;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (frame == null || frame.length < capacity) {
+            frame = new byte[capacity];
+            frameBuffer = ByteBuffer.wrap(frame);
+        }
+    }
+
+    private void flush() {
+        try {
+            if (channel != null) {
+                frameBuffer.clear().limit(length);
+                while (frameBuffer.hasRemaining()) {
+                    channel.write(frameBuffer);
+                }
+            } else {
+                out.write(frame, 0, length);
+                out.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] glyph(byte type) {
+        return switch (type) {
+            case GameBoard.SNAKE -> SNAKE_GLYPH;
+            case GameBoard.APPLE -> APPLE_GLYPH;
+            case GameBoard.WALL -> WALL_GLYPH;
+            default -> EMPTY_GLYPH;
+        };
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
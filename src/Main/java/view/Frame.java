@@ -0,0 +1,261 @@
+package view;
+
+import domain.Game;
+import domain.GameBoard;
+import domain.GameEventListener;
+import domain.GameEventStream;
+import domain.GameEventType;
+
+/**
+ * A Frame is a copy of what a renderer needs to draw one tick of a game: the cells inside a
+ * {@link Viewport}, the score and whether the game is over.
+ *
+ * Frames let the simulation and the renderers run on different threads. The simulation
+ * {@link #capture(Game, Viewport) captures} the game into a frame it owns and hands the frame
+ * over through {@link application.FrameExchange}; from then on the frame is read-only until the
+ * renderer hands it back, so a renderer never sees a tick half applied.
+ *
+ * A frame that covers the whole board can also be kept up to date from the game's
+ * {@link GameEventStream}: captured once, it then receives the events of each tick as a
+ * {@link GameEventListener}. If events are lost, or the head leaves the frame, the frame becomes
+ * {@link #isStale() stale} and has to be captured again.
+ */
+public class Frame implements GameEventListener {
+    private byte[] cells = new byte[0];
+    private int left;
+    private int top;
+    private int width;
+    private int height;
+    private int boardWidth;
+    private int boardHeight;
+    private int score;
+    private boolean gameOver;
+    private int changedCells;
+    private long eventSequence;
+    private boolean stale;
+
+    /**
+     * Copies the cells of the game inside the viewport, after moving the viewport to follow the
+     * head, together with the score and game-over flag.
+     *
+     * @param game     the game to copy
+     * @param viewport the window of the board to copy
+     */
+    public void capture(Game game, Viewport viewport) {
+        GameBoard board = game.getGameBoard();
+        viewport.follow(board);
+        left = viewport.getLeft();
+        top = viewport.getTop();
+        width = viewport.getWidth();
+        height = viewport.getHeight();
+        if (cells.length != width * height) {
+            cells = new byte[width * height];
+        }
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            for (int x = 0; x < width; x++) {
+                cells[row + x] = board.getCell(left + x, top + y);
+            }
+        }
+        boardWidth = board.getWidth();
+        boardHeight = board.getHeight();
+        score = game.getScore();
+        gameOver = game.isGameOver();
+        changedCells = board.getDirtyCellCount();
+        GameEventStream events = game.getEventStream();
+        eventSequence = events == null ? 0 : events.getPublishedCount();
+        stale = false;
+    }
+
+    /**
+     * Copies another frame into this one.
+     *
+     * @param other the frame to copy
+     */
+    public void copyFrom(Frame other) {
+        if (cells.length != other.cells.length) {
+            cells = new byte[other.cells.length];
+        }
+        System.arraycopy(other.cells, 0, cells, 0, cells.length);
+        left = other.left;
+        top = other.top;
+        width = other.width;
+        height = other.height;
+        boardWidth = other.boardWidth;
+        boardHeight = other.boardHeight;
+        score = other.score;
+        gameOver = other.gameOver;
+        changedCells = other.changedCells;
+        eventSequence = other.eventSequence;
+        stale = other.stale;
+    }
+
+    /**
+     * Applies one event of the game to the frame: the head and tail moves and new apples change
+     * their cells, and the score and game-over flag are updated.
+     */
+    @Override
+    public void onEvent(GameEventType type, int x, int y, int value) {
+        switch (type) {
+            case HEAD_MOVED -> setCell(x, y, GameBoard.SNAKE, true);
+            case TAIL_REMOVED -> setCell(x, y, GameBoard.EMPTY, false);
+            case APPLE_SPAWNED -> setCell(x, y, GameBoard.APPLE, false);
+            case SCORE_CHANGED -> score = value;
+            case GAME_OVER -> {
+                score = value;
+                gameOver = true;
+            }
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Marks the frame as stale, since the events it missed can no longer be applied.
+     */
+    @Override
+    public void onEventsLost(long count) {
+        stale = true;
+    }
+
+    /**
+     * Determines whether the frame no longer matches the game it follows through events,
+     * because events were lost or the head left the frame.
+     *
+     * @return true if the frame has to be captured again
+     */
+    public boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * Retrieves how many events the game's stream had published when the frame was captured,
+     * so that a subscription can skip the events the frame already shows.
+     *
+     * @return the sequence of the first event not shown in the frame
+     */
+    public long getEventSequence() {
+        return eventSequence;
+    }
+
+    /**
+     * Starts counting the changed cells again, before applying the events of another tick.
+     */
+    public void resetChangedCells() {
+        changedCells = 0;
+    }
+
+    /**
+     * Retrieves the type of a cell of the frame.
+     *
+     * @param x the column within the frame, from 0 to {@code getWidth() - 1}
+     * @param y the row within the frame, from 0 to {@code getHeight() - 1}
+     * @return one of {@link GameBoard#EMPTY}, {@link GameBoard#SNAKE}, {@link GameBoard#APPLE} or {@link GameBoard#WALL}
+     */
+    public byte getCell(int x, int y) {
+        return cells[y * width + x];
+    }
+
+    /**
+     * Retrieves the cells of the frame, row-major with {@link #getWidth()} cells per row.
+     * The array belongs to the frame and must not be modified.
+     *
+     * @return the cells of the frame
+     */
+    public byte[] getCells() {
+        return cells;
+    }
+
+    /**
+     * Retrieves the column of the board shown in the first column of the frame.
+     *
+     * @return the leftmost column
+     */
+    public int getLeft() {
+        return left;
+    }
+
+    /**
+     * Retrieves the row of the board shown in the first row of the frame.
+     *
+     * @return the topmost row
+     */
+    public int getTop() {
+        return top;
+    }
+
+    /**
+     * Retrieves the number of columns of the frame.
+     *
+     * @return the width of the frame
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Retrieves the number of rows of the frame.
+     *
+     * @return the height of the frame
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Retrieves the width of the whole board.
+     *
+     * @return the number of columns of the board
+     */
+    public int getBoardWidth() {
+        return boardWidth;
+    }
+
+    /**
+     * Retrieves the height of the whole board.
+     *
+     * @return the number of rows of the board
+     */
+    public int getBoardHeight() {
+        return boardHeight;
+    }
+
+    /**
+     * Retrieves the score at the time of the frame.
+     *
+     * @return the score
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Determines whether the game was over at the time of the frame.
+     *
+     * @return true if the game had ended
+     */
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    /**
+     * Retrieves how many cells the last tick before the frame changed, or, for a frame that
+     * follows events, how many cells the events applied since {@link #resetChangedCells()} changed.
+     *
+     * @return the number of changed cells
+     */
+    public int getChangedCells() {
+        return changedCells;
+    }
+
+    private void setCell(int x, int y, byte type, boolean head) {
+        int column = x - left;
+        int row = y - top;
+        if (column < 0 || row < 0 || column >= width || row >= height) {
+            stale |= head;
+            return;
+        }
+        cells[row * width + column] = type;
+        changedCells++;
+    }
+}
@@ -0,0 +1,55 @@
+package view;
+
+import domain.GameBoard;
+import javafx.scene.control.Label;
+import javafx.scene.layout.GridPane;
+
+/**
+ * The GridPaneRenderer is the original board view: every frame it removes all the children
+ * of a {@link GridPane} and adds one {@link Label} per cell.
+ *
+ * It is kept for compatibility with existing layouts; {@link CanvasRenderer} gives the
+ * same look at a fraction of the cost.
+ */
+public class GridPaneRenderer implements BoardRenderer {
+    private final GridPane map;
+
+    /**
+     * Constructs a renderer that draws into the given grid.
+     *
+     * @param map the grid pane that receives one label per cell
+     */
+    public GridPaneRenderer(GridPane map) {
+        this.map = map;
+    }
+
+    /**
+     * Rebuilds every label of the grid from the cells of the frame.
+     *
+     * @param frame the frame to draw
+     */
+    @Override
+    public void render(Frame frame) {
+        map.getChildren().clear();
+
+        for (int y = 0; y < frame.getHeight(); y++) {
+            for (int x = 0; x < frame.getWidth(); x++) {
+                Label label = new Label();
+                switch (frame.getCell(x, y)) {
+                    case GameBoard.SNAKE -> label.setText("■");
+                    case GameBoard.APPLE -> label.setText("○");
+                    case GameBoard.WALL -> label.setText("▓");
+                    default -> label.setText("-");
+                }
+                map.add(label, x, y);
+            }
+        }
+    }
+
+    /**
+     * Does nothing: every frame is drawn from scratch anyway.
+     */
+    @Override
+    public void reset() {
+    }
+}
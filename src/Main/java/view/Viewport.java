@@ -0,0 +1,136 @@
+package view;
+
+import domain.GameBoard;
+
+/**
+ * A Viewport is the window of the board that a renderer actually draws, for boards too large to
+ * fit on screen.
+ *
+ * It follows the snake's head: while the head stays at least a quarter of the window away from
+ * every edge the window does not move, and once it gets closer the window scrolls just enough to
+ * restore that margin. The window never extends past the board, and on boards smaller than the
+ * window it simply covers the whole board, so small games look exactly as before.
+ */
+public class Viewport {
+    private final int columns;
+    private final int rows;
+    private int left;
+    private int top;
+    private int width;
+    private int height;
+    private boolean placed;
+
+    /**
+     * Constructs a viewport that shows at most the given number of cells in each direction.
+     *
+     * @param columns the largest number of columns shown
+     * @param rows    the largest number of rows shown
+     */
+    public Viewport(int columns, int rows) {
+        if (columns <= 0 || rows <= 0) {
+            throw new IllegalArgumentException("Viewport dimensions must be positive: " + columns + "x" + rows);
+        }
+        this.columns = columns;
+        this.rows = rows;
+    }
+
+    /**
+     * Moves the window so that the snake's head keeps its margin from the edges, centring it on
+     * the head the first time and whenever the board changes size.
+     *
+     * @param board the board being drawn
+     * @return true if the window moved or changed size, false if it shows the same cells as before
+     */
+    public boolean follow(GameBoard board) {
+        int newWidth = Math.min(columns, board.getWidth());
+        int newHeight = Math.min(rows, board.getHeight());
+        int headX = board.getSnake().getHeadX();
+        int headY = board.getSnake().getHeadY();
+
+        int newLeft;
+        int newTop;
+        if (!placed || newWidth != width || newHeight != height) {
+            newLeft = headX - newWidth / 2;
+            newTop = headY - newHeight / 2;
+        } else {
+            newLeft = scroll(left, newWidth, headX);
+            newTop = scroll(top, newHeight, headY);
+        }
+        newLeft = Math.max(0, Math.min(newLeft, board.getWidth() - newWidth));
+        newTop = Math.max(0, Math.min(newTop, board.getHeight() - newHeight));
+
+        boolean moved = !placed || newLeft != left || newTop != top || newWidth != width || newHeight != height;
+        left = newLeft;
+        top = newTop;
+        width = newWidth;
+        height = newHeight;
+        placed = true;
+        return moved;
+    }
+
+    /**
+     * Forgets the current position, so that the next call to {@link #follow(GameBoard)} centres
+     * the window on the head again.
+     */
+    public void reset() {
+        placed = false;
+    }
+
+    /**
+     * Determines whether a cell of the board lies inside the window.
+     *
+     * @param x the x-coordinate of the cell
+     * @param y the y-coordinate of the cell
+     * @return true if the cell is shown, false otherwise
+     */
+    public boolean contains(int x, int y) {
+        return x >= left && x < left + width && y >= top && y < top + height;
+    }
+
+    /**
+     * Retrieves the x-coordinate of the first column shown.
+     *
+     * @return the leftmost column of the window
+     */
+    public int getLeft() {
+        return left;
+    }
+
+    /**
+     * Retrieves the y-coordinate of the first row shown.
+     *
+     * @return the topmost row of the window
+     */
+    public int getTop() {
+        return top;
+    }
+
+    /**
+     * Retrieves the number of columns shown.
+     *
+     * @return the width of the window
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Retrieves the number of rows shown.
+     *
+     * @return the height of the window
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    private static int scroll(int start, int size, int head) {
+        int margin = size / 4;
+        if (head < start + margin) {
+            return head - margin;
+        }
+        if (head > start + size - 1 - margin) {
+            return head - size + 1 + margin;
+        }
+        return start;
+    }
+}